@@ -0,0 +1,110 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.DatabaseRecord;
+import com.itmo.java.basics.logic.Segment;
+import com.itmo.java.basics.logic.io.DatabaseInputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Чтение записи из сегмента: открытие файла на каждое чтение, как было раньше, против канала из
+ * {@link SegmentChannelPool}. При маленьком пуле видна цена вытеснения и повторного открытия
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SegmentReadBenchmark {
+    private static final int RECORDS_PER_SEGMENT = 1_000;
+    private static final int VALUE_SIZE = 64;
+
+    @Param({"32"})
+    public int segments;
+
+    @Param({"8", "64"})
+    public int maxOpenSegmentFiles;
+
+    private Path root;
+    private Segment[] opened;
+    private Path[] paths;
+    private long[][] offsets;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("segment-read-bench");
+        TableConfig config = TableConfig.defaultConfig().toBuilder()
+                .maxOpenSegmentFiles(maxOpenSegmentFiles)
+                .build();
+        SegmentChannelPool channelPool = SegmentChannelPool.create(config);
+        opened = new Segment[segments];
+        paths = new Path[segments];
+        offsets = new long[segments][RECORDS_PER_SEGMENT];
+        byte[] value = new byte[VALUE_SIZE];
+        for (int s = 0; s < segments; s++) {
+            Segment segment = SegmentImpl.create("segment_" + s, root, config,
+                    MappedSegmentCache.disabled(), SegmentBlockCache.disabled(), channelPool);
+            for (int i = 0; i < RECORDS_PER_SEGMENT; i++) {
+                offsets[s][i] = segment.size();
+                segment.write(DatabaseKey.of("key" + i), value);
+            }
+            opened[s] = segment;
+            paths[s] = root.resolve("segment_" + s);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (Segment segment : opened) {
+            segment.close();
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Optional<byte[]> reopenPerRead() throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int s = random.nextInt(segments);
+        long offset = offsets[s][random.nextInt(RECORDS_PER_SEGMENT)];
+        try (var dbInputStream = new DatabaseInputStream(new FileInputStream(paths[s].toString()))) {
+            long skipped = dbInputStream.skip(offset);
+            if (skipped != offset) {
+                throw new IOException("Error in skipping bytes");
+            }
+            return dbInputStream.readDbUnit().map(DatabaseRecord::getValue);
+        }
+    }
+
+    @Benchmark
+    public Optional<byte[]> pooledChannel() throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int s = random.nextInt(segments);
+        return opened[s].readAt(offsets[s][random.nextInt(RECORDS_PER_SEGMENT)]);
+    }
+}
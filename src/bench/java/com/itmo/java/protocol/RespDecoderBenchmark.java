@@ -0,0 +1,154 @@
+package com.itmo.java.protocol;
+
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор пачки команд SET_KEY: {@link RespFrameDecoder} над буфером целиком и над порциями,
+ * как их отдает сокет, {@link RespReader} над стримом и прежнее побайтовое чтение из стрима
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RespDecoderBenchmark {
+    private static final int COMMANDS = 1_000;
+    private static final int CHUNK_SIZE = 1_460;
+
+    @Param({"16", "1024"})
+    public int valueSize;
+
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] value = new byte[valueSize];
+        for (int i = 0; i < COMMANDS; i++) {
+            new RespArray(new RespCommandId(i),
+                    bulk("SET_KEY"), bulk("db"), bulk("table"), bulk("key" + i), new RespBulkString(value))
+                    .write(output);
+        }
+        bytes = output.toByteArray();
+    }
+
+    @Benchmark
+    public void frameDecoder(Blackhole blackhole) throws IOException {
+        RespFrameDecoder decoder = new RespFrameDecoder();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        for (int i = 0; i < COMMANDS; i++) {
+            blackhole.consume(decoder.decodeArray(buffer));
+        }
+    }
+
+    @Benchmark
+    public void frameDecoderChunks(Blackhole blackhole) throws IOException {
+        RespFrameDecoder decoder = new RespFrameDecoder();
+        for (int offset = 0; offset < bytes.length; offset += CHUNK_SIZE) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, Math.min(CHUNK_SIZE, bytes.length - offset));
+            RespArray array;
+            while ((array = decoder.decodeArray(buffer)) != null) {
+                blackhole.consume(array);
+            }
+        }
+    }
+
+    @Benchmark
+    public void respReader(Blackhole blackhole) throws IOException {
+        RespReader reader = new RespReader(new ByteArrayInputStream(bytes));
+        for (int i = 0; i < COMMANDS; i++) {
+            blackhole.consume(reader.readObject());
+        }
+    }
+
+    @Benchmark
+    public void byteAtATimeReader(Blackhole blackhole) throws IOException {
+        ByteAtATimeReader reader = new ByteAtATimeReader(new ByteArrayInputStream(bytes));
+        for (int i = 0; i < COMMANDS; i++) {
+            blackhole.consume(reader.readObject());
+        }
+    }
+
+    private static RespBulkString bulk(String value) {
+        return new RespBulkString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Прежний {@link RespReader}: размеры читаются по байту через {@link InputStream#read()} в список,
+     * массив выделяется сразу по объявленному размеру. Ошибки и проверки концов строк опущены
+     */
+    private static final class ByteAtATimeReader {
+        private final InputStream is;
+
+        private ByteAtATimeReader(InputStream is) {
+            this.is = is;
+        }
+
+        private RespObject readObject() throws IOException {
+            byte code = (byte) is.read();
+            switch (code) {
+                case RespArray.CODE:
+                    RespObject[] objects = new RespObject[readSize()];
+                    for (int i = 0; i < objects.length; i++) {
+                        objects[i] = readObject();
+                    }
+                    return new RespArray(objects);
+                case RespBulkString.CODE:
+                    int size = readSize();
+                    if (size == RespBulkString.NULL_STRING_SIZE) {
+                        return RespBulkString.NULL_STRING;
+                    }
+                    byte[] data = is.readNBytes(size);
+                    is.skipNBytes(2);
+                    return new RespBulkString(data);
+                case RespCommandId.CODE:
+                    int id = ByteBuffer.wrap(is.readNBytes(Integer.BYTES)).getInt();
+                    is.skipNBytes(2);
+                    return new RespCommandId(id);
+                default:
+                    throw new IOException("Unknown RESP object code");
+            }
+        }
+
+        private int readSize() throws IOException {
+            List<Byte> digits = new ArrayList<>();
+            byte b;
+            while ((b = (byte) is.read()) != '\r') {
+                digits.add(b);
+            }
+            is.read();
+            byte[] bytes = new byte[digits.size()];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = digits.get(i);
+            }
+            return Integer.parseInt(new String(bytes, StandardCharsets.US_ASCII));
+        }
+    }
+}
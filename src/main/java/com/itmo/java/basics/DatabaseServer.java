@@ -1,26 +1,70 @@
 package com.itmo.java.basics;
 
+import com.itmo.java.basics.config.DatabaseConfig;
 import com.itmo.java.basics.console.DatabaseCommand;
 import com.itmo.java.basics.console.DatabaseCommandArgPositions;
 import com.itmo.java.basics.console.DatabaseCommandResult;
 import com.itmo.java.basics.console.DatabaseCommands;
 import com.itmo.java.basics.console.ExecutionEnvironment;
+import com.itmo.java.basics.console.impl.SuccessArrayDatabaseCommandResult;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
 import com.itmo.java.basics.initialization.impl.InitializationContextImpl;
 import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespError;
+import com.itmo.java.protocol.model.RespObject;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
+/**
+ * Исполняет команды. Команды над ключами распределяются по однопоточным шардам по хэшу базы данных, таблицы
+ * и ключа: команды над одним ключом исполняются в порядке поступления, а над разными - параллельно.
+ * Команды, меняющие набор баз данных и таблиц ({@link DatabaseCommands#isAdministrative()}), команды над всей
+ * таблицей ({@link DatabaseCommands#isWholeTable()}) и уже собранные команды, про которые неизвестно,
+ * какой ключ они трогают, исполняются в отдельном координирующем потоке
+ * <p>
+ * Очередь каждого потока ограничена {@link DatabaseConfig#getExecutorQueueCapacity()}. Команда, которой не
+ * хватило места в очереди или которая прождала в ней дольше {@link DatabaseConfig#getExecutorQueueDeadlineMillis()},
+ * сразу завершается ошибкой {@link RespError#OVERLOADED}, а не копится, пока не кончится память
+ * <p>
+ * Команды над несколькими ключами ({@link DatabaseCommands#multiKeyStride()}) разбиваются по шардам своих ключей
+ */
 public class DatabaseServer {
 
-    private ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final ThreadPoolExecutor coordinator;
+    private final ThreadPoolExecutor[] shards;
     private final ExecutionEnvironment env;
+    private final long queueDeadlineNanos;
+    private final LongAdder rejectedCommands = new LongAdder();
+    private final LongAdder expiredCommands = new LongAdder();
 
     private DatabaseServer(ExecutionEnvironment env) {
         this.env = env;
+        DatabaseConfig config = env.getConfig();
+        this.queueDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(config.getExecutorQueueDeadlineMillis());
+        this.coordinator = newExecutor(config.getExecutorQueueCapacity());
+        this.shards = new ThreadPoolExecutor[Math.max(1, config.getExecutorShards())];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = newExecutor(config.getExecutorQueueCapacity());
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor(int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)));
     }
 
     /**
@@ -39,21 +83,219 @@ public class DatabaseServer {
     }
 
     public CompletableFuture<DatabaseCommandResult> executeNextCommand(RespArray message) {
-        return CompletableFuture.supplyAsync(() -> {
-            DatabaseCommand command = DatabaseCommands.valueOf(message
-                    .getObjects()
-                    .get(DatabaseCommandArgPositions.COMMAND_NAME.getPositionIndex())
-                    .asString())
-                    .getCommand(env, message.getObjects());
-            return command.execute();
-        }, executorService);
+        List<RespObject> args = message.getObjects();
+        int stride = multiKeyStride(args);
+        if (stride > 0) {
+            return executeMultiKey(args, stride);
+        }
+        return submit(() -> execute(args), executorFor(args));
+    }
+
+    /**
+     * Исполняет команду. Неизвестная команда или команда с неправильными аргументами завершается ошибкой
+     */
+    private DatabaseCommandResult execute(List<RespObject> args) {
+        String commandName = argument(args, DatabaseCommandArgPositions.COMMAND_NAME);
+        if (commandName == null) {
+            return DatabaseCommandResult.error("Command name is missing");
+        }
+        DatabaseCommand command;
+        try {
+            command = DatabaseCommands.valueOf(commandName).getCommand(env, args);
+        } catch (IllegalArgumentException e) {
+            return DatabaseCommandResult.error(e);
+        }
+        return command.execute();
+    }
+
+    /**
+     * Разбивает команду над несколькими ключами на команды для каждого шарда, в которые попали ее ключи,
+     * и собирает их результаты обратно в порядке ключей. Каждый ключ попадает в тот же шард, что и команды
+     * над ним одним, поэтому порядок команд над одним ключом сохраняется. Между шардами команда не атомарна:
+     * если часть не исполнилась, возвращается ее ошибка, а остальные части уже исполнены
+     */
+    private CompletableFuture<DatabaseCommandResult> executeMultiKey(List<RespObject> args, int stride) {
+        int firstKey = DatabaseCommandArgPositions.KEY.getPositionIndex();
+        int keys = (args.size() - firstKey) / stride;
+        String databaseName = argument(args, DatabaseCommandArgPositions.DATABASE_NAME);
+        String tableName = argument(args, DatabaseCommandArgPositions.TABLE_NAME);
+        Map<ThreadPoolExecutor, List<Integer>> keysByShard = new IdentityHashMap<>();
+        for (int i = 0; i < keys; i++) {
+            ThreadPoolExecutor shard = shardFor(databaseName, tableName, args.get(firstKey + i * stride).asBytes());
+            keysByShard.computeIfAbsent(shard, executor -> new ArrayList<>()).add(i);
+        }
+        if (keysByShard.size() == 1) {
+            return submit(() -> execute(args), keysByShard.keySet().iterator().next());
+        }
+        List<CompletableFuture<DatabaseCommandResult>> parts = new ArrayList<>(keysByShard.size());
+        List<List<Integer>> partKeys = new ArrayList<>(keysByShard.size());
+        for (Map.Entry<ThreadPoolExecutor, List<Integer>> shardKeys : keysByShard.entrySet()) {
+            List<RespObject> partArgs = new ArrayList<>(args.subList(0, firstKey));
+            for (int key : shardKeys.getValue()) {
+                partArgs.addAll(args.subList(firstKey + key * stride, firstKey + (key + 1) * stride));
+            }
+            parts.add(submit(() -> execute(partArgs), shardKeys.getKey()));
+            partKeys.add(shardKeys.getValue());
+        }
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture<?>[]::new)).thenApply(ignored -> {
+            byte[][] values = new byte[keys][];
+            for (int i = 0; i < parts.size(); i++) {
+                DatabaseCommandResult result = parts.get(i).join();
+                if (!(result instanceof SuccessArrayDatabaseCommandResult)) {
+                    return result;
+                }
+                List<byte[]> partValues = ((SuccessArrayDatabaseCommandResult) result).getValues();
+                for (int j = 0; j < partValues.size(); j++) {
+                    values[partKeys.get(i).get(j)] = partValues.get(j);
+                }
+            }
+            return DatabaseCommandResult.success(Arrays.asList(values));
+        });
     }
 
     public CompletableFuture<DatabaseCommandResult> executeNextCommand(DatabaseCommand command) {
-        return CompletableFuture.supplyAsync(command::execute, executorService);
+        return submit(command::execute, coordinator);
+    }
+
+    /**
+     * Ставит команду в очередь потока. Если очередь полна, команда сразу отклоняется, а если она прождала
+     * в очереди дольше дедлайна, то отклоняется, когда до нее дойдет очередь, без исполнения
+     */
+    private CompletableFuture<DatabaseCommandResult> submit(Supplier<DatabaseCommandResult> command,
+                                                            ExecutorService executor) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                if (queueDeadlineNanos > 0 && System.nanoTime() - enqueuedAt > queueDeadlineNanos) {
+                    expiredCommands.increment();
+                    return DatabaseCommandResult.overloaded("command waited in queue longer than deadline");
+                }
+                return command.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCommands.increment();
+            return CompletableFuture.completedFuture(DatabaseCommandResult.overloaded("executor queue is full"));
+        }
+    }
+
+    /**
+     * Сколько команд сейчас ждут исполнения во всех очередях
+     */
+    public int getQueuedCommands() {
+        int queued = coordinator.getQueue().size();
+        for (ThreadPoolExecutor shard : shards) {
+            queued += shard.getQueue().size();
+        }
+        return queued;
+    }
+
+    /**
+     * Сколько команд отклонено, потому что очередь их потока была полна
+     */
+    public long getRejectedCommands() {
+        return rejectedCommands.sum();
+    }
+
+    /**
+     * Сколько команд отклонено, потому что прождали в очереди дольше дедлайна
+     */
+    public long getExpiredCommands() {
+        return expiredCommands.sum();
+    }
+
+    /**
+     * Исполняется ли команда на шарде. Такие команды над одним ключом исполняются в порядке поступления,
+     * поэтому их можно отправлять, не дожидаясь ответов на предыдущие. Остальные команды упорядочены
+     * с командами на шардах, только если отправивший их дождался ответов
+     */
+    public boolean isSharded(RespArray message) {
+        return executorFor(message.getObjects()) != coordinator;
+    }
+
+    /**
+     * Выбирает поток для команды. Некорректные команды уходят в координирующий поток и там же завершаются ошибкой
+     */
+    private ThreadPoolExecutor executorFor(List<RespObject> args) {
+        if (args.size() <= DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()) {
+            return coordinator;
+        }
+        String commandName = argument(args, DatabaseCommandArgPositions.COMMAND_NAME);
+        try {
+            if (commandName == null) {
+                return coordinator;
+            }
+            DatabaseCommands command = DatabaseCommands.valueOf(commandName);
+            if (command.isAdministrative() || command.isWholeTable()) {
+                return coordinator;
+            }
+        } catch (IllegalArgumentException e) {
+            return coordinator;
+        }
+        byte[] key = args.size() > DatabaseCommandArgPositions.KEY.getPositionIndex()
+                ? args.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asBytes()
+                : null;
+        return shardFor(argument(args, DatabaseCommandArgPositions.DATABASE_NAME),
+                argument(args, DatabaseCommandArgPositions.TABLE_NAME), key);
+    }
+
+    private ThreadPoolExecutor shardFor(String databaseName, String tableName, byte[] key) {
+        int hash = Objects.hash(databaseName, tableName);
+        if (key != null) {
+            hash = 31 * hash + Arrays.hashCode(key);
+        }
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+
+    /**
+     * {@link DatabaseCommands#multiKeyStride()} команды или 0, если это не корректная команда над несколькими ключами.
+     * Некорректные исполняются как обычные и завершаются ошибкой
+     */
+    private static int multiKeyStride(List<RespObject> args) {
+        int firstKey = DatabaseCommandArgPositions.KEY.getPositionIndex();
+        if (args.size() <= firstKey) {
+            return 0;
+        }
+        String commandName = argument(args, DatabaseCommandArgPositions.COMMAND_NAME);
+        int stride;
+        try {
+            stride = commandName == null ? 0 : DatabaseCommands.valueOf(commandName).multiKeyStride();
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+        if (stride == 0 || (args.size() - firstKey) % stride != 0
+                || argument(args, DatabaseCommandArgPositions.DATABASE_NAME) == null
+                || argument(args, DatabaseCommandArgPositions.TABLE_NAME) == null) {
+            return 0;
+        }
+        return stride;
+    }
+
+    private static String argument(List<RespObject> args, DatabaseCommandArgPositions position) {
+        return args.get(position.getPositionIndex()).asString();
     }
 
     public ExecutionEnvironment getEnv() {
         return env;
     }
+
+    /**
+     * Дожидается исполнения уже принятых команд и закрывает все базы данных
+     *
+     * @throws DatabaseException если произошла ошибка при закрытии баз данных
+     */
+    public void close() throws DatabaseException {
+        coordinator.shutdown();
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        try {
+            coordinator.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            for (ExecutorService shard : shards) {
+                shard.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        env.close();
+    }
 }
\ No newline at end of file
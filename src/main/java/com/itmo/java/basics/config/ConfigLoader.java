@@ -4,12 +4,44 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Класс, отвечающий за подгрузку данных из конфигурационного файла формата .properties
  */
 public class ConfigLoader {
+    private static final String TABLE_PROPERTY_PREFIX = "kvs.table.";
+    private static final String CACHE_MAX_BYTES_PROPERTY = "kvs.cache.maxBytes";
+    private static final String CACHE_OFF_HEAP_PROPERTY = "kvs.cache.offHeap";
+    private static final String EXECUTOR_SHARDS_PROPERTY = "kvs.executor.shards";
+    private static final String EXECUTOR_QUEUE_CAPACITY_PROPERTY = "kvs.executor.queueCapacity";
+    private static final String EXECUTOR_QUEUE_DEADLINE_PROPERTY = "kvs.executor.queueDeadlineMillis";
+    private static final String CONNECTOR_PROPERTY = "kvs.connector";
+    private static final String EVENT_LOOPS_PROPERTY = "kvs.connector.eventLoops";
+    private static final String MAX_IN_FLIGHT_PROPERTY = "kvs.connector.maxInFlight";
+    private static final String MAPPED_READS_PROPERTY = "mappedReads";
+    private static final String MAX_MAPPED_BYTES_PROPERTY = "maxMappedBytes";
+    private static final String MAX_OPEN_SEGMENT_FILES_PROPERTY = "maxOpenSegmentFiles";
+    private static final String DURABILITY_PROPERTY = "durability";
+    private static final String COMPACTION_INTERVAL_PROPERTY = "compactionIntervalMillis";
+    private static final String COMPACTION_MIN_SEGMENTS_PROPERTY = "compactionMinSegments";
+    private static final String COMPACTION_MAX_SEGMENTS_PROPERTY = "compactionMaxSegments";
+    private static final String COMPACTION_RATE_PROPERTY = "compactionBytesPerSecond";
+    private static final String INDEX_TYPE_PROPERTY = "index";
+    private static final String SEGMENT_INDEXES_PROPERTY = "segmentIndexes";
+    private static final String CHECKPOINT_INTERVAL_PROPERTY = "checkpointIntervalMillis";
+    private static final String ORDERED_INDEX_PROPERTY = "orderedIndex";
+    private static final String BLOCK_CACHE_BYTES_PROPERTY = "blockCacheBytes";
+    private static final String BLOCK_SIZE_PROPERTY = "blockSize";
+    private static final String HOT_KEYS_LIMIT_PROPERTY = "hotKeysLimit";
+    private static final String HOT_KEYS_INTERVAL_PROPERTY = "hotKeysIntervalMillis";
+    private static final String WARM_UP_RATE_PROPERTY = "warmUpBytesPerSecond";
+    private static final Pattern INTERVAL_DURABILITY = Pattern.compile("interval\\((\\d+)\\)");
+
     private final String fileName;
 
     /**
@@ -29,9 +61,12 @@ public class ConfigLoader {
     /**
      * Считывает конфиг из указанного в конструкторе файла.
      * Если не удалось считать из заданного файла, или какого-то конкретно значения не оказалось,
-     * то используют дефолтные значения из {@link DatabaseConfig} и {@link ServerConfig}
+     * то используют дефолтные значения из {@link DatabaseConfig}, {@link ServerConfig} и {@link TableConfig}
      * <br/>
-     * Читаются: "kvs.workingPath", "kvs.host", "kvs.port" (но в конфигурационном файле допустимы и другие проперти)
+     * Читаются: "kvs.workingPath", "kvs.host", "kvs.port", "kvs.cache.maxBytes", "kvs.cache.offHeap",
+     * "kvs.executor.shards", "kvs.executor.queueCapacity", "kvs.executor.queueDeadlineMillis", "kvs.connector", "kvs.connector.eventLoops",
+     * "kvs.connector.maxInFlight", настройки таблиц "kvs.table.*"
+     * (но в конфигурационном файле допустимы и другие проперти)
      */
     public DatabaseServerConfig readConfig() {
         URL resource = this.getClass().getClassLoader().getResource(fileName);
@@ -42,10 +77,28 @@ public class ConfigLoader {
             String workingPath = properties.getProperty("kvs.workingPath", DatabaseConfig.DEFAULT_WORKING_PATH);
             String host = properties.getProperty("kvs.host", ServerConfig.DEFAULT_HOST);
             String port = properties.getProperty("kvs.port", String.valueOf(ServerConfig.DEFAULT_PORT));
+            long cacheMaxBytes = Long.parseLong(properties.getProperty(CACHE_MAX_BYTES_PROPERTY,
+                    String.valueOf(DatabaseConfig.DEFAULT_CACHE_MAX_BYTES)));
+            boolean cacheOffHeap = Boolean.parseBoolean(properties.getProperty(CACHE_OFF_HEAP_PROPERTY, "false"));
+            ConnectorType connectorType = readConnectorType(properties.getProperty(CONNECTOR_PROPERTY));
+            int eventLoops = Integer.parseInt(properties.getProperty(EVENT_LOOPS_PROPERTY,
+                    String.valueOf(ServerConfig.DEFAULT_EVENT_LOOPS)));
+            int maxInFlight = Integer.parseInt(properties.getProperty(MAX_IN_FLIGHT_PROPERTY,
+                    String.valueOf(ServerConfig.DEFAULT_MAX_IN_FLIGHT)));
+            int executorShards = Integer.parseInt(properties.getProperty(EXECUTOR_SHARDS_PROPERTY,
+                    String.valueOf(DatabaseConfig.DEFAULT_EXECUTOR_SHARDS)));
+            int executorQueueCapacity = Integer.parseInt(properties.getProperty(EXECUTOR_QUEUE_CAPACITY_PROPERTY,
+                    String.valueOf(DatabaseConfig.DEFAULT_EXECUTOR_QUEUE_CAPACITY)));
+            long executorQueueDeadlineMillis = Long.parseLong(properties.getProperty(EXECUTOR_QUEUE_DEADLINE_PROPERTY,
+                    String.valueOf(DatabaseConfig.DEFAULT_EXECUTOR_QUEUE_DEADLINE_MILLIS)));
+            TableConfig defaultTableConfig = readTableConfig(properties, TABLE_PROPERTY_PREFIX, TableConfig.defaultConfig());
             return DatabaseServerConfig
                     .builder()
-                    .serverConfig(new ServerConfig(host, Integer.parseInt(port)))
-                    .dbConfig(new DatabaseConfig(workingPath))
+                    .serverConfig(new ServerConfig(host, Integer.parseInt(port), connectorType, eventLoops,
+                            maxInFlight))
+                    .dbConfig(new DatabaseConfig(workingPath, defaultTableConfig,
+                            readTableConfigs(properties, defaultTableConfig), cacheMaxBytes,
+                            cacheOffHeap, executorShards, executorQueueCapacity, executorQueueDeadlineMillis))
                     .build();
         } catch (IOException ignored) {
             return DatabaseServerConfig
@@ -55,4 +108,105 @@ public class ConfigLoader {
                     .build();
         }
     }
+
+    /**
+     * Собирает настройки таблиц, заданные как "kvs.table.&lt;db&gt;.&lt;table&gt;.&lt;property&gt;"
+     */
+    private Map<String, TableConfig> readTableConfigs(Properties properties, TableConfig defaultTableConfig) {
+        Map<String, TableConfig> tableConfigs = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (!name.startsWith(TABLE_PROPERTY_PREFIX)) {
+                continue;
+            }
+            String[] parts = name.substring(TABLE_PROPERTY_PREFIX.length()).split("\\.");
+            if (parts.length != 3) {
+                continue;
+            }
+            String tableKey = parts[0] + "." + parts[1];
+            tableConfigs.computeIfAbsent(tableKey, key -> readTableConfig(properties,
+                    TABLE_PROPERTY_PREFIX + key + ".", defaultTableConfig));
+        }
+        return tableConfigs;
+    }
+
+    private TableConfig readTableConfig(Properties properties, String prefix, TableConfig defaults) {
+        return defaults.toBuilder()
+                .mappedReads(Boolean.parseBoolean(properties.getProperty(prefix + MAPPED_READS_PROPERTY,
+                        String.valueOf(defaults.isMappedReads()))))
+                .maxMappedBytes(Long.parseLong(properties.getProperty(prefix + MAX_MAPPED_BYTES_PROPERTY,
+                        String.valueOf(defaults.getMaxMappedBytes()))))
+                .maxOpenSegmentFiles(Integer.parseInt(properties.getProperty(prefix + MAX_OPEN_SEGMENT_FILES_PROPERTY,
+                        String.valueOf(defaults.getMaxOpenSegmentFiles()))))
+                .durabilityMode(readDurabilityMode(properties.getProperty(prefix + DURABILITY_PROPERTY),
+                        defaults.getDurabilityMode()))
+                .fsyncIntervalMillis(readFsyncInterval(properties.getProperty(prefix + DURABILITY_PROPERTY),
+                        defaults.getFsyncIntervalMillis()))
+                .compactionIntervalMillis(Long.parseLong(properties.getProperty(prefix + COMPACTION_INTERVAL_PROPERTY,
+                        String.valueOf(defaults.getCompactionIntervalMillis()))))
+                .compactionMinSegments(Integer.parseInt(properties.getProperty(prefix + COMPACTION_MIN_SEGMENTS_PROPERTY,
+                        String.valueOf(defaults.getCompactionMinSegments()))))
+                .compactionMaxSegments(Integer.parseInt(properties.getProperty(prefix + COMPACTION_MAX_SEGMENTS_PROPERTY,
+                        String.valueOf(defaults.getCompactionMaxSegments()))))
+                .compactionBytesPerSecond(Long.parseLong(properties.getProperty(prefix + COMPACTION_RATE_PROPERTY,
+                        String.valueOf(defaults.getCompactionBytesPerSecond()))))
+                .indexType(readIndexType(properties.getProperty(prefix + INDEX_TYPE_PROPERTY), defaults.getIndexType()))
+                .segmentIndexes(Boolean.parseBoolean(properties.getProperty(prefix + SEGMENT_INDEXES_PROPERTY,
+                        String.valueOf(defaults.isSegmentIndexes()))))
+                .checkpointIntervalMillis(Long.parseLong(properties.getProperty(prefix + CHECKPOINT_INTERVAL_PROPERTY,
+                        String.valueOf(defaults.getCheckpointIntervalMillis()))))
+                .orderedIndex(Boolean.parseBoolean(properties.getProperty(prefix + ORDERED_INDEX_PROPERTY,
+                        String.valueOf(defaults.isOrderedIndex()))))
+                .blockCacheBytes(Long.parseLong(properties.getProperty(prefix + BLOCK_CACHE_BYTES_PROPERTY,
+                        String.valueOf(defaults.getBlockCacheBytes()))))
+                .blockSize(Integer.parseInt(properties.getProperty(prefix + BLOCK_SIZE_PROPERTY,
+                        String.valueOf(defaults.getBlockSize()))))
+                .hotKeysLimit(Integer.parseInt(properties.getProperty(prefix + HOT_KEYS_LIMIT_PROPERTY,
+                        String.valueOf(defaults.getHotKeysLimit()))))
+                .hotKeysIntervalMillis(Long.parseLong(properties.getProperty(prefix + HOT_KEYS_INTERVAL_PROPERTY,
+                        String.valueOf(defaults.getHotKeysIntervalMillis()))))
+                .warmUpBytesPerSecond(Long.parseLong(properties.getProperty(prefix + WARM_UP_RATE_PROPERTY,
+                        String.valueOf(defaults.getWarmUpBytesPerSecond()))))
+                .build();
+    }
+
+    /**
+     * Разбирает режим записи: "none", "every-batch" или "interval(&lt;ms&gt;)"
+     */
+    private DurabilityMode readDurabilityMode(String value, DurabilityMode defaultMode) {
+        if (value == null) {
+            return defaultMode;
+        }
+        if (INTERVAL_DURABILITY.matcher(value.trim()).matches()) {
+            return DurabilityMode.INTERVAL;
+        }
+        return DurabilityMode.valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * Разбирает вид коннектора: "blocking", "virtual" или "nio"
+     */
+    private ConnectorType readConnectorType(String value) {
+        if (value == null) {
+            return ConnectorType.BLOCKING;
+        }
+        return ConnectorType.valueOf(value.trim().toUpperCase());
+    }
+
+    /**
+     * Разбирает вид индекса: "hash-map" или "open-addressing"
+     */
+    private IndexType readIndexType(String value, IndexType defaultType) {
+        if (value == null) {
+            return defaultType;
+        }
+        return IndexType.valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+
+    private long readFsyncInterval(String value, long defaultInterval) {
+        if (value == null) {
+            return defaultInterval;
+        }
+        Matcher matcher = INTERVAL_DURABILITY.matcher(value.trim());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : defaultInterval;
+    }
 }
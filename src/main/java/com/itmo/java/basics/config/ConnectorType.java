@@ -0,0 +1,22 @@
+package com.itmo.java.basics.config;
+
+/**
+ * Как сервер принимает клиентские соединения
+ */
+public enum ConnectorType {
+    /**
+     * Блокирующие сокеты, {@link com.itmo.java.basics.connector.JavaSocketServerConnector}
+     */
+    BLOCKING,
+    /**
+     * Блокирующие сокеты, но каждое соединение обслуживается своим виртуальным потоком.
+     * Виртуальные потоки есть только в сборке под JDK 21+ (профиль jdk21), на более старой JVM
+     * каждому соединению достается обычный поток
+     */
+    VIRTUAL,
+    /**
+     * Неблокирующие каналы и несколько циклов событий на {@link java.nio.channels.Selector},
+     * {@link com.itmo.java.basics.connector.NioServerConnector}
+     */
+    NIO
+}
@@ -1,14 +1,99 @@
 package com.itmo.java.basics.config;
 
+import java.util.Map;
+
 public class DatabaseConfig {
     public static final String DEFAULT_WORKING_PATH = "db_files";
+    public static final long DEFAULT_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_EXECUTOR_SHARDS = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_EXECUTOR_QUEUE_CAPACITY = 10_000;
+    public static final long DEFAULT_EXECUTOR_QUEUE_DEADLINE_MILLIS = 1_000;
     private final String workingPath;
+    private final TableConfig defaultTableConfig;
+    private final Map<String, TableConfig> tableConfigs;
+    private final long cacheMaxBytes;
+    private final boolean cacheOffHeap;
+    private final int executorShards;
+    private final int executorQueueCapacity;
+    private final long executorQueueDeadlineMillis;
 
     public DatabaseConfig(String workingPath) {
+        this(workingPath, TableConfig.defaultConfig(), Map.of());
+    }
+
+    /**
+     * @param workingPath        путь до директории, где находятся базы данных
+     * @param defaultTableConfig настройки таблиц по умолчанию
+     * @param tableConfigs       настройки отдельных таблиц по ключу "&lt;db&gt;.&lt;table&gt;"
+     */
+    public DatabaseConfig(String workingPath, TableConfig defaultTableConfig, Map<String, TableConfig> tableConfigs) {
+        this(workingPath, defaultTableConfig, tableConfigs, DEFAULT_CACHE_MAX_BYTES, false);
+    }
+
+    /**
+     * @param cacheMaxBytes бюджет кэша значений в байтах, общий для всех таблиц сервера
+     * @param cacheOffHeap  хранить ли значения кэша вне кучи
+     */
+    public DatabaseConfig(String workingPath, TableConfig defaultTableConfig, Map<String, TableConfig> tableConfigs,
+                          long cacheMaxBytes, boolean cacheOffHeap) {
+        this(workingPath, defaultTableConfig, tableConfigs, cacheMaxBytes, cacheOffHeap, DEFAULT_EXECUTOR_SHARDS);
+    }
+
+    /**
+     * @param executorShards сколько потоков исполняют команды над ключами
+     */
+    public DatabaseConfig(String workingPath, TableConfig defaultTableConfig, Map<String, TableConfig> tableConfigs,
+                          long cacheMaxBytes, boolean cacheOffHeap, int executorShards) {
+        this(workingPath, defaultTableConfig, tableConfigs, cacheMaxBytes, cacheOffHeap, executorShards,
+                DEFAULT_EXECUTOR_QUEUE_CAPACITY, DEFAULT_EXECUTOR_QUEUE_DEADLINE_MILLIS);
+    }
+
+    /**
+     * @param executorQueueCapacity       сколько команд может ждать исполнения в очереди одного потока
+     * @param executorQueueDeadlineMillis сколько команда может ждать в очереди, прежде чем будет отклонена без
+     *                                    исполнения. 0 - сколько угодно
+     */
+    public DatabaseConfig(String workingPath, TableConfig defaultTableConfig, Map<String, TableConfig> tableConfigs,
+                          long cacheMaxBytes, boolean cacheOffHeap, int executorShards,
+                          int executorQueueCapacity, long executorQueueDeadlineMillis) {
         this.workingPath = workingPath;
+        this.defaultTableConfig = defaultTableConfig;
+        this.tableConfigs = tableConfigs;
+        this.cacheMaxBytes = cacheMaxBytes;
+        this.cacheOffHeap = cacheOffHeap;
+        this.executorShards = executorShards;
+        this.executorQueueCapacity = executorQueueCapacity;
+        this.executorQueueDeadlineMillis = executorQueueDeadlineMillis;
     }
 
     public String getWorkingPath() {
         return workingPath;
     }
+
+    public long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+
+    public boolean isCacheOffHeap() {
+        return cacheOffHeap;
+    }
+
+    public int getExecutorShards() {
+        return executorShards;
+    }
+
+    public int getExecutorQueueCapacity() {
+        return executorQueueCapacity;
+    }
+
+    public long getExecutorQueueDeadlineMillis() {
+        return executorQueueDeadlineMillis;
+    }
+
+    /**
+     * Возвращает настройки таблицы, если они были переопределены, иначе настройки по умолчанию
+     */
+    public TableConfig getTableConfig(String dbName, String tableName) {
+        return tableConfigs.getOrDefault(dbName + "." + tableName, defaultTableConfig);
+    }
 }
@@ -0,0 +1,20 @@
+package com.itmo.java.basics.config;
+
+/**
+ * Когда записанные в сегмент данные сбрасываются на диск (fsync)
+ */
+public enum DurabilityMode {
+    /**
+     * Данные пишутся в файл, сброс на диск остается на усмотрение ОС
+     */
+    NONE,
+    /**
+     * Данные пишутся в файл, на диск сбрасываются раз в заданный интервал
+     */
+    INTERVAL,
+    /**
+     * Запись считается выполненной, когда она сброшена на диск. fsync делается после снятия блокировки таблицы,
+     * и писатели, записавшие одновременно, дожидаются одного общего fsync
+     */
+    EVERY_BATCH
+}
@@ -0,0 +1,16 @@
+package com.itmo.java.basics.config;
+
+/**
+ * Как хранится индекс сегмента в памяти
+ */
+public enum IndexType {
+    /**
+     * {@link java.util.HashMap} из строковых ключей в смещения
+     */
+    HASH_MAP,
+    /**
+     * Открытая адресация поверх примитивных массивов: байты ключей, их хеши и смещения
+     * хранятся без отдельного объекта на каждый ключ
+     */
+    OPEN_ADDRESSING
+}
@@ -4,7 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 /**
- * Какой хост и какой порт будет слушать наш сервер
+ * Какой хост и какой порт будет слушать наш сервер и каким коннектором
  */
 @Getter
 @AllArgsConstructor
@@ -12,7 +12,22 @@ public class ServerConfig {
 
     public static final String DEFAULT_HOST = "localhost";
     public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_EVENT_LOOPS = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_MAX_IN_FLIGHT = 128;
 
     private final String host;
     private final int port;
+    private final ConnectorType connectorType;
+    /**
+     * Сколько потоков обслуживают соединения в {@link ConnectorType#NIO}
+     */
+    private final int eventLoops;
+    /**
+     * Сколько команд одного соединения могут исполняться одновременно, пока их ответы не записаны
+     */
+    private final int maxInFlight;
+
+    public ServerConfig(String host, int port) {
+        this(host, port, ConnectorType.BLOCKING, DEFAULT_EVENT_LOOPS, DEFAULT_MAX_IN_FLIGHT);
+    }
 }
@@ -0,0 +1,139 @@
+package com.itmo.java.basics.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Настройки отдельной таблицы. Значения по умолчанию задаются в server.properties как "kvs.table.*",
+ * для конкретной таблицы их можно переопределить как "kvs.table.&lt;db&gt;.&lt;table&gt;.*"
+ */
+@ToString
+@Getter
+@Builder(toBuilder = true)
+public class TableConfig {
+    public static final long DEFAULT_MAX_MAPPED_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1000;
+    public static final int DEFAULT_COMPACTION_MIN_SEGMENTS = 4;
+    public static final int DEFAULT_COMPACTION_MAX_SEGMENTS = 16;
+    public static final long DEFAULT_COMPACTION_BYTES_PER_SECOND = 4L * 1024 * 1024;
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+    public static final long DEFAULT_HOT_KEYS_INTERVAL_MILLIS = 60_000;
+    public static final long DEFAULT_WARM_UP_BYTES_PER_SECOND = 4L * 1024 * 1024;
+    public static final int DEFAULT_MAX_OPEN_SEGMENT_FILES = 64;
+
+    /**
+     * Читать ли read-only сегменты через отображение файла в память
+     */
+    @Builder.Default
+    private final boolean mappedReads = false;
+
+    /**
+     * Сколько байт сегментов таблицы может быть одновременно отображено в память
+     */
+    @Builder.Default
+    private final long maxMappedBytes = DEFAULT_MAX_MAPPED_BYTES;
+
+    /**
+     * Сколько файлов сегментов таблицы может быть одновременно открыто на чтение
+     */
+    @Builder.Default
+    private final int maxOpenSegmentFiles = DEFAULT_MAX_OPEN_SEGMENT_FILES;
+
+    /**
+     * Когда записи сбрасываются на диск
+     */
+    @Builder.Default
+    private final DurabilityMode durabilityMode = DurabilityMode.NONE;
+
+    /**
+     * Интервал сброса на диск для {@link DurabilityMode#INTERVAL}
+     */
+    @Builder.Default
+    private final long fsyncIntervalMillis = DEFAULT_FSYNC_INTERVAL_MILLIS;
+
+    /**
+     * Как часто проверять, не пора ли компактировать read-only сегменты. 0 - компакция выключена
+     */
+    @Builder.Default
+    private final long compactionIntervalMillis = 0;
+
+    /**
+     * Сколько должно накопиться read-only сегментов, чтобы запустить компакцию
+     */
+    @Builder.Default
+    private final int compactionMinSegments = DEFAULT_COMPACTION_MIN_SEGMENTS;
+
+    /**
+     * Сколько самых старых сегментов сливается за одну компакцию
+     */
+    @Builder.Default
+    private final int compactionMaxSegments = DEFAULT_COMPACTION_MAX_SEGMENTS;
+
+    /**
+     * Ограничение скорости чтения компактора, байт в секунду. 0 - без ограничения
+     */
+    @Builder.Default
+    private final long compactionBytesPerSecond = DEFAULT_COMPACTION_BYTES_PER_SECOND;
+
+    /**
+     * Как хранится индекс сегментов таблицы
+     */
+    @Builder.Default
+    private final IndexType indexType = IndexType.HASH_MAP;
+
+    /**
+     * Хранить ли у каждого сегмента собственный индекс ключей. Таблица читает по смещению из своего индекса,
+     * поэтому без них обходится. Без индекса {@link com.itmo.java.basics.logic.Segment#read(com.itmo.java.basics.logic.DatabaseKey)}
+     * ничего не находит
+     */
+    @Builder.Default
+    private final boolean segmentIndexes = true;
+
+    /**
+     * Как часто сохранять снимок индекса таблицы на диск. 0 - снимки выключены
+     */
+    @Builder.Default
+    private final long checkpointIntervalMillis = 0;
+
+    /**
+     * Хранить ли ключи таблицы по возрастанию, чтобы выполнять SCAN_RANGE и SCAN_PREFIX
+     */
+    @Builder.Default
+    private final boolean orderedIndex = false;
+
+    /**
+     * Сколько байт блоков файлов сегментов таблицы держать в памяти. 0 - кэш блоков выключен
+     */
+    @Builder.Default
+    private final long blockCacheBytes = 0;
+
+    /**
+     * Размер блока кэша блоков
+     */
+    @Builder.Default
+    private final int blockSize = DEFAULT_BLOCK_SIZE;
+
+    /**
+     * Сколько самых часто читаемых ключей сохранять, чтобы после перезапуска заранее загрузить их в кэш.
+     * 0 - ключи не сохраняются
+     */
+    @Builder.Default
+    private final int hotKeysLimit = 0;
+
+    /**
+     * Как часто сохранять часто читаемые ключи. Кроме того, они сохраняются при закрытии таблицы
+     */
+    @Builder.Default
+    private final long hotKeysIntervalMillis = DEFAULT_HOT_KEYS_INTERVAL_MILLIS;
+
+    /**
+     * Ограничение скорости чтения при загрузке ключей в кэш после перезапуска, байт в секунду. 0 - без ограничения
+     */
+    @Builder.Default
+    private final long warmUpBytesPerSecond = DEFAULT_WARM_UP_BYTES_PER_SECOND;
+
+    public static TableConfig defaultConfig() {
+        return TableConfig.builder().build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.itmo.java.basics.connector;
+
+import com.itmo.java.basics.config.ConnectorType;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Потоки, на которых {@link JavaSocketServerConnector} обслуживает клиентские соединения.
+ * В сборке под JDK 21+ эту версию подменяет src/main/java21, где у {@link ConnectorType#VIRTUAL} виртуальные потоки
+ */
+final class ClientThreads {
+
+    private ClientThreads() {
+    }
+
+    /**
+     * Экзекьютор для {@link JavaSocketServerConnector.ClientTask}. Для {@link ConnectorType#VIRTUAL} каждое
+     * соединение получает свой поток, здесь - обычный, раз виртуальных на этой JVM нет
+     */
+    static ExecutorService newClientExecutor(ConnectorType connectorType) {
+        if (connectorType == ConnectorType.VIRTUAL) {
+            return Executors.newCachedThreadPool();
+        }
+        return Executors.newSingleThreadExecutor();
+    }
+}
@@ -2,11 +2,12 @@ package com.itmo.java.basics.connector;
 
 import com.itmo.java.basics.DatabaseServer;
 import com.itmo.java.basics.config.ConfigLoader;
+import com.itmo.java.basics.config.ConnectorType;
 import com.itmo.java.basics.config.DatabaseServerConfig;
 import com.itmo.java.basics.config.ServerConfig;
-import com.itmo.java.basics.console.DatabaseCommand;
 import com.itmo.java.basics.console.DatabaseCommandResult;
 import com.itmo.java.basics.console.impl.ExecutionEnvironmentImpl;
+import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.initialization.impl.DatabaseInitializer;
 import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
 import com.itmo.java.basics.initialization.impl.SegmentInitializer;
@@ -15,22 +16,27 @@ import com.itmo.java.basics.resp.CommandReader;
 import com.itmo.java.protocol.RespReader;
 import com.itmo.java.protocol.RespWriter;
 
+import com.itmo.java.protocol.model.RespArray;
+
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * Класс, который предоставляет доступ к серверу через сокеты
  */
-public class JavaSocketServerConnector implements Closeable {
+public class JavaSocketServerConnector implements ServerConnector {
 
     /**
-     * Экзекьютор для выполнения ClientTask
+     * Экзекьютор для выполнения ClientTask, см. {@link ClientThreads}
      */
-    private final ExecutorService clientIOWorkers = Executors.newSingleThreadExecutor();
+    private final ExecutorService clientIOWorkers;
 
     private final ServerSocket serverSocket;
     private final ExecutorService connectionAcceptorExecutor = Executors.newSingleThreadExecutor();
@@ -43,18 +49,20 @@ public class JavaSocketServerConnector implements Closeable {
     public JavaSocketServerConnector(DatabaseServer databaseServer, ServerConfig config) throws IOException {
         this.databaseServer = databaseServer;
         this.serverSocket = new ServerSocket(config.getPort());
+        this.clientIOWorkers = ClientThreads.newClientExecutor(config.getConnectorType());
         this.config = config;
     }
 
     /**
      * Начинает слушать заданный порт, начинает аксептить клиентские сокеты. На каждый из них начинает клиентскую таску
      */
+    @Override
     public void start() {
         connectionAcceptorExecutor.submit(() -> {
             while (!serverSocket.isClosed()) {
                 try {
                     Socket client = serverSocket.accept();
-                    clientIOWorkers.submit(new ClientTask(client, databaseServer));
+                    clientIOWorkers.submit(new ClientTask(client, databaseServer, config.getMaxInFlight()));
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
@@ -82,8 +90,18 @@ public class JavaSocketServerConnector implements Closeable {
         DatabaseServerConfig config = configLoader.readConfig();
         DatabaseServer dbServer = DatabaseServer.initialize(new ExecutionEnvironmentImpl(config.getDbConfig()),
                 new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer()))));
-        JavaSocketServerConnector connector = new JavaSocketServerConnector(dbServer, config.getServerConfig());
+        ServerConnector connector = config.getServerConfig().getConnectorType() == ConnectorType.NIO
+                ? new NioServerConnector(dbServer, config.getServerConfig())
+                : new JavaSocketServerConnector(dbServer, config.getServerConfig());
         connector.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            connector.close();
+            try {
+                dbServer.close();
+            } catch (DatabaseException e) {
+                e.printStackTrace();
+            }
+        }));
     }
 
     /**
@@ -92,34 +110,98 @@ public class JavaSocketServerConnector implements Closeable {
     static class ClientTask implements Runnable, Closeable {
         private final Socket client;
         private final DatabaseServer server;
+        private final int maxInFlight;
+        /**
+         * Отправленные на сервер команды, ответы на которые еще не записаны, в порядке поступления
+         */
+        private final Deque<CompletableFuture<DatabaseCommandResult>> inFlight = new ArrayDeque<>();
+        /**
+         * Последняя отправленная команда исполняется не на шарде и следующие должны ее дождаться
+         */
+        private boolean barrierInFlight;
 
         /**
          * @param client клиентский сокет
          * @param server сервер, на котором исполняется задача
          */
         public ClientTask(Socket client, DatabaseServer server) {
+            this(client, server, ServerConfig.DEFAULT_MAX_IN_FLIGHT);
+        }
+
+        /**
+         * @param client      клиентский сокет
+         * @param server      сервер, на котором исполняется задача
+         * @param maxInFlight сколько команд клиента могут исполняться, пока их ответы не записаны
+         */
+        public ClientTask(Socket client, DatabaseServer server, int maxInFlight) {
             this.client = client;
             this.server = server;
+            this.maxInFlight = Math.max(1, maxInFlight);
         }
 
         /**
          * Исполняет задачи из одного клиентского сокета, пока клиент не отсоединился или текущий поток не был прерван (interrupted).
          * Для кажной из задач:
          * 1. Читает из сокета команду с помощью {@link CommandReader}
-         * 2. Исполняет ее на сервере
-         * 3. Записывает результат в сокет с помощью {@link RespWriter}
+         * 2. Отправляет ее на сервер, не дожидаясь исполнения предыдущих
+         * 3. Записывает результаты в сокет с помощью {@link RespWriter} в порядке поступления команд
+         * <p>
+         * Следующая команда читается, пока в сокете уже есть байты и исполняется меньше {@code maxInFlight} команд.
+         * Иначе поток дожидается самой старой команды и пишет ее ответ, так что клиент, ждущий ответа
+         * перед следующей командой, не зависает.
+         * <p>
+         * Ответы копятся в буфере {@link RespWriter} и уходят в сокет разом, перед тем как поток заблокируется
+         * на чтении следующей команды или на ожидании еще не исполненной
          */
         @Override
         public void run() {
             try (CommandReader commandReader = new CommandReader(new RespReader(client.getInputStream()), server.getEnv());
                  RespWriter respWriter = new RespWriter(client.getOutputStream())) {
-                while (commandReader.hasNextCommand()) {
-                    DatabaseCommand command = commandReader.readCommand();
-                    DatabaseCommandResult result = server.executeNextCommand(command).get();
-                    respWriter.write(result.serialize());
+                while (true) {
+                    if (!inFlight.isEmpty() && (inFlight.size() >= maxInFlight || commandReader.available() == 0)) {
+                        writeOldest(respWriter);
+                        continue;
+                    }
+                    if (commandReader.available() == 0) {
+                        respWriter.flush();
+                    }
+                    if (!commandReader.hasNextCommand()) {
+                        break;
+                    }
+                    RespArray message = commandReader.readCommandMessage();
+                    boolean barrier = !server.isSharded(message);
+                    if (barrier || barrierInFlight) {
+                        while (!inFlight.isEmpty()) {
+                            writeOldest(respWriter);
+                        }
+                    }
+                    inFlight.add(server.executeNextCommand(message));
+                    barrierInFlight = barrier;
+                }
+                while (!inFlight.isEmpty()) {
+                    writeOldest(respWriter);
                 }
             } catch (Exception e) {
                 e.printStackTrace();
+            } finally {
+                // ответы, которые уже не будут записаны, отпускают удерживаемые значения
+                for (CompletableFuture<DatabaseCommandResult> future : inFlight) {
+                    future.thenAccept(DatabaseCommandResult::release);
+                }
+                inFlight.clear();
+            }
+        }
+
+        private void writeOldest(RespWriter respWriter) throws Exception {
+            CompletableFuture<DatabaseCommandResult> oldest = inFlight.poll();
+            if (!oldest.isDone()) {
+                respWriter.flush();
+            }
+            DatabaseCommandResult result = oldest.get();
+            try {
+                respWriter.write(result.serialize());
+            } finally {
+                result.release();
             }
         }
 
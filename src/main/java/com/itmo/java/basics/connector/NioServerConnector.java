@@ -0,0 +1,479 @@
+package com.itmo.java.basics.connector;
+
+import com.itmo.java.basics.DatabaseServer;
+import com.itmo.java.basics.config.ServerConfig;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.protocol.BufferSink;
+import com.itmo.java.protocol.RespFrameDecoder;
+import com.itmo.java.protocol.model.RespArray;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Коннектор на неблокирующих каналах. Соединения распределяются по нескольким циклам событий,
+ * каждый цикл - один поток со своим {@link Selector}, так что поток не простаивает на молчащем клиенте
+ * и тысячи соединений обслуживаются несколькими потоками.
+ * <p>
+ * Байты читаются в direct буферы из пула цикла и сразу разбираются {@link RespFrameDecoder} соединения,
+ * который помнит недочитанную команду сам. Буфер занят соединением, только пока в нем лежат байты команд,
+ * которые еще не отправлены на сервер, поэтому простаивающие соединения памяти под чтение не держат.
+ * Команды соединения отправляются на сервер, не дожидаясь ответов на предыдущие, а ответы пишутся
+ * в порядке поступления команд: они кодируются в direct буферы из того же пула и все готовые ответы
+ * уходят в канал одной gathering записью. Значения из off-heap кэша встают в ту же запись срезом слаба
+ * без копирования, а слот отпускается, когда срез ушел в канал. Когда исполняется {@link ServerConfig#getMaxInFlight()} команд,
+ * соединение перестает читаться, и быстрый клиент упирается в TCP окно, а не в память сервера.
+ * Так же соединение перестает читаться и отправлять команды, когда неотправленных ответов набирается больше
+ * {@link #OUTPUT_HIGH_WATER_MARK} байт, например у клиента, который шлет команды, но не читает ответы.
+ * Чтение продолжается, когда в очереди остается не больше {@link #OUTPUT_LOW_WATER_MARK} байт
+ */
+public class NioServerConnector implements ServerConnector {
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final long OUTPUT_HIGH_WATER_MARK = 1024 * 1024;
+    private static final long OUTPUT_LOW_WATER_MARK = OUTPUT_HIGH_WATER_MARK / 4;
+
+    private final DatabaseServer databaseServer;
+    private final int maxInFlight;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService connectionAcceptorExecutor = Executors.newSingleThreadExecutor();
+    private final EventLoop[] eventLoops;
+
+    /**
+     * Открывает серверный канал. Соединения принимаются после {@link #start()}
+     */
+    public NioServerConnector(DatabaseServer databaseServer, ServerConfig config) throws IOException {
+        this.databaseServer = databaseServer;
+        this.maxInFlight = Math.max(1, config.getMaxInFlight());
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(config.getPort()));
+        this.eventLoops = new EventLoop[Math.max(1, config.getEventLoops())];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop(Selector.open(), "nio-event-loop-" + i);
+        }
+    }
+
+    /**
+     * Запускает циклы событий и начинает принимать соединения, раздавая их циклам по очереди
+     */
+    @Override
+    public void start() {
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.thread.start();
+        }
+        connectionAcceptorExecutor.submit(() -> {
+            int next = 0;
+            while (serverChannel.isOpen()) {
+                try {
+                    SocketChannel client = serverChannel.accept();
+                    client.configureBlocking(false);
+                    client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    EventLoop eventLoop = eventLoops[next];
+                    next = (next + 1) % eventLoops.length;
+                    eventLoop.execute(() -> eventLoop.register(client));
+                } catch (ClosedChannelException e) {
+                    return;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        System.out.println("Stopping NIO connector");
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        connectionAcceptorExecutor.shutdownNow();
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.stop();
+        }
+    }
+
+    /**
+     * Поток с селектором. Все, что касается его соединений, происходит только в нем,
+     * остальные потоки передают работу через {@link #execute(Runnable)}
+     */
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Deque<ByteBuffer> bufferPool = new ArrayDeque<>();
+        private volatile boolean running = true;
+
+        private EventLoop(Selector selector, String name) {
+            this.selector = selector;
+            this.thread = new Thread(this, name);
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void stop() {
+            running = false;
+            selector.wakeup();
+        }
+
+        void register(SocketChannel client) {
+            Connection connection = new Connection(client, this);
+            try {
+                connection.key = client.register(selector, SelectionKey.OP_READ, connection);
+            } catch (ClosedChannelException e) {
+                connection.close();
+            }
+        }
+
+        ByteBuffer acquireBuffer() {
+            ByteBuffer buffer = bufferPool.poll();
+            return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        void releaseBuffer(ByteBuffer buffer) {
+            if (buffer.isDirect() && buffer.capacity() == BUFFER_SIZE && bufferPool.size() < MAX_POOLED_BUFFERS) {
+                buffer.clear();
+                bufferPool.push(buffer);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        try {
+                            task.run();
+                        } catch (RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                    Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                    while (selectedKeys.hasNext()) {
+                        SelectionKey key = selectedKeys.next();
+                        selectedKeys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            connection.onReady(key);
+                        } catch (RuntimeException e) {
+                            // ошибка одного клиента не должна останавливать цикл со всеми его соединениями
+                            e.printStackTrace();
+                            connection.close();
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                e.printStackTrace();
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).close();
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Состояние одного клиента. Меняется только в потоке его цикла событий
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final EventLoop eventLoop;
+        /**
+         * Закодированные ответы в режиме чтения, которые еще не ушли в канал
+         */
+        private final Deque<ByteBuffer> output = new ArrayDeque<>();
+        private final OutputStream encoder = new Encoder();
+        /**
+         * Что сделать, когда буфер из {@link #output} уйдет в канал или будет выброшен, вместо возврата в пул
+         */
+        private final Map<ByteBuffer, Runnable> onSent = new IdentityHashMap<>();
+        /**
+         * Буфер из пула в режиме записи, в который кодируются ответы, или null
+         */
+        private ByteBuffer outputTail;
+        /**
+         * Сколько байт закодированных ответов еще не ушло в канал
+         */
+        private long outputBytes;
+        /**
+         * Ответов накопилось больше {@link #OUTPUT_HIGH_WATER_MARK} и они еще не ушли до {@link #OUTPUT_LOW_WATER_MARK}
+         */
+        private boolean outputBlocked;
+        private final RespFrameDecoder decoder = new RespFrameDecoder();
+        /**
+         * Отправленные на сервер команды, ответы на которые еще не записаны, в порядке поступления
+         */
+        private final Deque<CompletableFuture<DatabaseCommandResult>> inFlight = new ArrayDeque<>();
+        private SelectionKey key;
+        /**
+         * Недочитанные байты в режиме записи или null, если их нет
+         */
+        private ByteBuffer input;
+        /**
+         * Прочитанная команда, которая ждет, пока исполнятся предыдущие, или null
+         */
+        private RespArray pending;
+        /**
+         * Последняя отправленная команда исполняется не на шарде и следующие должны ее дождаться
+         */
+        private boolean barrierInFlight;
+        private boolean closed;
+
+        private Connection(SocketChannel channel, EventLoop eventLoop) {
+            this.channel = channel;
+            this.eventLoop = eventLoop;
+        }
+
+        void onReady(SelectionKey readyKey) {
+            try {
+                if (readyKey.isValid() && readyKey.isWritable()) {
+                    flush();
+                    // команды, прочитанные до остановки по очереди ответов, больше никто не разбудит
+                    decode();
+                }
+                if (readyKey.isValid() && readyKey.isReadable()) {
+                    read();
+                }
+                updateInterest();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void read() throws IOException {
+            if (input == null) {
+                input = eventLoop.acquireBuffer();
+            } else if (!input.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(input.capacity() * 2);
+                input.flip();
+                larger.put(input);
+                eventLoop.releaseBuffer(input);
+                input = larger;
+            }
+            if (channel.read(input) < 0) {
+                close();
+                return;
+            }
+            decode();
+        }
+
+        /**
+         * Отдает серверу команды, которые пришли целиком, пока их не исполняется {@link #maxInFlight}
+         * и пока не переполнена очередь ответов.
+         * Команда не на шарде ждет, пока исполнятся все предыдущие, а следующие ждут ее
+         */
+        private void decode() throws IOException {
+            while (inFlight.size() < maxInFlight && !isOutputBlocked()) {
+                if (pending == null) {
+                    pending = decodeNext();
+                    if (pending == null) {
+                        return;
+                    }
+                }
+                boolean barrier = !databaseServer.isSharded(pending);
+                if ((barrier || barrierInFlight) && !inFlight.isEmpty()) {
+                    return;
+                }
+                CompletableFuture<DatabaseCommandResult> future = databaseServer.executeNextCommand(pending);
+                inFlight.add(future);
+                pending = null;
+                barrierInFlight = barrier;
+                future.whenComplete((result, error) -> eventLoop.execute(this::onExecuted));
+            }
+        }
+
+        private RespArray decodeNext() throws IOException {
+            if (input == null) {
+                return null;
+            }
+            input.flip();
+            RespArray message = decoder.decodeArray(input);
+            input.compact();
+            if (input.position() == 0) {
+                eventLoop.releaseBuffer(input);
+                input = null;
+            }
+            return message;
+        }
+
+        /**
+         * Пишет ответы исполненных команд с начала очереди: ответ не обгоняет ответы на более ранние команды
+         */
+        private void onExecuted() {
+            if (closed) {
+                return;
+            }
+            try {
+                while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+                    DatabaseCommandResult result = inFlight.poll().join();
+                    result.serialize().write(encoder);
+                }
+                flush();
+                decode();
+                updateInterest();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                close();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void flush() throws IOException {
+            sealOutputTail();
+            if (output.isEmpty()) {
+                return;
+            }
+            outputBytes -= channel.write(output.toArray(new ByteBuffer[0]));
+            while (!output.isEmpty() && !output.peek().hasRemaining()) {
+                releaseOutput(output.poll());
+            }
+        }
+
+        private void releaseOutput(ByteBuffer buffer) {
+            Runnable callback = onSent.remove(buffer);
+            if (callback != null) {
+                callback.run();
+            } else {
+                eventLoop.releaseBuffer(buffer);
+            }
+        }
+
+
+        /**
+         * Переводит буфер, в который кодировались ответы, в очередь на отправку
+         */
+        private void sealOutputTail() {
+            if (outputTail != null) {
+                outputTail.flip();
+                output.add(outputTail);
+                outputTail = null;
+            }
+        }
+
+        /**
+         * Кодирует ответы в буферы из пула цикла. Данные не меньше половины буфера не копируются,
+         * а встают в очередь отдельным буфером поверх своего массива. Буферы через {@link BufferSink}
+         * встают в очередь как есть
+         */
+        private final class Encoder extends OutputStream implements BufferSink {
+            @Override
+            public void write(ByteBuffer buffer, Runnable sent) {
+                if (closed) {
+                    sent.run();
+                    return;
+                }
+                sealOutputTail();
+                outputBytes += buffer.remaining();
+                output.add(buffer);
+                onSent.put(buffer, sent);
+            }
+
+            @Override
+            public void write(int b) {
+                if (outputTail == null || !outputTail.hasRemaining()) {
+                    sealOutputTail();
+                    outputTail = eventLoop.acquireBuffer();
+                }
+                outputTail.put((byte) b);
+                outputBytes++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                outputBytes += len;
+                if (len >= BUFFER_SIZE / 2) {
+                    sealOutputTail();
+                    output.add(ByteBuffer.wrap(b, off, len));
+                    return;
+                }
+                while (len > 0) {
+                    if (outputTail == null || !outputTail.hasRemaining()) {
+                        sealOutputTail();
+                        outputTail = eventLoop.acquireBuffer();
+                    }
+                    int length = Math.min(len, outputTail.remaining());
+                    outputTail.put(b, off, length);
+                    off += length;
+                    len -= length;
+                }
+            }
+        }
+
+        private void updateInterest() {
+            if (closed || !key.isValid()) {
+                return;
+            }
+            boolean readable = pending == null && inFlight.size() < maxInFlight && !isOutputBlocked();
+            key.interestOps((readable ? SelectionKey.OP_READ : 0) | (output.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+        }
+
+        private boolean isOutputBlocked() {
+            if (outputBytes > OUTPUT_HIGH_WATER_MARK) {
+                outputBlocked = true;
+            } else if (outputBytes <= OUTPUT_LOW_WATER_MARK) {
+                outputBlocked = false;
+            }
+            return outputBlocked;
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (key != null) {
+                key.cancel();
+            }
+            if (input != null) {
+                eventLoop.releaseBuffer(input);
+                input = null;
+            }
+            sealOutputTail();
+            while (!output.isEmpty()) {
+                releaseOutput(output.poll());
+            }
+            outputBytes = 0;
+            // ответы, которые уже не будут записаны, отпускают удерживаемые значения
+            for (CompletableFuture<DatabaseCommandResult> future : inFlight) {
+                future.thenAccept(DatabaseCommandResult::release);
+            }
+            inFlight.clear();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
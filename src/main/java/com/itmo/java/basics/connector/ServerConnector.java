@@ -0,0 +1,19 @@
+package com.itmo.java.basics.connector;
+
+import java.io.Closeable;
+
+/**
+ * Открывает клиентам доступ к серверу по сети
+ */
+public interface ServerConnector extends Closeable {
+    /**
+     * Начинает принимать клиентские соединения и исполнять их команды
+     */
+    void start();
+
+    /**
+     * Перестает принимать соединения и закрывает уже открытые
+     */
+    @Override
+    void close();
+}
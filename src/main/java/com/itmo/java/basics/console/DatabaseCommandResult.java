@@ -1,10 +1,14 @@
 package com.itmo.java.basics.console;
 
 import com.itmo.java.basics.console.impl.FailedDatabaseCommandResult;
+import com.itmo.java.basics.console.impl.SuccessArrayDatabaseCommandResult;
 import com.itmo.java.basics.console.impl.SuccessDatabaseCommandResult;
+import com.itmo.java.basics.logic.ValueView;
+import com.itmo.java.protocol.model.RespError;
 import com.itmo.java.protocol.model.RespObject;
 
 import java.util.Arrays;
+import java.util.List;
 
 public interface DatabaseCommandResult extends DatabaseApiSerializable {
 
@@ -18,6 +22,26 @@ public interface DatabaseCommandResult extends DatabaseApiSerializable {
         return new SuccessDatabaseCommandResult(result);
     }
 
+    /**
+     * Формирует успешный результат из значения, прочитанного без копирования.
+     *
+     * @param result значение. Отпускается, когда результат записан (см. {@link #release()})
+     * @return успешный результат выполнения команды, который был сформирован
+     */
+    static DatabaseCommandResult success(ValueView result) {
+        return new SuccessDatabaseCommandResult(result);
+    }
+
+    /**
+     * Формирует успешный результат выполнения команды, вернувшей несколько значений.
+     *
+     * @param result значения результата, элементы могут быть {@code null}
+     * @return успешный результат выполнения команды, который был сформирован
+     */
+    static DatabaseCommandResult success(List<byte[]> result) {
+        return new SuccessArrayDatabaseCommandResult(result);
+    }
+
     /**
      * Формирует зафейленный результат команды, при выполнении которой произошла ошибка.
      *
@@ -28,6 +52,16 @@ public interface DatabaseCommandResult extends DatabaseApiSerializable {
         return new FailedDatabaseCommandResult(message);
     }
 
+    /**
+     * Формирует результат команды, которую сервер отклонил, не исполняя, потому что перегружен.
+     *
+     * @param reason почему команда отклонена
+     * @return зафейленный результат с сообщением, начинающимся с {@link RespError#OVERLOADED}
+     */
+    static DatabaseCommandResult overloaded(String reason) {
+        return new FailedDatabaseCommandResult(RespError.OVERLOADED + " " + reason);
+    }
+
     /**
      * Формирует результат команды, при выполнении которой произошла ошибка.
      * Берется сообщение из исключения. Если в исключении нет сообщения - стэктрейс
@@ -53,6 +87,15 @@ public interface DatabaseCommandResult extends DatabaseApiSerializable {
     boolean isSuccess();
 
 
+    /**
+     * Сериализует результат. Удерживаемое значение отпускается, когда сериализованный объект будет записан
+     */
     @Override
     RespObject serialize();
+
+    /**
+     * Отпускает удерживаемое значение результата, который не будет записан, например если соединение закрылось
+     */
+    default void release() {
+    }
 }
\ No newline at end of file
@@ -4,6 +4,10 @@ import com.itmo.java.basics.console.impl.CreateDatabaseCommand;
 import com.itmo.java.basics.console.impl.CreateTableCommand;
 import com.itmo.java.basics.console.impl.DeleteKeyCommand;
 import com.itmo.java.basics.console.impl.GetKeyCommand;
+import com.itmo.java.basics.console.impl.MGetKeysCommand;
+import com.itmo.java.basics.console.impl.MSetKeysCommand;
+import com.itmo.java.basics.console.impl.ScanPrefixCommand;
+import com.itmo.java.basics.console.impl.ScanRangeCommand;
 import com.itmo.java.basics.console.impl.SetKeyCommand;
 import com.itmo.java.basics.logic.impl.DatabaseImpl;
 import com.itmo.java.protocol.model.RespObject;
@@ -19,7 +23,13 @@ public enum DatabaseCommands {
     CREATE_DATABASE {
         @Override
         public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
-            return new CreateDatabaseCommand(env, DatabaseImpl::create, commandArgs);
+            return new CreateDatabaseCommand(env,
+                    (dbName, dbRoot) -> DatabaseImpl.create(dbName, dbRoot, env.getConfig(), env.getCache()), commandArgs);
+        }
+
+        @Override
+        public boolean isAdministrative() {
+            return true;
         }
     },
     CREATE_TABLE {
@@ -27,6 +37,11 @@ public enum DatabaseCommands {
         public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
             return new CreateTableCommand(env, commandArgs);
         }
+
+        @Override
+        public boolean isAdministrative() {
+            return true;
+        }
     },
     SET_KEY {
         @Override
@@ -45,10 +60,78 @@ public enum DatabaseCommands {
         public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
             return new DeleteKeyCommand(env, commandArgs);
         }
+    },
+    MGET_KEYS {
+        @Override
+        public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+            return new MGetKeysCommand(env, commandArgs);
+        }
+
+        @Override
+        public int multiKeyStride() {
+            return 1;
+        }
+    },
+    MSET_KEYS {
+        @Override
+        public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+            return new MSetKeysCommand(env, commandArgs);
+        }
+
+        @Override
+        public int multiKeyStride() {
+            return 2;
+        }
+    },
+    SCAN_RANGE {
+        @Override
+        public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+            return new ScanRangeCommand(env, commandArgs);
+        }
+
+        @Override
+        public boolean isWholeTable() {
+            return true;
+        }
+    },
+    SCAN_PREFIX {
+        @Override
+        public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+            return new ScanPrefixCommand(env, commandArgs);
+        }
+
+        @Override
+        public boolean isWholeTable() {
+            return true;
+        }
     };
 
     /**
      * Возвращает созданную команду. Каждый элемент перечисления создается со своей реализацией этого метода
      */
     public abstract DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs);
+
+    /**
+     * Меняет ли команда набор баз данных и таблиц. Такие команды исполняются отдельно от команд над ключами
+     */
+    public boolean isAdministrative() {
+        return false;
+    }
+
+    /**
+     * Читает ли команда всю таблицу, а не ключ. Такие команды не привязаны к шарду одного ключа
+     * и исполняются отдельно от команд над ключами, после уже отправленных
+     */
+    public boolean isWholeTable() {
+        return false;
+    }
+
+    /**
+     * Сколько аргументов занимает один ключ команды над несколькими ключами, начиная с
+     * {@link DatabaseCommandArgPositions#KEY}: 1 для ключей, 2 для пар ключ, значение. 0, если команда над одним ключом.
+     * Каждый ключ такой команды дает одно значение ее результата
+     */
+    public int multiKeyStride() {
+        return 0;
+    }
 }
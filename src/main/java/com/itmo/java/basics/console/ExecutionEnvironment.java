@@ -1,6 +1,9 @@
 package com.itmo.java.basics.console;
 
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.impl.SharedDatabaseCache;
 
 import java.nio.file.Path;
 import java.util.Optional;
@@ -11,6 +14,16 @@ public interface ExecutionEnvironment {
      */
     Path getWorkingPath();
 
+    /**
+     * @return конфиг, с которым было создано окружение
+     */
+    DatabaseConfig getConfig();
+
+    /**
+     * @return кэш значений, общий для всех таблиц окружения
+     */
+    SharedDatabaseCache getCache();
+
     /**
      * Возвращает {@code Optional<Database>} или {@code Optional#EMPTY}.
      *
@@ -25,4 +38,11 @@ public interface ExecutionEnvironment {
      * @param db база данных, которую нужно добавить
      */
     void addDatabase(Database db);
+
+    /**
+     * Закрывает все базы данных окружения.
+     *
+     * @throws DatabaseException если произошла ошибка ввода-вывода
+     */
+    void close() throws DatabaseException;
 }
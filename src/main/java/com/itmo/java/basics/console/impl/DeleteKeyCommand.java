@@ -6,6 +6,7 @@ import com.itmo.java.basics.console.DatabaseCommandResult;
 import com.itmo.java.basics.console.ExecutionEnvironment;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.DatabaseKey;
 import com.itmo.java.protocol.model.RespObject;
 
 import java.util.List;
@@ -51,18 +52,17 @@ public class DeleteKeyCommand implements DatabaseCommand {
             return DatabaseCommandResult.error(String.format("Database with name %s does not exist",
                     commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString()));
         }
+        DatabaseKey key = DatabaseKey.wrap(commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asBytes());
         Optional<byte[]> value;
         try {
             value = database.get().read(
-                    commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString(),
-                    commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asString());
+                    commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString(), key);
             if (value.isEmpty()) {
-                return DatabaseCommandResult.error(String.format("Value by key %s does not exist",
-                        commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asString()));
+                return DatabaseCommandResult.error(String.format("Value by key %s does not exist", key));
             }
             database.get().delete(
                     commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString(),
-                    commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asString());
+                    key);
         } catch (DatabaseException e) {
             return DatabaseCommandResult.error(e);
         }
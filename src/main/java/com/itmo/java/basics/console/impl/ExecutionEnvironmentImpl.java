@@ -2,43 +2,58 @@ package com.itmo.java.basics.console.impl;
 
 import com.itmo.java.basics.config.DatabaseConfig;
 import com.itmo.java.basics.console.ExecutionEnvironment;
+import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.impl.SharedDatabaseCache;
 
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ExecutionEnvironmentImpl implements ExecutionEnvironment {
     private final DatabaseConfig config;
-    private final Map<String, Database> databases = new HashMap<>();
+    private final SharedDatabaseCache cache;
+    private final Map<String, Database> databases = new ConcurrentHashMap<>();
 
     public ExecutionEnvironmentImpl() {
-        this.config = new DatabaseConfig(DatabaseConfig.DEFAULT_WORKING_PATH);
+        this(new DatabaseConfig(DatabaseConfig.DEFAULT_WORKING_PATH));
     }
 
     public ExecutionEnvironmentImpl(DatabaseConfig config) {
         this.config = config;
+        this.cache = SharedDatabaseCache.create(config.getCacheMaxBytes(), config.isCacheOffHeap());
     }
 
     @Override
     public Optional<Database> getDatabase(String name) {
-        if (databases.containsKey(name)) {
-            return Optional.of(databases.get(name));
-        }
-        return Optional.empty();
+        return Optional.ofNullable(databases.get(name));
     }
 
     @Override
     public void addDatabase(Database db) {
-        if (databases.containsKey(db.getName())) {
-            return;
+        databases.putIfAbsent(db.getName(), db);
+    }
+
+    @Override
+    public void close() throws DatabaseException {
+        for (Database database : databases.values()) {
+            database.close();
         }
-        databases.put(db.getName(), db);
     }
 
     @Override
     public Path getWorkingPath() {
         return Path.of(config.getWorkingPath());
     }
+
+    @Override
+    public DatabaseConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public SharedDatabaseCache getCache() {
+        return cache;
+    }
 }
@@ -6,6 +6,8 @@ import com.itmo.java.basics.console.DatabaseCommandResult;
 import com.itmo.java.basics.console.ExecutionEnvironment;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.ValueView;
 import com.itmo.java.protocol.model.RespObject;
 
 import java.util.List;
@@ -41,7 +43,7 @@ public class GetKeyCommand implements DatabaseCommand {
     /**
      * Читает значение по ключу
      *
-     * @return {@link DatabaseCommandResult#success(byte[])} с прочитанным значением. Например, "previous". Null, если такого нет
+     * @return {@link DatabaseCommandResult#success(ValueView)} с прочитанным значением. Например, "previous". Null, если такого нет
      */
     @Override
     public DatabaseCommandResult execute() {
@@ -51,14 +53,17 @@ public class GetKeyCommand implements DatabaseCommand {
             return DatabaseCommandResult.error(String.format("Database with name %s does not exist",
                     commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString()));
         }
-        Optional<byte[]> value;
+        Optional<ValueView> value;
         try {
-            value = database.get().read(
+            value = database.get().readView(
                     commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString(),
-                    commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asString());
+                    DatabaseKey.wrap(commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asBytes()));
         } catch (DatabaseException e) {
             return DatabaseCommandResult.error(e);
         }
-        return DatabaseCommandResult.success(value.orElse(null));
+        if (value.isEmpty()) {
+            return DatabaseCommandResult.success((byte[]) null);
+        }
+        return DatabaseCommandResult.success(value.get());
     }
 }
@@ -0,0 +1,72 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.console.DatabaseCommand;
+import com.itmo.java.basics.console.DatabaseCommandArgPositions;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.console.ExecutionEnvironment;
+import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Команда для чтения значений по нескольким ключам одной таблицы
+ */
+public class MGetKeysCommand implements DatabaseCommand {
+    private static final int MIN_ARGUMENTS_NUMBER = 5;
+    private final ExecutionEnvironment env;
+    private final List<RespObject> commandArgs;
+
+    /**
+     * Создает команду.
+     * <br/>
+     * Обратите внимание, что в конструкторе нет логики проверки валидности данных. Не проверяется, можно ли исполнить команду. Только формальные признаки (например, количество переданных значений или ненуловость объектов
+     *
+     * @param env         env
+     * @param commandArgs аргументы для создания: id команды, имя команды, имя бд, таблицы и один или несколько ключей
+     * @throws IllegalArgumentException если передано неправильное количество аргументов
+     */
+    public MGetKeysCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+        if (commandArgs.size() < MIN_ARGUMENTS_NUMBER) {
+            throw new IllegalArgumentException(String.format("Wrong number of arguments: expected at least %d, but was provided %d",
+                    MIN_ARGUMENTS_NUMBER, commandArgs.size()));
+        }
+        this.env = env;
+        this.commandArgs = commandArgs;
+    }
+
+    /**
+     * Читает значения по ключам
+     *
+     * @return {@link DatabaseCommandResult#success(List)} со значениями в порядке ключей. Null для ключей, которых нет
+     */
+    @Override
+    public DatabaseCommandResult execute() {
+        Optional<Database> database =
+                env.getDatabase(commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString());
+        if (database.isEmpty()) {
+            return DatabaseCommandResult.error(String.format("Database with name %s does not exist",
+                    commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString()));
+        }
+        List<DatabaseKey> keys = new ArrayList<>();
+        for (int i = DatabaseCommandArgPositions.KEY.getPositionIndex(); i < commandArgs.size(); i++) {
+            keys.add(DatabaseKey.wrap(commandArgs.get(i).asBytes()));
+        }
+        List<Optional<byte[]>> values;
+        try {
+            values = database.get().readAll(
+                    commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString(), keys);
+        } catch (DatabaseException e) {
+            return DatabaseCommandResult.error(e);
+        }
+        List<byte[]> result = new ArrayList<>(values.size());
+        for (Optional<byte[]> value : values) {
+            result.add(value.orElse(null));
+        }
+        return DatabaseCommandResult.success(result);
+    }
+}
@@ -0,0 +1,77 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.console.DatabaseCommand;
+import com.itmo.java.basics.console.DatabaseCommandArgPositions;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.console.ExecutionEnvironment;
+import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Команда для записи значений по нескольким ключам одной таблицы
+ */
+public class MSetKeysCommand implements DatabaseCommand {
+    private static final int MIN_ARGUMENTS_NUMBER = 6;
+    private final ExecutionEnvironment env;
+    private final List<RespObject> commandArgs;
+
+    /**
+     * Создает команду.
+     * <br/>
+     * Обратите внимание, что в конструкторе нет логики проверки валидности данных. Не проверяется, можно ли исполнить команду. Только формальные признаки (например, количество переданных значений или ненуловость объектов
+     *
+     * @param env         env
+     * @param commandArgs аргументы для создания: id команды, имя команды, имя бд, таблицы
+     *                    и одна или несколько пар ключ, значение
+     * @throws IllegalArgumentException если передано неправильное количество аргументов
+     */
+    public MSetKeysCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+        if (commandArgs.size() < MIN_ARGUMENTS_NUMBER
+                || (commandArgs.size() - DatabaseCommandArgPositions.KEY.getPositionIndex()) % 2 != 0) {
+            throw new IllegalArgumentException(String.format("Wrong number of arguments: expected pairs of keys and values, but was provided %d",
+                    commandArgs.size()));
+        }
+        this.env = env;
+        this.commandArgs = commandArgs;
+    }
+
+    /**
+     * Записывает значения
+     *
+     * @return {@link DatabaseCommandResult#success(List)} с предыдущими значениями в порядке ключей. Null, если такого не было
+     */
+    @Override
+    public DatabaseCommandResult execute() {
+        Optional<Database> database =
+                env.getDatabase(commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString());
+        if (database.isEmpty()) {
+            return DatabaseCommandResult.error(String.format("Database with name %s does not exist",
+                    commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString()));
+        }
+        String tableName = commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString();
+        List<DatabaseKey> keys = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+        for (int i = DatabaseCommandArgPositions.KEY.getPositionIndex(); i < commandArgs.size(); i += 2) {
+            keys.add(DatabaseKey.wrap(commandArgs.get(i).asBytes()));
+            values.add(commandArgs.get(i + 1).asBytes());
+        }
+        List<Optional<byte[]>> previous;
+        try {
+            previous = database.get().readAll(tableName, keys);
+            database.get().writeAll(tableName, keys, values);
+        } catch (DatabaseException e) {
+            return DatabaseCommandResult.error(e);
+        }
+        List<byte[]> result = new ArrayList<>(previous.size());
+        for (Optional<byte[]> value : previous) {
+            result.add(value.orElse(null));
+        }
+        return DatabaseCommandResult.success(result);
+    }
+}
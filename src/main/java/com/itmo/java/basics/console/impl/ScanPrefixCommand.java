@@ -0,0 +1,71 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.console.DatabaseCommand;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.console.ExecutionEnvironment;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Команда для чтения записей, ключи которых начинаются с префикса, по возрастанию ключей
+ */
+public class ScanPrefixCommand implements DatabaseCommand {
+    private static final int MIN_ARGUMENTS_NUMBER = 6;
+    private static final int MAX_ARGUMENTS_NUMBER = 7;
+    private static final int PREFIX_POSITION = 4;
+    private static final int LIMIT_POSITION = 5;
+    private static final int CURSOR_POSITION = 6;
+    private final ExecutionEnvironment env;
+    private final List<RespObject> commandArgs;
+
+    /**
+     * Создает команду.
+     * <br/>
+     * Обратите внимание, что в конструкторе нет логики проверки валидности данных. Не проверяется, можно ли исполнить команду. Только формальные признаки (например, количество переданных значений или ненуловость объектов
+     *
+     * @param env         env
+     * @param commandArgs аргументы для создания: id команды, имя команды, имя бд, таблицы, префикс,
+     *                    сколько записей вернуть и, необязательно, курсор из предыдущего ответа
+     * @throws IllegalArgumentException если передано неправильное количество аргументов
+     */
+    public ScanPrefixCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+        if (commandArgs.size() < MIN_ARGUMENTS_NUMBER || commandArgs.size() > MAX_ARGUMENTS_NUMBER) {
+            throw new IllegalArgumentException(String.format("Wrong number of arguments: expected %d or %d, but was provided %d",
+                    MIN_ARGUMENTS_NUMBER, MAX_ARGUMENTS_NUMBER, commandArgs.size()));
+        }
+        this.env = env;
+        this.commandArgs = commandArgs;
+    }
+
+    /**
+     * Читает записи с префиксом, начиная с курсора, если он передан
+     *
+     * @return {@link DatabaseCommandResult#success(List)}: курсор для следующего вызова (null, если записей больше нет),
+     * затем ключи и значения найденных записей вперемешку
+     */
+    @Override
+    public DatabaseCommandResult execute() {
+        byte[] prefix = commandArgs.get(PREFIX_POSITION).asBytes();
+        return ScanRangeCommand.scan(env, commandArgs, DatabaseKey.wrap(prefix), prefixEnd(prefix),
+                LIMIT_POSITION, CURSOR_POSITION);
+    }
+
+    /**
+     * Наименьший ключ, больший всех ключей с данным префиксом. {@code null}, если такого нет
+     */
+    private static DatabaseKey prefixEnd(byte[] prefix) {
+        int end = prefix.length;
+        while (end > 0 && prefix[end - 1] == (byte) 0xFF) {
+            end--;
+        }
+        if (end == 0) {
+            return null;
+        }
+        byte[] prefixEnd = Arrays.copyOf(prefix, end);
+        prefixEnd[end - 1]++;
+        return DatabaseKey.wrap(prefixEnd);
+    }
+}
@@ -0,0 +1,109 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.console.DatabaseCommand;
+import com.itmo.java.basics.console.DatabaseCommandArgPositions;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.console.ExecutionEnvironment;
+import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+
+/**
+ * Команда для чтения записей с ключами из диапазона [from, to) по возрастанию
+ */
+public class ScanRangeCommand implements DatabaseCommand {
+    private static final int MIN_ARGUMENTS_NUMBER = 7;
+    private static final int MAX_ARGUMENTS_NUMBER = 8;
+    private static final int FROM_KEY_POSITION = 4;
+    private static final int TO_KEY_POSITION = 5;
+    private static final int LIMIT_POSITION = 6;
+    private static final int CURSOR_POSITION = 7;
+    private final ExecutionEnvironment env;
+    private final List<RespObject> commandArgs;
+
+    /**
+     * Создает команду.
+     * <br/>
+     * Обратите внимание, что в конструкторе нет логики проверки валидности данных. Не проверяется, можно ли исполнить команду. Только формальные признаки (например, количество переданных значений или ненуловость объектов
+     *
+     * @param env         env
+     * @param commandArgs аргументы для создания: id команды, имя команды, имя бд, таблицы, начало диапазона,
+     *                    конец диапазона (пустая строка - без конца), сколько записей вернуть
+     *                    и, необязательно, курсор из предыдущего ответа
+     * @throws IllegalArgumentException если передано неправильное количество аргументов
+     */
+    public ScanRangeCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+        if (commandArgs.size() < MIN_ARGUMENTS_NUMBER || commandArgs.size() > MAX_ARGUMENTS_NUMBER) {
+            throw new IllegalArgumentException(String.format("Wrong number of arguments: expected %d or %d, but was provided %d",
+                    MIN_ARGUMENTS_NUMBER, MAX_ARGUMENTS_NUMBER, commandArgs.size()));
+        }
+        this.env = env;
+        this.commandArgs = commandArgs;
+    }
+
+    /**
+     * Читает записи диапазона, начиная с курсора, если он передан
+     *
+     * @return {@link DatabaseCommandResult#success(List)}: курсор для следующего вызова (null, если записей больше нет),
+     * затем ключи и значения найденных записей вперемешку
+     */
+    @Override
+    public DatabaseCommandResult execute() {
+        byte[] toKey = commandArgs.get(TO_KEY_POSITION).asBytes();
+        return scan(env, commandArgs, DatabaseKey.wrap(commandArgs.get(FROM_KEY_POSITION).asBytes()),
+                toKey.length == 0 ? null : DatabaseKey.wrap(toKey), LIMIT_POSITION, CURSOR_POSITION);
+    }
+
+    /**
+     * Общая часть команд чтения диапазонов: разбор лимита и курсора, чтение и формирование ответа
+     */
+    static DatabaseCommandResult scan(ExecutionEnvironment env, List<RespObject> commandArgs, DatabaseKey fromKey,
+                                      DatabaseKey toKey, int limitPosition, int cursorPosition) {
+        Optional<Database> database =
+                env.getDatabase(commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString());
+        if (database.isEmpty()) {
+            return DatabaseCommandResult.error(String.format("Database with name %s does not exist",
+                    commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString()));
+        }
+        int limit;
+        try {
+            limit = Integer.parseInt(commandArgs.get(limitPosition).asString());
+        } catch (NumberFormatException e) {
+            return DatabaseCommandResult.error(String.format("Limit %s is not a number",
+                    commandArgs.get(limitPosition).asString()));
+        }
+        if (limit <= 0) {
+            return DatabaseCommandResult.error(String.format("Limit must be positive, but was %d", limit));
+        }
+        boolean fromInclusive = true;
+        if (commandArgs.size() > cursorPosition) {
+            DatabaseKey cursor = DatabaseKey.wrap(commandArgs.get(cursorPosition).asBytes());
+            if (cursor.compareTo(fromKey) >= 0) {
+                fromKey = cursor;
+                fromInclusive = false;
+            }
+        }
+        SortedMap<DatabaseKey, byte[]> records;
+        try {
+            records = database.get().scan(
+                    commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString(),
+                    fromKey, fromInclusive, toKey, limit);
+        } catch (DatabaseException e) {
+            return DatabaseCommandResult.error(e);
+        }
+        List<byte[]> result = new ArrayList<>(records.size() * 2 + 1);
+        result.add(records.size() < limit ? null : records.lastKey().getBytes());
+        for (Map.Entry<DatabaseKey, byte[]> record : records.entrySet()) {
+            result.add(record.getKey().getBytes());
+            result.add(record.getValue());
+        }
+        return DatabaseCommandResult.success(result);
+    }
+}
@@ -6,9 +6,9 @@ import com.itmo.java.basics.console.DatabaseCommandResult;
 import com.itmo.java.basics.console.ExecutionEnvironment;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.DatabaseKey;
 import com.itmo.java.protocol.model.RespObject;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -52,15 +52,15 @@ public class SetKeyCommand implements DatabaseCommand {
             return DatabaseCommandResult.error(String.format("Database with name %s does not exist",
                     commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString()));
         }
+        DatabaseKey key = DatabaseKey.wrap(commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asBytes());
         Optional<byte[]> previous;
         try {
             previous = database.get().read(
-                    commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString(),
-                    commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asString());
+                    commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString(), key);
             database.get().write(
                     commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString(),
-                    commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asString(),
-                    commandArgs.get(DatabaseCommandArgPositions.VALUE.getPositionIndex()).asString().getBytes(StandardCharsets.UTF_8));
+                    key,
+                    commandArgs.get(DatabaseCommandArgPositions.VALUE.getPositionIndex()).asBytes());
         } catch (DatabaseException e) {
             return DatabaseCommandResult.error(e);
         }
@@ -0,0 +1,47 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Результат успешной команды, вернувшей несколько значений
+ */
+public class SuccessArrayDatabaseCommandResult implements DatabaseCommandResult {
+    private final List<byte[]> payload;
+
+    public SuccessArrayDatabaseCommandResult(List<byte[]> payload) {
+        this.payload = payload;
+    }
+
+    public List<byte[]> getValues() {
+        return payload;
+    }
+
+    /**
+     * Значения через пробел
+     */
+    @Override
+    public String getPayLoad() {
+        return payload.stream()
+                .map(value -> value != null ? new String(value) : null)
+                .collect(Collectors.joining(" "));
+    }
+
+    @Override
+    public boolean isSuccess() {
+        return true;
+    }
+
+    /**
+     * Сериализуется в {@link RespArray} из {@link RespBulkString}
+     */
+    @Override
+    public RespObject serialize() {
+        return new RespArray(payload.stream().map(RespBulkString::new).toArray(RespObject[]::new));
+    }
+}
@@ -1,21 +1,36 @@
 package com.itmo.java.basics.console.impl;
 
 import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.logic.ValueView;
 import com.itmo.java.protocol.model.RespBulkString;
 import com.itmo.java.protocol.model.RespObject;
+import com.itmo.java.protocol.model.RespRetainedBulkString;
 
 /**
  * Результат успешной команды
  */
 public class SuccessDatabaseCommandResult implements DatabaseCommandResult {
     private final byte[] payload;
+    private final ValueView view;
 
     public SuccessDatabaseCommandResult(byte[] payload) {
         this.payload = payload;
+        this.view = null;
+    }
+
+    /**
+     * @param view значение без копирования. Отпускается, когда результат записан, или через {@link #release()}
+     */
+    public SuccessDatabaseCommandResult(ValueView view) {
+        this.payload = null;
+        this.view = view;
     }
 
     @Override
     public String getPayLoad() {
+        if (view != null) {
+            return new String(view.toBytes());
+        }
         return payload != null ? new String(payload) : null;
     }
 
@@ -25,10 +40,20 @@ public class SuccessDatabaseCommandResult implements DatabaseCommandResult {
     }
 
     /**
-     * Сериализуется в {@link RespBulkString}
+     * Сериализуется в {@link RespBulkString} или, для значения без копирования, в {@link RespRetainedBulkString}
      */
     @Override
     public RespObject serialize() {
+        if (view != null) {
+            return new RespRetainedBulkString(view.buffer(), view::release);
+        }
         return new RespBulkString(payload);
     }
+
+    @Override
+    public void release() {
+        if (view != null) {
+            view.release();
+        }
+    }
 }
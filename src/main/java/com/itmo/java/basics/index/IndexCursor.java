@@ -0,0 +1,20 @@
+package com.itmo.java.basics.index;
+
+import java.util.ConcurrentModificationException;
+import java.util.function.BiConsumer;
+
+/**
+ * Обход индекса порциями. Между порциями индекс может меняться: ключи, добавленные или обновленные
+ * после начала обхода, могут попасть в обход, а могут и не попасть
+ */
+public interface IndexCursor<K, V> {
+    /**
+     * Обходит следующие ключи индекса, не больше указанного числа.
+     *
+     * @param limit  сколько ключей обойти за раз
+     * @param action действие, которое нужно выполнить для каждой пары ключ-значение
+     * @return {@code true} - если остались необойденные ключи
+     * @throws ConcurrentModificationException если индекс перестроился так, что обход продолжить нельзя
+     */
+    boolean next(int limit, BiConsumer<? super K, ? super V> action);
+}
@@ -0,0 +1,244 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.logic.DatabaseKey;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+/**
+ * Хеш-таблица из ключей {@link DatabaseKey} в неотрицательные long с открытой адресацией и линейным пробированием.
+ * Все данные лежат в нескольких примитивных массивах: хеши, смещения ключей в общем массиве байт,
+ * длины ключей и значения. Отдельных объектов на ключ нет, поэтому сборщику мусора нечего обходить.
+ * <p>
+ * Удаление сдвигает следующие записи цепочки назад, так что таблица обходится без надгробий.
+ * Байты удаленных ключей освобождаются при следующем расширении таблицы или массива ключей
+ */
+public class OpenAddressingIndex {
+    /**
+     * Возвращается из {@link #get(DatabaseKey)}, если ключа нет
+     */
+    public static final long NO_VALUE = -1;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int INITIAL_KEYS_CAPACITY = 4096;
+    private static final float LOAD_FACTOR = 0.7f;
+    private static final int EMPTY = 0;
+
+    private int[] hashes;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private long[] values;
+    private byte[] keys;
+    private int keysSize;
+    /**
+     * Сколько байт массива ключей занимают ключи, которые еще в таблице
+     */
+    private int liveKeysSize;
+    private int size;
+    /**
+     * Меняется, когда записи переезжают между слотами: при удалении и расширении таблицы
+     */
+    private int layoutVersion;
+
+    public OpenAddressingIndex() {
+        allocate(INITIAL_CAPACITY, INITIAL_KEYS_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Добавляет ключ или обновляет его значение
+     *
+     * @param value неотрицательное значение
+     */
+    public void put(DatabaseKey key, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (hashes[slot] != EMPTY) {
+            values[slot] = value;
+            return;
+        }
+        if (size + 1 > hashes.length * LOAD_FACTOR) {
+            resize(hashes.length * 2);
+            slot = findSlot(key, hash);
+        } else if (keysSize + key.length() > keys.length && liveKeysSize * 2 < keysSize) {
+            resize(hashes.length);
+            slot = findSlot(key, hash);
+        }
+        hashes[slot] = hash;
+        keyOffsets[slot] = appendKey(key.getBytes());
+        keyLengths[slot] = key.length();
+        values[slot] = value;
+        liveKeysSize += key.length();
+        size++;
+    }
+
+    /**
+     * @return значение ключа или {@link #NO_VALUE}, если ключа нет
+     */
+    public long get(DatabaseKey key) {
+        int slot = findSlot(key, hash(key));
+        return hashes[slot] == EMPTY ? NO_VALUE : values[slot];
+    }
+
+    public void remove(DatabaseKey key) {
+        int slot = findSlot(key, hash(key));
+        if (hashes[slot] == EMPTY) {
+            return;
+        }
+        liveKeysSize -= keyLengths[slot];
+        layoutVersion++;
+        int mask = hashes.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (hashes[next] == EMPTY) {
+                break;
+            }
+            int home = hashes[next] & mask;
+            boolean reachable = slot <= next ? slot < home && home <= next : slot < home || home <= next;
+            if (reachable) {
+                continue;
+            }
+            moveSlot(next, slot);
+            slot = next;
+        }
+        hashes[slot] = EMPTY;
+        size--;
+    }
+
+    /**
+     * Обходит все ключи в порядке их расположения в таблице. Ключ передается копией
+     */
+    public void forEach(EntryConsumer action) {
+        for (int slot = 0; slot < hashes.length; slot++) {
+            if (hashes[slot] != EMPTY) {
+                int offset = keyOffsets[slot];
+                action.accept(DatabaseKey.wrap(Arrays.copyOfRange(keys, offset, offset + keyLengths[slot])), values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Курсор, обходящий таблицу по слотам. Новые ключи и обновления значений обходу не мешают;
+     * после удаления или расширения таблицы записи могли переехать, и курсор становится недействительным
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public final class Cursor {
+        private final int expectedLayoutVersion = layoutVersion;
+        private int slot;
+
+        private Cursor() {
+        }
+
+        /**
+         * Обходит следующие ключи, не больше limit
+         *
+         * @return true, если остались необойденные слоты
+         * @throws ConcurrentModificationException если записи таблицы переехали с момента создания курсора
+         */
+        public boolean next(int limit, EntryConsumer action) {
+            if (layoutVersion != expectedLayoutVersion) {
+                throw new ConcurrentModificationException("Index layout changed during traversal");
+            }
+            int visited = 0;
+            while (slot < hashes.length && visited < limit) {
+                if (hashes[slot] != EMPTY) {
+                    int offset = keyOffsets[slot];
+                    action.accept(DatabaseKey.wrap(Arrays.copyOfRange(keys, offset, offset + keyLengths[slot])),
+                            values[slot]);
+                    visited++;
+                }
+                slot++;
+            }
+            return slot < hashes.length;
+        }
+    }
+
+    private int findSlot(DatabaseKey key, int hash) {
+        int mask = hashes.length - 1;
+        int slot = hash & mask;
+        while (hashes[slot] != EMPTY && !(hashes[slot] == hash && keyEquals(slot, key))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean keyEquals(int slot, DatabaseKey key) {
+        int offset = keyOffsets[slot];
+        return Arrays.equals(keys, offset, offset + keyLengths[slot], key.getBytes(), 0, key.length());
+    }
+
+    private int appendKey(byte[] key) {
+        if (keysSize + key.length > keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(keys.length * 2, keysSize + key.length));
+        }
+        System.arraycopy(key, 0, keys, keysSize, key.length);
+        int offset = keysSize;
+        keysSize += key.length;
+        return offset;
+    }
+
+    private void moveSlot(int from, int to) {
+        hashes[to] = hashes[from];
+        keyOffsets[to] = keyOffsets[from];
+        keyLengths[to] = keyLengths[from];
+        values[to] = values[from];
+    }
+
+    private void resize(int capacity) {
+        int[] oldHashes = hashes;
+        int[] oldKeyOffsets = keyOffsets;
+        int[] oldKeyLengths = keyLengths;
+        long[] oldValues = values;
+        byte[] oldKeys = keys;
+        layoutVersion++;
+        allocate(capacity, Math.max(INITIAL_KEYS_CAPACITY, liveKeysSize * 2));
+        int mask = capacity - 1;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] == EMPTY) {
+                continue;
+            }
+            int slot = oldHashes[i] & mask;
+            while (hashes[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = oldHashes[i];
+            keyLengths[slot] = oldKeyLengths[i];
+            keyOffsets[slot] = keysSize;
+            System.arraycopy(oldKeys, oldKeyOffsets[i], keys, keysSize, oldKeyLengths[i]);
+            keysSize += oldKeyLengths[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity, int keysCapacity) {
+        hashes = new int[capacity];
+        keyOffsets = new int[capacity];
+        keyLengths = new int[capacity];
+        values = new long[capacity];
+        keys = new byte[keysCapacity];
+        keysSize = 0;
+    }
+
+    private static int hash(DatabaseKey key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(DatabaseKey key, long value);
+    }
+}
@@ -0,0 +1,37 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.index.KvsIndex;
+import com.itmo.java.basics.index.SegmentOffsetInfo;
+import com.itmo.java.basics.logic.DatabaseKey;
+
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Индекс сегмента поверх {@link OpenAddressingIndex}: смещения хранятся как long,
+ * объект {@link SegmentOffsetInfo} создается только на время поиска
+ */
+class OpenAddressingSegmentIndex implements KvsIndex<DatabaseKey, SegmentOffsetInfo> {
+    private final OpenAddressingIndex index = new OpenAddressingIndex();
+
+    @Override
+    public void onIndexedEntityUpdated(DatabaseKey key, SegmentOffsetInfo value) {
+        index.put(key, value.getOffset());
+    }
+
+    @Override
+    public void onIndexedEntityRemoved(DatabaseKey key) {
+        index.remove(key);
+    }
+
+    @Override
+    public Optional<SegmentOffsetInfo> searchForKey(DatabaseKey key) {
+        long offset = index.get(key);
+        return offset == OpenAddressingIndex.NO_VALUE ? Optional.empty() : Optional.of(new SegmentOffsetInfoImpl(offset));
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super DatabaseKey, ? super SegmentOffsetInfo> action) {
+        index.forEach((key, offset) -> action.accept(key, new SegmentOffsetInfoImpl(offset)));
+    }
+}
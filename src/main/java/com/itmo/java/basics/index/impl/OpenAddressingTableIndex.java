@@ -0,0 +1,73 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.index.IndexCursor;
+import com.itmo.java.basics.index.KvsIndex;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.Segment;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Индекс таблицы поверх {@link OpenAddressingIndex}. Сегменту выдается числовой номер,
+ * номер и смещение упаковываются в один long: старшие 32 бита - номер, младшие - смещение
+ */
+class OpenAddressingTableIndex implements KvsIndex<DatabaseKey, SegmentLocation> {
+    private static final long OFFSET_MASK = 0xFFFFFFFFL;
+
+    private final OpenAddressingIndex index = new OpenAddressingIndex();
+    private final Map<Integer, Segment> segments = new HashMap<>();
+    private final Map<Segment, Integer> segmentIds = new IdentityHashMap<>();
+    private int nextSegmentId;
+
+    @Override
+    public void onIndexedEntityUpdated(DatabaseKey key, SegmentLocation value) {
+        if (value.getOffset() > OFFSET_MASK) {
+            throw new IllegalArgumentException(String.format("Offset %d of key %s does not fit into index",
+                    value.getOffset(), key));
+        }
+        long segmentId = segmentIds.computeIfAbsent(value.getSegment(), segment -> {
+            segments.put(nextSegmentId, segment);
+            return nextSegmentId++;
+        });
+        index.put(key, segmentId << 32 | value.getOffset());
+    }
+
+    @Override
+    public void onIndexedEntityRemoved(DatabaseKey key) {
+        index.remove(key);
+    }
+
+    @Override
+    public Optional<SegmentLocation> searchForKey(DatabaseKey key) {
+        long location = index.get(key);
+        if (location == OpenAddressingIndex.NO_VALUE) {
+            return Optional.empty();
+        }
+        return Optional.of(toLocation(location));
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super DatabaseKey, ? super SegmentLocation> action) {
+        index.forEach((key, location) -> action.accept(key, toLocation(location)));
+    }
+
+    IndexCursor<DatabaseKey, SegmentLocation> cursor() {
+        OpenAddressingIndex.Cursor cursor = index.cursor();
+        return (limit, action) -> cursor.next(limit, (key, location) -> action.accept(key, toLocation(location)));
+    }
+
+    private SegmentLocation toLocation(long location) {
+        return new SegmentLocation(segments.get((int) (location >>> 32)), location & OFFSET_MASK);
+    }
+
+    void releaseSegment(Segment segment) {
+        Integer segmentId = segmentIds.remove(segment);
+        if (segmentId != null) {
+            segments.remove(segmentId);
+        }
+    }
+}
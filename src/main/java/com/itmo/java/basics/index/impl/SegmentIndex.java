@@ -1,6 +1,75 @@
 package com.itmo.java.basics.index.impl;
 
+import com.itmo.java.basics.config.IndexType;
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.index.KvsIndex;
 import com.itmo.java.basics.index.SegmentOffsetInfo;
+import com.itmo.java.basics.logic.DatabaseKey;
 
-public class SegmentIndex extends MapBasedKvsIndex<String, SegmentOffsetInfo> {
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+public class SegmentIndex implements KvsIndex<DatabaseKey, SegmentOffsetInfo> {
+    private final KvsIndex<DatabaseKey, SegmentOffsetInfo> index;
+
+    public SegmentIndex() {
+        this(new MapBasedKvsIndex<>());
+    }
+
+    public SegmentIndex(KvsIndex<DatabaseKey, SegmentOffsetInfo> index) {
+        this.index = index;
+    }
+
+    /**
+     * Создает индекс сегмента того вида, который задан в настройках таблицы.
+     * Если индексы сегментов выключены, индекс ничего не хранит и ничего не находит
+     */
+    public static SegmentIndex create(TableConfig config) {
+        if (!config.isSegmentIndexes()) {
+            return new SegmentIndex(new DisabledIndex());
+        }
+        if (config.getIndexType() == IndexType.OPEN_ADDRESSING) {
+            return new SegmentIndex(new OpenAddressingSegmentIndex());
+        }
+        return new SegmentIndex();
+    }
+
+    @Override
+    public void onIndexedEntityUpdated(DatabaseKey key, SegmentOffsetInfo value) {
+        index.onIndexedEntityUpdated(key, value);
+    }
+
+    @Override
+    public void onIndexedEntityRemoved(DatabaseKey key) {
+        index.onIndexedEntityRemoved(key);
+    }
+
+    @Override
+    public Optional<SegmentOffsetInfo> searchForKey(DatabaseKey key) {
+        return index.searchForKey(key);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super DatabaseKey, ? super SegmentOffsetInfo> action) {
+        index.forEach(action);
+    }
+
+    private static class DisabledIndex implements KvsIndex<DatabaseKey, SegmentOffsetInfo> {
+        @Override
+        public void onIndexedEntityUpdated(DatabaseKey key, SegmentOffsetInfo value) {
+        }
+
+        @Override
+        public void onIndexedEntityRemoved(DatabaseKey key) {
+        }
+
+        @Override
+        public Optional<SegmentOffsetInfo> searchForKey(DatabaseKey key) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super DatabaseKey, ? super SegmentOffsetInfo> action) {
+        }
+    }
 }
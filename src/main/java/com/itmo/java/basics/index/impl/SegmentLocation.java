@@ -0,0 +1,26 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.index.SegmentOffsetInfo;
+import com.itmo.java.basics.logic.Segment;
+
+/**
+ * Положение последней записи ключа в таблице: сегмент и смещение записи в нем
+ */
+public class SegmentLocation implements SegmentOffsetInfo {
+    private final Segment segment;
+    private final long offset;
+
+    public SegmentLocation(Segment segment, long offset) {
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    public Segment getSegment() {
+        return segment;
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+}
@@ -1,6 +1,117 @@
 package com.itmo.java.basics.index.impl;
 
+import com.itmo.java.basics.config.IndexType;
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.index.IndexCursor;
+import com.itmo.java.basics.index.KvsIndex;
+import com.itmo.java.basics.logic.DatabaseKey;
 import com.itmo.java.basics.logic.Segment;
 
-public class TableIndex extends MapBasedKvsIndex<String, Segment> {
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.BiConsumer;
+
+/**
+ * Индекс таблицы: для каждого ключа хранит сегмент и смещение его последней записи,
+ * так что чтение обходится одним поиском по индексу
+ */
+public class TableIndex implements KvsIndex<DatabaseKey, SegmentLocation> {
+    private final KvsIndex<DatabaseKey, SegmentLocation> index;
+    private final NavigableSet<DatabaseKey> orderedKeys;
+
+    public TableIndex() {
+        this(new MapBasedKvsIndex<>(), false);
+    }
+
+    /**
+     * @param ordered хранить ли дополнительно ключи по возрастанию для чтения диапазонов
+     */
+    public TableIndex(KvsIndex<DatabaseKey, SegmentLocation> index, boolean ordered) {
+        this.index = index;
+        this.orderedKeys = ordered ? new ConcurrentSkipListSet<>() : null;
+    }
+
+    /**
+     * Создает индекс таблицы того вида, который задан в настройках таблицы
+     */
+    public static TableIndex create(TableConfig config) {
+        if (config.getIndexType() == IndexType.OPEN_ADDRESSING) {
+            return new TableIndex(new OpenAddressingTableIndex(), config.isOrderedIndex());
+        }
+        return new TableIndex(new MapBasedKvsIndex<>(), config.isOrderedIndex());
+    }
+
+    @Override
+    public void onIndexedEntityUpdated(DatabaseKey key, SegmentLocation value) {
+        index.onIndexedEntityUpdated(key, value);
+        if (orderedKeys != null) {
+            orderedKeys.add(key);
+        }
+    }
+
+    /**
+     * Запоминает положение записи об удалении ключа. Из упорядоченных ключей ключ убирается,
+     * чтобы чтение диапазона не перебирало удаленные ключи
+     */
+    public void onIndexedEntityDeleted(DatabaseKey key, SegmentLocation value) {
+        index.onIndexedEntityUpdated(key, value);
+        if (orderedKeys != null) {
+            orderedKeys.remove(key);
+        }
+    }
+
+    @Override
+    public void onIndexedEntityRemoved(DatabaseKey key) {
+        index.onIndexedEntityRemoved(key);
+        if (orderedKeys != null) {
+            orderedKeys.remove(key);
+        }
+    }
+
+    @Override
+    public Optional<SegmentLocation> searchForKey(DatabaseKey key) {
+        return index.searchForKey(key);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super DatabaseKey, ? super SegmentLocation> action) {
+        index.forEach(action);
+    }
+
+    /**
+     * Курсор для обхода индекса порциями, между которыми индекс может меняться.
+     * Индекс неизвестного вида копируется целиком при создании курсора
+     */
+    @SuppressWarnings("unchecked")
+    public IndexCursor<DatabaseKey, SegmentLocation> cursor() {
+        if (index instanceof OpenAddressingTableIndex) {
+            return ((OpenAddressingTableIndex) index).cursor();
+        }
+        if (index instanceof MapBasedKvsIndex) {
+            return ((MapBasedKvsIndex<DatabaseKey, SegmentLocation>) index).cursor();
+        }
+        MapBasedKvsIndex<DatabaseKey, SegmentLocation> copy = new MapBasedKvsIndex<>();
+        index.forEach(copy::onIndexedEntityUpdated);
+        return copy.cursor();
+    }
+
+    /**
+     * Ключи индекса по возрастанию, без удаленных ключей
+     *
+     * @return ключи или {@link Optional#empty()}, если упорядоченный индекс выключен
+     */
+    public Optional<NavigableSet<DatabaseKey>> orderedKeys() {
+        return Optional.ofNullable(orderedKeys).map(Collections::unmodifiableNavigableSet);
+    }
+
+    /**
+     * Оповещает индекс, что сегмент удален из таблицы и ни один ключ на него больше не ссылается
+     */
+    public void onSegmentRemoved(Segment segment) {
+        if (index instanceof OpenAddressingTableIndex) {
+            ((OpenAddressingTableIndex) index).releaseSegment(segment);
+        }
+    }
 }
@@ -1,9 +1,14 @@
 package com.itmo.java.basics.initialization;
 
+import com.itmo.java.basics.config.TableConfig;
 import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.logic.Segment;
+import com.itmo.java.basics.logic.impl.MappedSegmentCache;
+import com.itmo.java.basics.logic.impl.SegmentBlockCache;
+import com.itmo.java.basics.logic.impl.SegmentChannelPool;
 
 import java.nio.file.Path;
+import java.util.List;
 
 public interface TableInitializationContext {
     /**
@@ -40,4 +45,39 @@ public interface TableInitializationContext {
      * @param segment новый сегмент
      */
     void updateCurrentSegment(Segment segment);
+
+    /**
+     * Возвращает все проинициализированные сегменты таблицы в порядке их создания.
+     *
+     * @return сегменты таблицы
+     */
+    List<Segment> getSegments();
+
+    /**
+     * Возвращает настройки инициализируемой таблицы.
+     *
+     * @return настройки таблицы
+     */
+    TableConfig getTableConfig();
+
+    /**
+     * Возвращает отображения сегментов таблицы в память, общие для всех ее сегментов.
+     *
+     * @return отображения сегментов таблицы
+     */
+    MappedSegmentCache getMappedSegmentCache();
+
+    /**
+     * Возвращает кэш блоков, общий для всех сегментов таблицы.
+     *
+     * @return кэш блоков сегментов таблицы
+     */
+    SegmentBlockCache getSegmentBlockCache();
+
+    /**
+     * Возвращает открытые каналы, общие для всех сегментов таблицы.
+     *
+     * @return каналы сегментов таблицы
+     */
+    SegmentChannelPool getSegmentChannelPool();
 }
@@ -1,5 +1,6 @@
 package com.itmo.java.basics.initialization.impl;
 
+import com.itmo.java.basics.config.TableConfig;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.initialization.InitializationContext;
@@ -39,16 +40,21 @@ public class DatabaseInitializer implements Initializer {
             if (!Files.isDirectory(tableDirectory.toPath())) {
                 continue;
             }
+            TableConfig tableConfig = initialContext.executionEnvironment().getConfig().getTableConfig(
+                    initialContext.currentDbContext().getDbName(), tableDirectory.getName());
             tableInitializer.perform(InitializationContextImpl
                     .builder()
                     .executionEnvironment(initialContext.executionEnvironment())
                     .currentDatabaseContext(initialContext.currentDbContext())
                     .currentTableContext(new TableInitializationContextImpl(tableDirectory.getName(),
                             initialContext.currentDbContext().getDatabasePath(),
-                            new TableIndex()))
+                            TableIndex.create(tableConfig),
+                            tableConfig))
                     .build());
         }
         initialContext.executionEnvironment().addDatabase(
-                DatabaseImpl.initializeFromContext(initialContext.currentDbContext()));
+                DatabaseImpl.initializeFromContext(initialContext.currentDbContext(),
+                        initialContext.executionEnvironment().getConfig(),
+                        initialContext.executionEnvironment().getCache()));
     }
 }
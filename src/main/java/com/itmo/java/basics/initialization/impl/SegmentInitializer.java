@@ -1,25 +1,35 @@
 package com.itmo.java.basics.initialization.impl;
 
 import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.index.impl.SegmentLocation;
 import com.itmo.java.basics.index.impl.SegmentOffsetInfoImpl;
 import com.itmo.java.basics.initialization.InitializationContext;
 import com.itmo.java.basics.initialization.Initializer;
+import com.itmo.java.basics.logic.DatabaseKey;
 import com.itmo.java.basics.logic.DatabaseRecord;
+import com.itmo.java.basics.logic.Segment;
+import com.itmo.java.basics.logic.impl.SegmentHintFile;
 import com.itmo.java.basics.logic.impl.SegmentImpl;
 import com.itmo.java.basics.logic.io.DatabaseInputStream;
 
+import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.HashSet;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 public class SegmentInitializer implements Initializer {
 
     /**
      * Добавляет в контекст информацию об инициализируемом сегменте.
-     * Составляет индекс сегмента
+     * Составляет индекс сегмента: по файлу-подсказке, если он есть, иначе читая сегмент целиком.
+     * Если в контексте уже задан размер сегмента, читаются только записи после него
+     * (так дочитывается сегмент, попавший в снимок индекса)
      * Обновляет инфу в индексе таблицы
      *
      * @param context контекст с информацией об инициализируемой бд и об окружении
@@ -31,33 +41,47 @@ public class SegmentInitializer implements Initializer {
             throw new DatabaseException(String.format("Segment with path %s does not exist",
                     context.currentSegmentContext().getSegmentPath().toString()));
         }
-        try (DatabaseInputStream dbInputStream = new DatabaseInputStream(
-                new FileInputStream(context.currentSegmentContext().getSegmentPath().toString()))) {
-            Optional<DatabaseRecord> dbRecord = dbInputStream.readDbUnit();
-            Set<String> keys = new HashSet<>();
-            while (dbRecord.isPresent()) {
-                String key = new String(dbRecord.get().getKey());
-                keys.add(key);
+        try {
+            Optional<List<SegmentHintFile.Entry>> hints = SegmentHintFile.read(
+                    context.currentSegmentContext().getSegmentPath());
+            long start = context.currentSegmentContext().getCurrentSize();
+            List<SegmentHintFile.Entry> entries = hints.isPresent() ? hints.get() : scanSegment(context, start);
+            long segmentSize = start;
+            Map<DatabaseKey, SegmentHintFile.Entry> keys = new HashMap<>();
+            for (SegmentHintFile.Entry entry : entries) {
+                DatabaseKey key = DatabaseKey.wrap(entry.getKey());
+                keys.put(key, entry);
                 context.currentSegmentContext().getIndex().onIndexedEntityUpdated(key,
-                        new SegmentOffsetInfoImpl(context.currentSegmentContext().getCurrentSize()));
-                context = InitializationContextImpl
-                        .builder()
-                        .executionEnvironment(context.executionEnvironment())
-                        .currentDatabaseContext(context.currentDbContext())
-                        .currentTableContext(context.currentTableContext())
-                        .currentSegmentContext(new SegmentInitializationContextImpl(
-                                context.currentSegmentContext().getSegmentName(),
-                                context.currentSegmentContext().getSegmentPath(),
-                                context.currentSegmentContext().getCurrentSize() + dbRecord.get().size(),
-                                context.currentSegmentContext().getIndex()))
-                        .build();
-                dbRecord = dbInputStream.readDbUnit();
+                        new SegmentOffsetInfoImpl(entry.getOffset()));
+                segmentSize = entry.getOffset() + entry.getSize();
             }
-            context.currentTableContext().updateCurrentSegment(
-                    SegmentImpl.initializeFromContext(context.currentSegmentContext()));
-            for (String key : keys) {
-                context.currentTableContext().getTableIndex().onIndexedEntityUpdated(key,
-                        context.currentTableContext().getCurrentSegment());
+            context = InitializationContextImpl
+                    .builder()
+                    .executionEnvironment(context.executionEnvironment())
+                    .currentDatabaseContext(context.currentDbContext())
+                    .currentTableContext(context.currentTableContext())
+                    .currentSegmentContext(new SegmentInitializationContextImpl(
+                            context.currentSegmentContext().getSegmentName(),
+                            context.currentSegmentContext().getSegmentPath(),
+                            segmentSize,
+                            context.currentSegmentContext().getIndex()))
+                    .build();
+            Segment segment = SegmentImpl.initializeFromContext(context.currentSegmentContext(),
+                    context.currentTableContext().getTableConfig(),
+                    context.currentTableContext().getMappedSegmentCache(),
+                    context.currentTableContext().getSegmentBlockCache(),
+                    context.currentTableContext().getSegmentChannelPool());
+            if (hints.isEmpty() && start == 0 && segment.isReadOnly()) {
+                writeHintFile(context.currentSegmentContext().getSegmentPath(), segmentSize, entries);
+            }
+            context.currentTableContext().updateCurrentSegment(segment);
+            for (Map.Entry<DatabaseKey, SegmentHintFile.Entry> key : keys.entrySet()) {
+                SegmentLocation location = new SegmentLocation(segment, key.getValue().getOffset());
+                if (key.getValue().isRemoved()) {
+                    context.currentTableContext().getTableIndex().onIndexedEntityDeleted(key.getKey(), location);
+                } else {
+                    context.currentTableContext().getTableIndex().onIndexedEntityUpdated(key.getKey(), location);
+                }
             }
         } catch (IOException e) {
             throw new DatabaseException(String.format("IOException when reading from segment %s",
@@ -65,4 +89,36 @@ public class SegmentInitializer implements Initializer {
         }
 
     }
+
+    /**
+     * Без подсказки сегмент просто будет прочитан целиком при следующем старте, поэтому ошибка ее записи не прерывает инициализацию
+     */
+    private void writeHintFile(Path segmentPath, long segmentSize, List<SegmentHintFile.Entry> entries) {
+        try {
+            SegmentHintFile.write(segmentPath, segmentSize, entries);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Читает записи сегмента начиная со смещения start, если для него нет подсказки
+     */
+    private List<SegmentHintFile.Entry> scanSegment(InitializationContext context, long start) throws IOException {
+        List<SegmentHintFile.Entry> entries = new ArrayList<>();
+        try (FileInputStream fileInputStream = new FileInputStream(
+                context.currentSegmentContext().getSegmentPath().toString());
+             DatabaseInputStream dbInputStream = new DatabaseInputStream(new BufferedInputStream(fileInputStream))) {
+            fileInputStream.getChannel().position(start);
+            long offset = start;
+            Optional<DatabaseRecord> dbRecord = dbInputStream.readDbUnit();
+            while (dbRecord.isPresent()) {
+                entries.add(new SegmentHintFile.Entry(dbRecord.get().getKey(), offset, (int) dbRecord.get().size(),
+                        !dbRecord.get().isValuePresented()));
+                offset += dbRecord.get().size();
+                dbRecord = dbInputStream.readDbUnit();
+            }
+        }
+        return entries;
+    }
 }
@@ -1,20 +1,41 @@
 package com.itmo.java.basics.initialization.impl;
 
+import com.itmo.java.basics.config.TableConfig;
 import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.initialization.TableInitializationContext;
 import com.itmo.java.basics.logic.Segment;
+import com.itmo.java.basics.logic.impl.MappedSegmentCache;
+import com.itmo.java.basics.logic.impl.SegmentBlockCache;
+import com.itmo.java.basics.logic.impl.SegmentChannelPool;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class TableInitializationContextImpl implements TableInitializationContext {
     private final Path tablePath;
     private final TableIndex tableIndex;
+    private final TableConfig tableConfig;
+    private final MappedSegmentCache mappedSegmentCache;
+    private final SegmentBlockCache segmentBlockCache;
+    private final SegmentChannelPool segmentChannelPool;
+    private final List<Segment> segments;
     private Segment currentSegment;
 
     public TableInitializationContextImpl(String tableName, Path databasePath, TableIndex tableIndex) {
+        this(tableName, databasePath, tableIndex, TableConfig.defaultConfig());
+    }
+
+    public TableInitializationContextImpl(String tableName, Path databasePath, TableIndex tableIndex,
+                                          TableConfig tableConfig) {
         this.tablePath = Path.of(databasePath.toString() + File.separator + tableName);
         this.tableIndex = tableIndex;
+        this.tableConfig = tableConfig;
+        this.mappedSegmentCache = MappedSegmentCache.create(tableConfig);
+        this.segmentBlockCache = SegmentBlockCache.create(tableConfig);
+        this.segmentChannelPool = SegmentChannelPool.create(tableConfig);
+        this.segments = new ArrayList<>();
         this.currentSegment = null;
     }
 
@@ -41,5 +62,31 @@ public class TableInitializationContextImpl implements TableInitializationContex
     @Override
     public void updateCurrentSegment(Segment segment) {
         currentSegment = segment;
+        segments.add(segment);
+    }
+
+    @Override
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    @Override
+    public TableConfig getTableConfig() {
+        return tableConfig;
+    }
+
+    @Override
+    public MappedSegmentCache getMappedSegmentCache() {
+        return mappedSegmentCache;
+    }
+
+    @Override
+    public SegmentBlockCache getSegmentBlockCache() {
+        return segmentBlockCache;
+    }
+
+    @Override
+    public SegmentChannelPool getSegmentChannelPool() {
+        return segmentChannelPool;
     }
 }
@@ -1,14 +1,27 @@
 package com.itmo.java.basics.initialization.impl;
 
+import com.itmo.java.basics.config.TableConfig;
 import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.index.impl.SegmentIndex;
+import com.itmo.java.basics.index.impl.SegmentLocation;
+import com.itmo.java.basics.index.impl.SegmentOffsetInfoImpl;
+import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.initialization.InitializationContext;
 import com.itmo.java.basics.initialization.Initializer;
+import com.itmo.java.basics.initialization.TableInitializationContext;
+import com.itmo.java.basics.logic.Segment;
+import com.itmo.java.basics.logic.impl.IndexCheckpoint;
+import com.itmo.java.basics.logic.impl.SegmentImpl;
 import com.itmo.java.basics.logic.impl.TableImpl;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
 
 public class TableInitializer implements Initializer {
     private final SegmentInitializer segmentInitializer;
@@ -19,7 +32,9 @@ public class TableInitializer implements Initializer {
 
     /**
      * Добавляет в контекст информацию об инициализируемой таблице.
-     * Запускает инициализацию всех сегментов в порядке их создания (из имени)
+     * Если есть снимок индекса, совпадающий с сегментами на диске, восстанавливает индекс из него
+     * и дочитывает только то, что записано после снимка.
+     * Остальные сегменты инициализирует в порядке их создания (из имени)
      *
      * @param context контекст с информацией об инициализируемой бд, окружении, таблицы
      * @throws DatabaseException если в контексте лежит неправильный путь к таблице, невозможно прочитать содержимого папки,
@@ -31,28 +46,104 @@ public class TableInitializer implements Initializer {
             throw new DatabaseException(String.format("Table with path %s does not exist",
                     context.currentTableContext().getTablePath().toString()));
         }
-        File[] segmentsFiles = context.currentTableContext().getTablePath().toFile().listFiles();
+        String tableName = context.currentTableContext().getTableName();
+        File[] segmentsFiles = context.currentTableContext().getTablePath().toFile().listFiles(
+                file -> file.isFile() && SegmentImpl.isSegmentName(tableName, file.getName()));
         if (segmentsFiles == null) {
             throw new DatabaseException(String.format("Error when getting tables directories from %s",
                     context.currentDbContext().getDatabasePath().toString()));
         }
-        Arrays.sort(segmentsFiles, Comparator.comparingLong(
-                file -> Long.parseLong(file.getName().substring(context.currentTableContext().getTableName().length() + 1)))
-        );
-        for (File segmentFile : segmentsFiles) {
-            if (Files.isDirectory(segmentFile.toPath())) {
-                continue;
+        Arrays.sort(segmentsFiles, Comparator.comparing(File::getName, SegmentImpl.segmentOrder(tableName)));
+        int restoredSegments = restoreFromCheckpoint(context, segmentsFiles);
+        for (int i = restoredSegments; i < segmentsFiles.length; i++) {
+            initializeSegment(context, segmentsFiles[i], 0,
+                    SegmentIndex.create(context.currentTableContext().getTableConfig()));
+        }
+        context.currentDbContext().addTable(TableImpl.initializeFromContext(context.currentTableContext(),
+                context.executionEnvironment().getCache()));
+    }
+
+    /**
+     * Восстанавливает сегменты и индекс таблицы из снимка индекса. Сегменты снимка, кроме последнего,
+     * создаются без чтения. Последний дочитывается с размера на момент снимка, ключи из этого хвоста
+     * новее снимка и потому не перезаписываются им
+     *
+     * @return сколько первых сегментов восстановлено. 0 - если снимка нет или он не совпадает с сегментами на диске
+     */
+    private int restoreFromCheckpoint(InitializationContext context, File[] segmentsFiles) throws DatabaseException {
+        TableInitializationContext tableContext = context.currentTableContext();
+        Optional<IndexCheckpoint> checkpoint;
+        try {
+            IndexCheckpoint.deleteTemporaryFiles(tableContext.getTablePath());
+            checkpoint = IndexCheckpoint.read(tableContext.getTablePath());
+        } catch (IOException e) {
+            throw new DatabaseException(String.format("IOException when reading index checkpoint of table %s",
+                    tableContext.getTableName()), e);
+        }
+        if (checkpoint.isEmpty() || !matchesSegments(checkpoint.get(), segmentsFiles)) {
+            return 0;
+        }
+        TableConfig config = tableContext.getTableConfig();
+        int segmentCount = checkpoint.get().getSegmentNames().size();
+        List<SegmentIndex> segmentIndexes = new ArrayList<>();
+        for (int i = 0; i < segmentCount - 1; i++) {
+            SegmentIndex segmentIndex = SegmentIndex.create(config);
+            segmentIndexes.add(segmentIndex);
+            tableContext.updateCurrentSegment(SegmentImpl.initializeFromContext(
+                    new SegmentInitializationContextImpl(segmentsFiles[i].getName(), segmentsFiles[i].toPath(),
+                            checkpoint.get().getSegmentSize(i), segmentIndex),
+                    config, tableContext.getMappedSegmentCache(), tableContext.getSegmentBlockCache(),
+                    tableContext.getSegmentChannelPool()));
+        }
+        SegmentIndex lastSegmentIndex = SegmentIndex.create(config);
+        segmentIndexes.add(lastSegmentIndex);
+        initializeSegment(context, segmentsFiles[segmentCount - 1],
+                checkpoint.get().getSegmentSize(segmentCount - 1), lastSegmentIndex);
+
+        List<Segment> segments = tableContext.getSegments();
+        TableIndex tableIndex = tableContext.getTableIndex();
+        checkpoint.get().forEachEntry((key, segment, offset) -> {
+            if (tableIndex.searchForKey(key).isEmpty()) {
+                tableIndex.onIndexedEntityUpdated(key, new SegmentLocation(segments.get(segment), offset));
+                segmentIndexes.get(segment).onIndexedEntityUpdated(key, new SegmentOffsetInfoImpl(offset));
             }
-            segmentInitializer.perform(InitializationContextImpl
-                    .builder()
-                    .executionEnvironment(context.executionEnvironment())
-                    .currentDatabaseContext(context.currentDbContext())
-                    .currentTableContext(context.currentTableContext())
-                    .currentSegmentContext(new SegmentInitializationContextImpl(segmentFile.getName(),
-                            context.currentTableContext().getTablePath(),
-                            0))
-                    .build());
-        }
-        context.currentDbContext().addTable(TableImpl.initializeFromContext(context.currentTableContext()));
+        });
+        return segmentCount;
+    }
+
+    /**
+     * Снимок годится, если его сегменты - это первые сегменты на диске, все они, кроме последнего,
+     * не изменились, а последний не стал короче
+     */
+    private boolean matchesSegments(IndexCheckpoint checkpoint, File[] segmentsFiles) {
+        List<String> segmentNames = checkpoint.getSegmentNames();
+        if (segmentNames.isEmpty() || segmentNames.size() > segmentsFiles.length) {
+            return false;
+        }
+        int last = segmentNames.size() - 1;
+        for (int i = 0; i <= last; i++) {
+            if (!segmentsFiles[i].getName().equals(segmentNames.get(i))) {
+                return false;
+            }
+            long size = segmentsFiles[i].length();
+            if (i < last ? size != checkpoint.getSegmentSize(i) : size < checkpoint.getSegmentSize(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void initializeSegment(InitializationContext context, File segmentFile, long size,
+                                   SegmentIndex segmentIndex) throws DatabaseException {
+        segmentInitializer.perform(InitializationContextImpl
+                .builder()
+                .executionEnvironment(context.executionEnvironment())
+                .currentDatabaseContext(context.currentDbContext())
+                .currentTableContext(context.currentTableContext())
+                .currentSegmentContext(new SegmentInitializationContextImpl(segmentFile.getName(),
+                        segmentFile.toPath(),
+                        size,
+                        segmentIndex))
+                .build());
     }
 }
@@ -2,7 +2,9 @@ package com.itmo.java.basics.logic;
 
 import com.itmo.java.basics.exceptions.DatabaseException;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.SortedMap;
 
 public interface Database {
     /**
@@ -28,7 +30,11 @@ public interface Database {
      * @param objectValue значение, которое нужно записать
      * @throws DatabaseException если указанная таблица не была найдена или если произошла ошибка ввода-вывода
      */
-    void write(String tableName, String objectKey, byte[] objectValue) throws DatabaseException;
+    void write(String tableName, DatabaseKey objectKey, byte[] objectValue) throws DatabaseException;
+
+    default void write(String tableName, String objectKey, byte[] objectValue) throws DatabaseException {
+        write(tableName, DatabaseKey.of(objectKey), objectValue);
+    }
 
     /**
      * Считывает значение из указанной таблицы по заданному ключу.
@@ -38,7 +44,57 @@ public interface Database {
      * @return значение, которое находится по ключу
      * @throws DatabaseException если не была найдена указанная таблица, или произошла ошибка ввода-вывода
      */
-    Optional<byte[]> read(String tableName, String objectKey) throws DatabaseException;
+    Optional<byte[]> read(String tableName, DatabaseKey objectKey) throws DatabaseException;
+
+    default Optional<byte[]> read(String tableName, String objectKey) throws DatabaseException {
+        return read(tableName, DatabaseKey.of(objectKey));
+    }
+
+    /**
+     * Считывает значение из указанной таблицы без копирования (см. {@link Table#readView}).
+     *
+     * @return значение, которое нужно отпустить через {@link ValueView#release()}
+     * @throws DatabaseException если не была найдена указанная таблица, или произошла ошибка ввода-вывода
+     */
+    default Optional<ValueView> readView(String tableName, DatabaseKey objectKey) throws DatabaseException {
+        return read(tableName, objectKey).map(ValueView::of);
+    }
+
+    /**
+     * Записывает несколько значений в указанную таблицу (см. {@link Table#writeAll}).
+     *
+     * @throws DatabaseException если указанная таблица не была найдена или если произошла ошибка ввода-вывода
+     */
+    void writeAll(String tableName, List<DatabaseKey> objectKeys, List<byte[]> objectValues) throws DatabaseException;
+
+    /**
+     * Считывает значения нескольких ключей из указанной таблицы (см. {@link Table#readAll}).
+     *
+     * @throws DatabaseException если не была найдена указанная таблица, или произошла ошибка ввода-вывода
+     */
+    List<Optional<byte[]>> readAll(String tableName, List<DatabaseKey> objectKeys) throws DatabaseException;
 
-    void delete(String tableName, String objectKey) throws DatabaseException;
+    void delete(String tableName, DatabaseKey objectKey) throws DatabaseException;
+
+    default void delete(String tableName, String objectKey) throws DatabaseException {
+        delete(tableName, DatabaseKey.of(objectKey));
+    }
+
+    /**
+     * Читает по возрастанию ключей записи указанной таблицы из диапазона (см. {@link Table#scan}).
+     *
+     * @param tableName таблица, из которой нужно считать записи
+     * @throws DatabaseException если не была найдена указанная таблица, у нее нет упорядоченного индекса
+     *                           или произошла ошибка ввода-вывода
+     */
+    SortedMap<DatabaseKey, byte[]> scan(String tableName, DatabaseKey fromKey, boolean fromInclusive, DatabaseKey toKey,
+                                        int limit)
+            throws DatabaseException;
+
+    /**
+     * Закрывает все таблицы базы данных.
+     *
+     * @throws DatabaseException если произошла ошибка ввода-вывода
+     */
+    void close() throws DatabaseException;
 }
\ No newline at end of file
@@ -1,9 +1,31 @@
 package com.itmo.java.basics.logic;
 
+import java.util.List;
+
 public interface DatabaseCache {
-    byte[] get(String key);
+    byte[] get(DatabaseKey key);
+
+    void set(DatabaseKey key, byte[] value);
+
+    void delete(DatabaseKey key);
 
-    void set(String key, byte[] value);
+    /**
+     * Возвращает значение ключа без копирования в кучу, если кэш хранит значения вне ее,
+     * например чтобы поставить его в очередь на отправку в сокет
+     *
+     * @return значение, которое нужно отпустить через {@link ValueView#release()}, или null, если ключа нет в кэше
+     */
+    default ValueView retain(DatabaseKey key) {
+        byte[] value = get(key);
+        return value != null ? ValueView.of(value) : null;
+    }
 
-    void delete(String key);
+    /**
+     * Самые часто читаемые ключи кэша, от самого частого к самому редкому
+     *
+     * @param limit сколько ключей вернуть не больше
+     */
+    default List<DatabaseKey> hotKeys(int limit) {
+        return List.of();
+    }
 }
@@ -0,0 +1,75 @@
+package com.itmo.java.basics.logic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Ключ записи: байты ключа в том виде, в котором они лежат в сегменте, и заранее посчитанный хеш.
+ * Ключи сравниваются побайтово без знака, для UTF-8 это совпадает с порядком кодовых точек.
+ * <p>
+ * Массив байт не копируется, менять его после создания ключа нельзя
+ */
+public final class DatabaseKey implements Comparable<DatabaseKey> {
+    private final byte[] bytes;
+    private final int hash;
+
+    private DatabaseKey(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * Создает ключ поверх переданного массива без копирования
+     */
+    public static DatabaseKey wrap(byte[] bytes) {
+        return new DatabaseKey(bytes);
+    }
+
+    /**
+     * Создает ключ из строки в UTF-8
+     */
+    public static DatabaseKey of(String key) {
+        return new DatabaseKey(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Байты ключа. Возвращается внутренний массив, менять его нельзя
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof DatabaseKey)) {
+            return false;
+        }
+        DatabaseKey key = (DatabaseKey) other;
+        return hash == key.hash && Arrays.equals(bytes, key.bytes);
+    }
+
+    @Override
+    public int compareTo(DatabaseKey other) {
+        return Arrays.compareUnsigned(bytes, other.bytes);
+    }
+
+    /**
+     * Ключ как строка в UTF-8. Нужен для сообщений об ошибках, а не для работы с данными
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,6 @@
 package com.itmo.java.basics.logic;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.Optional;
 
@@ -10,7 +11,7 @@ import java.util.Optional;
  * - именование файла-сегмента должно позволять установить очередность их появления
  * - является неизменяемым после появления более нового сегмента
  */
-public interface Segment {
+public interface Segment extends Closeable {
     /**
      * Возвращает имя сегмента.
      *
@@ -26,7 +27,7 @@ public interface Segment {
      * @return {@code true} - если значение записалось, {@code false} - если нет
      * @throws IOException если произошла ошибка ввода-вывода.
      */
-    boolean write(String objectKey, byte[] objectValue) throws IOException;
+    boolean write(DatabaseKey objectKey, byte[] objectValue) throws IOException;
 
     /**
      * Считывает значение из сегмента по переданному ключу.
@@ -35,7 +36,33 @@ public interface Segment {
      * @return значение, которое находится по ключу
      * @throws IOException если произошла ошибка ввода-вывода
      */
-    Optional<byte[]> read(String objectKey) throws IOException;
+    Optional<byte[]> read(DatabaseKey objectKey) throws IOException;
+
+    /**
+     * Считывает значение записи, начинающейся с указанного смещения.
+     *
+     * @param offset смещение записи в сегменте
+     * @return значение записи или {@link Optional#empty()}, если запись - удаление
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    Optional<byte[]> readAt(long offset) throws IOException;
+
+    /**
+     * Дожидается, пока записанное в сегмент до указанного смещения будет сброшено на диск,
+     * если этого требует режим надежности сегмента. Вызывается без блокировки таблицы.
+     *
+     * @param position смещение, до которого данные должны быть на диске
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    default void awaitDurable(long position) throws IOException {
+    }
+
+    /**
+     * Возвращает текущий размер сегмента в байтах. С этого смещения начнется следующая запись.
+     *
+     * @return текущий размер сегмента в байтах
+     */
+    long size();
 
     /**
      * Возвращает {@code true} - если данный сегмент открыт только на чтение, {@code false} - если данный сегмент открыт на чтение и запись.
@@ -44,5 +71,13 @@ public interface Segment {
      */
     boolean isReadOnly();
 
-    boolean delete(String objectKey) throws IOException;
+    boolean delete(DatabaseKey objectKey) throws IOException;
+
+    /**
+     * Закрывает файловые каналы сегмента. Вызывается при остановке таблицы.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    @Override
+    void close() throws IOException;
 }
\ No newline at end of file
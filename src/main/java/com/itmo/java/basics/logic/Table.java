@@ -2,7 +2,9 @@ package com.itmo.java.basics.logic;
 
 import com.itmo.java.basics.exceptions.DatabaseException;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.SortedMap;
 
 /**
  * Таблица - логическая сущность, представляющая собой набор файлов-сегментов, которые объединены одним
@@ -28,7 +30,11 @@ public interface Table {
      * @param objectValue значение, которое нужно записать
      * @throws DatabaseException если произошла ошибка ввода-вывода
      */
-    void write(String objectKey, byte[] objectValue) throws DatabaseException;
+    void write(DatabaseKey objectKey, byte[] objectValue) throws DatabaseException;
+
+    default void write(String objectKey, byte[] objectValue) throws DatabaseException {
+        write(DatabaseKey.of(objectKey), objectValue);
+    }
 
     /**
      * Считывает значение из таблицы по заданному ключу.
@@ -37,8 +43,64 @@ public interface Table {
      * @return значение, которое находится по ключу
      * @throws DatabaseException если произошла ошибка ввода-вывода
      */
-    Optional<byte[]> read(String objectKey) throws DatabaseException;
+    Optional<byte[]> read(DatabaseKey objectKey) throws DatabaseException;
+
+    default Optional<byte[]> read(String objectKey) throws DatabaseException {
+        return read(DatabaseKey.of(objectKey));
+    }
+
+    /**
+     * Считывает значение по ключу без копирования, если оно лежит в кэше (см. {@link ValueView}).
+     *
+     * @return значение, которое нужно отпустить через {@link ValueView#release()}
+     * @throws DatabaseException если произошла ошибка ввода-вывода
+     */
+    default Optional<ValueView> readView(DatabaseKey objectKey) throws DatabaseException {
+        return read(objectKey).map(ValueView::of);
+    }
 
-    void delete(String objectKey) throws DatabaseException;
+    /**
+     * Записывает в таблицу несколько значений разом.
+     *
+     * @param objectKeys   ключи. Если ключ повторяется, остается последнее значение
+     * @param objectValues значения в порядке ключей
+     * @throws DatabaseException если произошла ошибка ввода-вывода
+     */
+    void writeAll(List<DatabaseKey> objectKeys, List<byte[]> objectValues) throws DatabaseException;
+
+    /**
+     * Считывает из таблицы значения нескольких ключей разом.
+     *
+     * @param objectKeys ключи, могут повторяться
+     * @return значения в порядке ключей. Пустой {@link Optional}, если ключа нет
+     * @throws DatabaseException если произошла ошибка ввода-вывода
+     */
+    List<Optional<byte[]>> readAll(List<DatabaseKey> objectKeys) throws DatabaseException;
+
+    void delete(DatabaseKey objectKey) throws DatabaseException;
+
+    default void delete(String objectKey) throws DatabaseException {
+        delete(DatabaseKey.of(objectKey));
+    }
+
+    /**
+     * Читает по возрастанию ключей живые записи таблицы из диапазона. Требует упорядоченного индекса таблицы.
+     *
+     * @param fromKey       ключ, с которого начинается диапазон
+     * @param fromInclusive входит ли fromKey в диапазон
+     * @param toKey         ключ, которым диапазон заканчивается (не включительно). {@code null} - без верхней границы
+     * @param limit         сколько записей вернуть не больше
+     * @return найденные ключи и их значения
+     * @throws DatabaseException если у таблицы нет упорядоченного индекса или произошла ошибка ввода-вывода
+     */
+    SortedMap<DatabaseKey, byte[]> scan(DatabaseKey fromKey, boolean fromInclusive, DatabaseKey toKey, int limit)
+            throws DatabaseException;
+
+    /**
+     * Закрывает все сегменты таблицы.
+     *
+     * @throws DatabaseException если произошла ошибка ввода-вывода
+     */
+    void close() throws DatabaseException;
 }
 
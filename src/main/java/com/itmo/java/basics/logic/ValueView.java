@@ -0,0 +1,77 @@
+package com.itmo.java.basics.logic;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Значение, прочитанное без копирования: буфер смотрит прямо в память кэша, в том числе вне кучи.
+ * Пока значение не отпущено через {@link #release()}, память под ним не освобождается и не переиспользуется,
+ * поэтому его можно, например, поставить в очередь на отправку в сокет и отпустить, когда байты уйдут.
+ * Отпустить значение нужно ровно один раз, повторные вызовы ничего не делают
+ */
+public final class ValueView {
+    private static final Runnable NOTHING_TO_RELEASE = () -> {
+    };
+
+    private final ByteBuffer buffer;
+    private final byte[] array;
+    private final Runnable release;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private ValueView(ByteBuffer buffer, byte[] array, Runnable release) {
+        this.buffer = buffer;
+        this.array = array;
+        this.release = release;
+    }
+
+    /**
+     * Значение в куче, отпускать которое не нужно
+     */
+    public static ValueView of(byte[] value) {
+        return new ValueView(ByteBuffer.wrap(value).asReadOnlyBuffer(), value, NOTHING_TO_RELEASE);
+    }
+
+    /**
+     * @param buffer  буфер только для чтения ровно со значением
+     * @param release освобождает память под значением
+     */
+    public static ValueView retained(ByteBuffer buffer, Runnable release) {
+        return new ValueView(buffer, null, release);
+    }
+
+    /**
+     * @return новый буфер только для чтения поверх значения. Действителен до {@link #release()}
+     */
+    public ByteBuffer buffer() {
+        return buffer.duplicate();
+    }
+
+    public int length() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Массив в куче, поверх которого лежит значение, или null, если значение вне кучи
+     */
+    public byte[] array() {
+        return array;
+    }
+
+    /**
+     * @return значение массивом в куче: сам массив, если значение в куче, иначе его копию
+     */
+    public byte[] toBytes() {
+        if (array != null) {
+            return array;
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            release.run();
+        }
+    }
+}
@@ -1,21 +1,135 @@
 package com.itmo.java.basics.logic.impl;
 
+import com.itmo.java.basics.config.TableConfig;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.DatabaseCache;
+import com.itmo.java.basics.logic.DatabaseKey;
 import com.itmo.java.basics.logic.Table;
+import com.itmo.java.basics.logic.ValueView;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Декоратор для таблицы. Кэширует данные
+ * Декоратор для таблицы. Кэширует данные.
+ * <p>
+ * Прочитанные с диска значения тоже попадают в кэш, а отсутствующие и удаленные ключи кэшируются
+ * как {@link #ABSENT}. Решает, что оставить в кэше, политика допуска {@link SharedDatabaseCache}.
+ * Запись, пакетная запись и удаление не кладут значение в кэш, а только убирают из него ключ:
+ * запись в таблицу и в кэш не атомарны, и две параллельные записи могли бы оставить в кэше более старое значение.
+ * Чтобы чтение не положило в кэш значение, перезаписанное параллельной записью, каждая запись увеличивает
+ * счетчик изменений таблицы, а чтение, заметившее изменение после обращения к диску, убирает свое значение из кэша.
+ * <p>
+ * Если включено {@link TableConfig#getHotKeysLimit()}, самые часто читаемые ключи периодически и при закрытии
+ * сохраняются в {@link HotKeySnapshot}. После перезапуска они в фоне, с ограничением скорости, читаются в кэш
  */
 public class CachingTable implements Table {
+    /**
+     * Значение в кэше для ключа, которого нет в таблице. Сравнивается по ссылке
+     */
+    private static final byte[] ABSENT = new byte[0];
+
+    /**
+     * Загрузка сохраненных ключей в кэш после перезапуска. Один поток на все таблицы,
+     * чтобы прогрев не отнимал у запросов больше одного ядра
+     */
+    private static final ExecutorService WARM_UP_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-warm-up");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Table table;
     private final DatabaseCache databaseCache;
+    private final Path tablePath;
+    private final TableConfig config;
+    private final AtomicLong modifications = new AtomicLong();
+    private ScheduledFuture<?> hotKeys;
+    private volatile boolean closed;
 
     CachingTable(Table table, DatabaseCache databaseCache) {
+        this(table, databaseCache, null, TableConfig.defaultConfig());
+    }
+
+    /**
+     * @param tablePath директория таблицы, где хранятся часто читаемые ключи
+     */
+    CachingTable(Table table, DatabaseCache databaseCache, Path tablePath, TableConfig config) {
         this.table = table;
         this.databaseCache = databaseCache;
+        this.tablePath = tablePath;
+        this.config = config;
+    }
+
+    private boolean hotKeysEnabled() {
+        return tablePath != null && config.getHotKeysLimit() > 0;
+    }
+
+    synchronized void scheduleHotKeys() {
+        if (!hotKeysEnabled() || config.getHotKeysIntervalMillis() <= 0) {
+            return;
+        }
+        hotKeys = TableImpl.MAINTENANCE_EXECUTOR.scheduleWithFixedDelay(() -> {
+            try {
+                writeHotKeys();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, config.getHotKeysIntervalMillis(), config.getHotKeysIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void writeHotKeys() throws IOException {
+        if (!closed) {
+            HotKeySnapshot.write(tablePath, databaseCache.hotKeys(config.getHotKeysLimit()));
+        }
+    }
+
+    /**
+     * Читает в кэш ключи, сохраненные до перезапуска, начиная с самых частых. Работает в фоне
+     * и не быстрее {@link TableConfig#getWarmUpBytesPerSecond()}
+     */
+    void warmUp() {
+        if (!hotKeysEnabled()) {
+            return;
+        }
+        Optional<List<DatabaseKey>> keys;
+        try {
+            keys = HotKeySnapshot.read(tablePath);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<DatabaseKey> hottest = keys.get().subList(0, Math.min(keys.get().size(), config.getHotKeysLimit()));
+        WARM_UP_EXECUTOR.execute(() -> {
+            IoRateLimiter rateLimiter = new IoRateLimiter(config.getWarmUpBytesPerSecond());
+            try {
+                for (DatabaseKey key : hottest) {
+                    if (closed) {
+                        return;
+                    }
+                    Optional<byte[]> value = read(key);
+                    rateLimiter.acquire(key.length() + value.map(bytes -> bytes.length).orElse(0));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (DatabaseException e) {
+                if (!closed) {
+                    e.printStackTrace();
+                }
+            }
+        });
     }
 
     @Override
@@ -24,24 +138,121 @@ public class CachingTable implements Table {
     }
 
     @Override
-    public void write(String objectKey, byte[] objectValue) throws DatabaseException {
-        databaseCache.set(objectKey, objectValue);
+    public void write(DatabaseKey objectKey, byte[] objectValue) throws DatabaseException {
         table.write(objectKey, objectValue);
+        modifications.incrementAndGet();
+        databaseCache.delete(objectKey);
     }
 
     @Override
-    public Optional<byte[]> read(String objectKey) throws DatabaseException {
-        if (databaseCache.get(objectKey) != null) {
-            return Optional.of(databaseCache.get(objectKey));
+    public Optional<byte[]> read(DatabaseKey objectKey) throws DatabaseException {
+        byte[] cached = databaseCache.get(objectKey);
+        if (cached != null) {
+            return cached == ABSENT ? Optional.empty() : Optional.of(cached);
         }
-        return table.read(objectKey);
+        return load(objectKey);
     }
 
-    @Override
-    public void delete(String objectKey) throws DatabaseException {
-        if (databaseCache.get(objectKey) != null) {
+    /**
+     * Читает промах кэша из таблицы и кладет прочитанное в кэш
+     */
+    private Optional<byte[]> load(DatabaseKey objectKey) throws DatabaseException {
+        long modificationsBeforeRead = modifications.get();
+        Optional<byte[]> value = table.read(objectKey);
+        databaseCache.set(objectKey, value.orElse(ABSENT));
+        if (modifications.get() != modificationsBeforeRead) {
             databaseCache.delete(objectKey);
         }
+        return value;
+    }
+
+    /**
+     * Значение из кэша отдается без копирования, промах читается из таблицы как в {@link #read(DatabaseKey)}
+     */
+    @Override
+    public Optional<ValueView> readView(DatabaseKey objectKey) throws DatabaseException {
+        ValueView cached = databaseCache.retain(objectKey);
+        if (cached != null) {
+            return cached.array() == ABSENT ? Optional.empty() : Optional.of(cached);
+        }
+        return load(objectKey).map(ValueView::of);
+    }
+
+    @Override
+    public void writeAll(List<DatabaseKey> objectKeys, List<byte[]> objectValues) throws DatabaseException {
+        table.writeAll(objectKeys, objectValues);
+        modifications.incrementAndGet();
+        for (DatabaseKey key : objectKeys) {
+            databaseCache.delete(key);
+        }
+    }
+
+    /**
+     * Ключи, которых нет в кэше, читаются из таблицы одним {@link Table#readAll(List)}
+     */
+    @Override
+    public List<Optional<byte[]>> readAll(List<DatabaseKey> objectKeys) throws DatabaseException {
+        List<Optional<byte[]>> values = new ArrayList<>(objectKeys.size());
+        List<Integer> missedPositions = new ArrayList<>();
+        List<DatabaseKey> missedKeys = new ArrayList<>();
+        for (int i = 0; i < objectKeys.size(); i++) {
+            byte[] cached = databaseCache.get(objectKeys.get(i));
+            if (cached == null) {
+                values.add(Optional.empty());
+                missedPositions.add(i);
+                missedKeys.add(objectKeys.get(i));
+            } else {
+                values.add(cached == ABSENT ? Optional.empty() : Optional.of(cached));
+            }
+        }
+        if (missedKeys.isEmpty()) {
+            return values;
+        }
+        long modificationsBeforeRead = modifications.get();
+        List<Optional<byte[]>> missedValues = table.readAll(missedKeys);
+        for (int i = 0; i < missedKeys.size(); i++) {
+            values.set(missedPositions.get(i), missedValues.get(i));
+            databaseCache.set(missedKeys.get(i), missedValues.get(i).orElse(ABSENT));
+        }
+        if (modifications.get() != modificationsBeforeRead) {
+            for (DatabaseKey key : missedKeys) {
+                databaseCache.delete(key);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void delete(DatabaseKey objectKey) throws DatabaseException {
         table.delete(objectKey);
+        modifications.incrementAndGet();
+        databaseCache.delete(objectKey);
+    }
+
+    /**
+     * Диапазоны читаются мимо кэша
+     */
+    @Override
+    public SortedMap<DatabaseKey, byte[]> scan(DatabaseKey fromKey, boolean fromInclusive, DatabaseKey toKey, int limit)
+            throws DatabaseException {
+        return table.scan(fromKey, fromInclusive, toKey, limit);
+    }
+
+    @Override
+    public void close() throws DatabaseException {
+        synchronized (this) {
+            closed = true;
+            if (hotKeys != null) {
+                hotKeys.cancel(false);
+            }
+        }
+        table.close();
+        if (hotKeysEnabled()) {
+            try {
+                HotKeySnapshot.write(tablePath, databaseCache.hotKeys(config.getHotKeysLimit()));
+            } catch (IOException e) {
+                throw new DatabaseException(String.format("IO exception when saving hot keys of table %s", getName()), e);
+            }
+        }
     }
 }
@@ -1,35 +1,98 @@
 package com.itmo.java.basics.logic.impl;
 
 import com.itmo.java.basics.logic.DatabaseCache;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.ValueView;
 
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Кэш одной таблицы. Ключи таблицы лежат в {@link ConcurrentHashMap}, чтение не блокируется.
+ * Бюджет и вытеснение - общие для всех таблиц, см. {@link SharedDatabaseCache}.
+ * Считает попадания, промахи и занятые таблицей байты
+ */
 public class DatabaseCacheImpl implements DatabaseCache {
-    private static final int CAPACITY = 5_000;
+    final Map<DatabaseKey, SharedDatabaseCache.Node> nodes = new ConcurrentHashMap<>();
+    final int hashSeed;
+    /**
+     * Меняется только под блокировкой общего кэша
+     */
+    volatile long bytes;
+    private final String tableName;
+    private final SharedDatabaseCache sharedCache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
-    private final Map<String, byte[]> dbCacheMap;
+    DatabaseCacheImpl(String tableName, SharedDatabaseCache sharedCache, int hashSeed) {
+        this.tableName = tableName;
+        this.sharedCache = sharedCache;
+        this.hashSeed = hashSeed;
+    }
 
-    DatabaseCacheImpl() {
-        this.dbCacheMap = new LinkedHashMap<>(CAPACITY, 1f, true) {
-            protected boolean removeEldestEntry(Map.Entry eldest) {
-                return size() > CAPACITY;
-            }
-        };
+    @Override
+    public byte[] get(DatabaseKey key) {
+        SharedDatabaseCache.Node node = nodes.get(key);
+        sharedCache.onRead(this, key, node);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        byte[] value = sharedCache.read(node);
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return value;
     }
 
     @Override
-    public byte[] get(String key) {
-        return dbCacheMap.get(key);
+    public ValueView retain(DatabaseKey key) {
+        SharedDatabaseCache.Node node = nodes.get(key);
+        sharedCache.onRead(this, key, node);
+        ValueView value = node != null ? sharedCache.retain(node) : null;
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return value;
     }
 
     @Override
-    public void set(String key, byte[] value) {
-        dbCacheMap.put(key, value);
+    public void set(DatabaseKey key, byte[] value) {
+        sharedCache.put(this, key, value);
     }
 
     @Override
-    public void delete(String key) {
-        dbCacheMap.remove(key);
+    public void delete(DatabaseKey key) {
+        sharedCache.remove(this, key);
+    }
+
+    @Override
+    public List<DatabaseKey> hotKeys(int limit) {
+        return sharedCache.hotKeys(this, limit);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Сколько байт общего бюджета занимают записи таблицы
+     */
+    public long getBytes() {
+        return bytes;
     }
 }
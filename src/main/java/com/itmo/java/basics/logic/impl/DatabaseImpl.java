@@ -1,33 +1,59 @@
 package com.itmo.java.basics.logic.impl;
 
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.TableConfig;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.initialization.DatabaseInitializationContext;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.DatabaseKey;
 import com.itmo.java.basics.logic.Table;
+import com.itmo.java.basics.logic.ValueView;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DatabaseImpl implements Database {
     private final Path databasePath;
+    private final DatabaseConfig config;
+    private final SharedDatabaseCache cache;
     private final Map<String, Table> tables;
 
-    private DatabaseImpl(Path databasePath) {
+    private DatabaseImpl(Path databasePath, DatabaseConfig config, SharedDatabaseCache cache) {
         this.databasePath = databasePath;
-        this.tables = new HashMap<>();
+        this.config = config;
+        this.cache = cache;
+        this.tables = new ConcurrentHashMap<>();
     }
-    private DatabaseImpl(Path databasePath, Map<String, Table> tables) {
+    private DatabaseImpl(Path databasePath, DatabaseConfig config, SharedDatabaseCache cache, Map<String, Table> tables) {
         this.databasePath = databasePath;
-        this.tables = tables;
+        this.config = config;
+        this.cache = cache;
+        this.tables = new ConcurrentHashMap<>(tables);
     }
 
     public static Database create(String dbName, Path databaseRoot) throws DatabaseException {
+        return create(dbName, databaseRoot, new DatabaseConfig(databaseRoot.toString()));
+    }
+
+    public static Database create(String dbName, Path databaseRoot, DatabaseConfig config) throws DatabaseException {
+        return create(dbName, databaseRoot, config,
+                SharedDatabaseCache.create(config.getCacheMaxBytes(), config.isCacheOffHeap()));
+    }
+
+    /**
+     * @param config конфиг, из которого берутся настройки создаваемых таблиц
+     * @param cache  кэш значений, общий для таблиц сервера
+     */
+    public static Database create(String dbName, Path databaseRoot, DatabaseConfig config, SharedDatabaseCache cache)
+            throws DatabaseException {
         if (dbName == null) {
             throw new DatabaseException("Database name is null");
         }
@@ -38,11 +64,21 @@ public class DatabaseImpl implements Database {
             throw new DatabaseException(String.format("IO exception when creating database %s to path %s",
                     dbName, databaseRoot), e);
         }
-        return new DatabaseImpl(databasePath);
+        return new DatabaseImpl(databasePath, config, cache);
     }
 
     public static Database initializeFromContext(DatabaseInitializationContext context) {
-        return new DatabaseImpl(context.getDatabasePath(), context.getTables());
+        return initializeFromContext(context, new DatabaseConfig(context.getDatabasePath().getParent().toString()));
+    }
+
+    public static Database initializeFromContext(DatabaseInitializationContext context, DatabaseConfig config) {
+        return initializeFromContext(context, config,
+                SharedDatabaseCache.create(config.getCacheMaxBytes(), config.isCacheOffHeap()));
+    }
+
+    public static Database initializeFromContext(DatabaseInitializationContext context, DatabaseConfig config,
+                                                 SharedDatabaseCache cache) {
+        return new DatabaseImpl(context.getDatabasePath(), config, cache, context.getTables());
     }
 
     @Override
@@ -51,15 +87,17 @@ public class DatabaseImpl implements Database {
     }
 
     @Override
-    public void createTableIfNotExists(String tableName) throws DatabaseException {
+    public synchronized void createTableIfNotExists(String tableName) throws DatabaseException {
         if (tables.containsKey(tableName)) {
             throw new DatabaseException(String.format("Table with name %s already exists", tableName));
         }
-        tables.put(tableName, TableImpl.create(tableName, databasePath, new TableIndex()));
+        TableConfig tableConfig = config.getTableConfig(getName(), tableName);
+        tables.put(tableName, TableImpl.create(tableName, databasePath, TableIndex.create(tableConfig), tableConfig,
+                cache));
     }
 
     @Override
-    public void write(String tableName, String objectKey, byte[] objectValue) throws DatabaseException {
+    public void write(String tableName, DatabaseKey objectKey, byte[] objectValue) throws DatabaseException {
         if (!tables.containsKey(tableName)) {
             throw new DatabaseException(String.format("Nonexistent table with name %s", tableName));
         }
@@ -67,7 +105,7 @@ public class DatabaseImpl implements Database {
     }
 
     @Override
-    public Optional<byte[]> read(String tableName, String objectKey) throws DatabaseException {
+    public Optional<byte[]> read(String tableName, DatabaseKey objectKey) throws DatabaseException {
         if (!tables.containsKey(tableName)) {
             throw new DatabaseException(String.format("Nonexistent table with name %s", tableName));
         }
@@ -75,10 +113,51 @@ public class DatabaseImpl implements Database {
     }
 
     @Override
-    public void delete(String tableName, String objectKey) throws DatabaseException {
+    public Optional<ValueView> readView(String tableName, DatabaseKey objectKey) throws DatabaseException {
+        if (!tables.containsKey(tableName)) {
+            throw new DatabaseException(String.format("Nonexistent table with name %s", tableName));
+        }
+        return tables.get(tableName).readView(objectKey);
+    }
+
+    @Override
+    public void writeAll(String tableName, List<DatabaseKey> objectKeys, List<byte[]> objectValues)
+            throws DatabaseException {
+        if (!tables.containsKey(tableName)) {
+            throw new DatabaseException(String.format("Nonexistent table with name %s", tableName));
+        }
+        tables.get(tableName).writeAll(objectKeys, objectValues);
+    }
+
+    @Override
+    public List<Optional<byte[]>> readAll(String tableName, List<DatabaseKey> objectKeys) throws DatabaseException {
+        if (!tables.containsKey(tableName)) {
+            throw new DatabaseException(String.format("Nonexistent table with name %s", tableName));
+        }
+        return tables.get(tableName).readAll(objectKeys);
+    }
+
+    @Override
+    public void delete(String tableName, DatabaseKey objectKey) throws DatabaseException {
         if (!tables.containsKey(tableName)) {
             throw new DatabaseException(String.format("Nonexistent table with name %s", tableName));
         }
         tables.get(tableName).delete(objectKey);
     }
+
+    @Override
+    public SortedMap<DatabaseKey, byte[]> scan(String tableName, DatabaseKey fromKey, boolean fromInclusive,
+                                               DatabaseKey toKey, int limit) throws DatabaseException {
+        if (!tables.containsKey(tableName)) {
+            throw new DatabaseException(String.format("Nonexistent table with name %s", tableName));
+        }
+        return tables.get(tableName).scan(fromKey, fromInclusive, toKey, limit);
+    }
+
+    @Override
+    public void close() throws DatabaseException {
+        for (Table table : tables.values()) {
+            table.close();
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.DurabilityMode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пишет записи в файл сегмента и сбрасывает их на диск пачками (group commit).
+ * Запись в файл идет под блокировкой таблицы и только дописывает байты, fsync делается уже без нее:
+ * писатель ждет в {@link #awaitDurable(long)}, пока на диск не попадет все до конца его записи.
+ * Первый из ждущих, кто не застал идущий fsync, сам делает его для всего записанного к этому моменту,
+ * остальные ждут его. Так один fsync покрывает записи всех писателей, успевших записать до него
+ */
+class GroupCommitWriter implements Closeable {
+    private static final ScheduledExecutorService INTERVAL_SYNC_EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "segment-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final FileChannel channel;
+    private final DurabilityMode durabilityMode;
+    private final ScheduledFuture<?> intervalSync;
+    /**
+     * Конец записанного в файл. Пишет только поток, держащий блокировку таблицы
+     */
+    private volatile long writtenPosition;
+    /**
+     * Конец того, что уже сброшено на диск
+     */
+    private long syncedPosition;
+    private boolean syncing;
+    private boolean closed;
+
+    /**
+     * @param position размер файла на момент открытия: все, что в нем уже есть, считается сброшенным
+     */
+    GroupCommitWriter(FileChannel channel, long position, DurabilityMode durabilityMode, long fsyncIntervalMillis) {
+        this.channel = channel;
+        this.durabilityMode = durabilityMode;
+        this.writtenPosition = position;
+        this.syncedPosition = position;
+        this.syncing = false;
+        this.closed = false;
+        this.intervalSync = durabilityMode == DurabilityMode.INTERVAL
+                ? INTERVAL_SYNC_EXECUTOR.scheduleWithFixedDelay(this::syncWritten,
+                fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    /**
+     * Дописывает запись в файл без fsync
+     *
+     * @param record байты записи
+     * @return конец записи в файле
+     * @throws IOException если запись не удалась
+     */
+    long append(ByteBuffer record) throws IOException {
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        writtenPosition += record.limit();
+        return writtenPosition;
+    }
+
+    /**
+     * Для {@link DurabilityMode#EVERY_BATCH} дожидается, пока записанное до position будет сброшено на диск.
+     * Вызывается без блокировки таблицы
+     *
+     * @throws IOException если fsync не удался
+     */
+    void awaitDurable(long position) throws IOException {
+        if (durabilityMode == DurabilityMode.EVERY_BATCH) {
+            sync(position);
+        }
+    }
+
+    private void sync(long position) throws IOException {
+        long target;
+        synchronized (this) {
+            while (syncedPosition < position && syncing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for group commit", e);
+                }
+            }
+            if (syncedPosition >= position) {
+                return;
+            }
+            if (closed) {
+                throw new IOException("Segment was closed before its records were synced");
+            }
+            syncing = true;
+            target = writtenPosition;
+        }
+        boolean synced = false;
+        try {
+            channel.force(false);
+            synced = true;
+        } finally {
+            synchronized (this) {
+                syncing = false;
+                if (synced) {
+                    syncedPosition = Math.max(syncedPosition, target);
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    private void syncWritten() {
+        try {
+            sync(writtenPosition);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Дожидается идущего fsync, сбрасывает на диск то, что еще не было сброшено
+     * (кроме {@link DurabilityMode#NONE}), и закрывает канал
+     */
+    @Override
+    public void close() throws IOException {
+        if (intervalSync != null) {
+            intervalSync.cancel(false);
+        }
+        synchronized (this) {
+            while (syncing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            closed = true;
+            try {
+                if (durabilityMode != DurabilityMode.NONE && syncedPosition < writtenPosition) {
+                    channel.force(false);
+                }
+                syncedPosition = writtenPosition;
+            } finally {
+                notifyAll();
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.logic.DatabaseKey;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Самые часто читаемые ключи таблицы, сохраненные на диск, чтобы после перезапуска заранее загрузить их в кэш.
+ * <p>
+ * Формат: магическое число, количество ключей, для каждого ключа keySize (int) и key, от самого частого
+ * к самому редкому. В конце - CRC32 всего содержимого. Пишется во временный файл и переименовывается,
+ * как {@link IndexCheckpoint}
+ */
+public final class HotKeySnapshot {
+    public static final String FILE_NAME = "hot.keys";
+    private static final String TEMPORARY_FILE_NAME = FILE_NAME + ".tmp";
+    private static final int MAGIC = 0x4B56484B;
+
+    private HotKeySnapshot() {
+    }
+
+    static void write(Path tablePath, List<DatabaseKey> keys) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(bytes);
+        outputStream.writeInt(MAGIC);
+        outputStream.writeInt(keys.size());
+        for (DatabaseKey key : keys) {
+            outputStream.writeInt(key.length());
+            outputStream.write(key.getBytes());
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes.toByteArray());
+        outputStream.writeLong(checksum.getValue());
+
+        Path temporaryPath = tablePath.resolve(TEMPORARY_FILE_NAME);
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temporaryPath, tablePath.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Читает сохраненные ключи таблицы
+     *
+     * @return ключи от самого частого к самому редкому или {@link Optional#empty()}, если файла нет или он поврежден
+     */
+    static Optional<List<DatabaseKey>> read(Path tablePath) throws IOException {
+        Path snapshotPath = tablePath.resolve(FILE_NAME);
+        if (!Files.exists(snapshotPath)) {
+            return Optional.empty();
+        }
+        byte[] bytes = Files.readAllBytes(snapshotPath);
+        if (bytes.length < Long.BYTES) {
+            return Optional.empty();
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 0, bytes.length - Long.BYTES);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getLong(bytes.length - Long.BYTES) != checksum.getValue()) {
+            return Optional.empty();
+        }
+        buffer.limit(bytes.length - Long.BYTES);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                return Optional.empty();
+            }
+            int count = buffer.getInt();
+            List<DatabaseKey> keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                keys.add(DatabaseKey.wrap(key));
+            }
+            return Optional.of(keys);
+        } catch (BufferUnderflowException e) {
+            return Optional.empty();
+        }
+    }
+}
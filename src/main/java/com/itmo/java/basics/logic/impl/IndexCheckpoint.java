@@ -0,0 +1,212 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.logic.DatabaseKey;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Снимок индекса таблицы на диске. При старте по нему восстанавливается индекс, а дочитывается
+ * только то, что было записано в сегменты после снимка.
+ * <p>
+ * Формат: магическое число, количество сегментов, для каждого сегмента имя и размер на момент снимка,
+ * затем для каждого ключа keySize (int), key, номер сегмента в списке (int), смещение записи (long).
+ * В конце - CRC32 всего содержимого. Снимок пишется потоком во временный файл, сбрасывается на диск
+ * и переименовывается, поэтому на диске всегда лежит либо старый, либо новый снимок целиком
+ */
+public final class IndexCheckpoint {
+    public static final String FILE_NAME = "index.checkpoint";
+    private static final String TEMPORARY_PREFIX = FILE_NAME + ".";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x4B564943;
+
+    private final List<String> segmentNames;
+    private final List<Long> segmentSizes;
+    private final ByteBuffer entries;
+
+    private IndexCheckpoint(List<String> segmentNames, List<Long> segmentSizes, ByteBuffer entries) {
+        this.segmentNames = segmentNames;
+        this.segmentSizes = segmentSizes;
+        this.entries = entries;
+    }
+
+    /**
+     * Имена сегментов, попавших в снимок, в порядке их создания
+     */
+    public List<String> getSegmentNames() {
+        return segmentNames;
+    }
+
+    /**
+     * Размер сегмента на момент снимка
+     */
+    public long getSegmentSize(int segment) {
+        return segmentSizes.get(segment);
+    }
+
+    /**
+     * Обходит ключи снимка
+     */
+    public void forEachEntry(EntryConsumer action) {
+        ByteBuffer buffer = entries.duplicate();
+        while (buffer.hasRemaining()) {
+            byte[] key = new byte[buffer.getInt()];
+            buffer.get(key);
+            action.accept(DatabaseKey.wrap(key), buffer.getInt(), buffer.getLong());
+        }
+    }
+
+    /**
+     * Начинает запись снимка: создает временный файл и пишет в него заголовок с сегментами снимка
+     *
+     * @param segmentNames имена сегментов таблицы в порядке создания
+     * @param segmentSizes размеры сегментов на момент снимка
+     */
+    static Writer writer(Path tablePath, List<String> segmentNames, List<Long> segmentSizes) throws IOException {
+        return new Writer(tablePath, segmentNames, segmentSizes);
+    }
+
+    /**
+     * Удаляет временные файлы снимков, оставшиеся от прерванной записи. Вызывается при старте таблицы
+     */
+    public static void deleteTemporaryFiles(Path tablePath) throws IOException {
+        try (var files = Files.list(tablePath)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (isTemporaryFile(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static boolean isTemporaryFile(String fileName) {
+        return fileName.startsWith(TEMPORARY_PREFIX) && fileName.endsWith(TEMPORARY_SUFFIX);
+    }
+
+    /**
+     * Пишет снимок потоком в свой временный файл, так что снимок при закрытии таблицы не мешает фоновому.
+     * Снимок появляется на месте старого только после {@link #commit()}; если закрыть writer без него,
+     * временный файл удаляется
+     */
+    static final class Writer implements Closeable {
+        private final Path tablePath;
+        private final Path temporaryPath;
+        private final FileOutputStream fileOutputStream;
+        private final CheckedOutputStream checkedOutputStream;
+        private final DataOutputStream outputStream;
+        private boolean committed;
+
+        private Writer(Path tablePath, List<String> segmentNames, List<Long> segmentSizes) throws IOException {
+            this.tablePath = tablePath;
+            this.temporaryPath = Files.createTempFile(tablePath, TEMPORARY_PREFIX, TEMPORARY_SUFFIX);
+            this.fileOutputStream = new FileOutputStream(temporaryPath.toFile());
+            this.checkedOutputStream = new CheckedOutputStream(new BufferedOutputStream(fileOutputStream), new CRC32());
+            this.outputStream = new DataOutputStream(checkedOutputStream);
+            try {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(segmentNames.size());
+                for (int i = 0; i < segmentNames.size(); i++) {
+                    outputStream.writeUTF(segmentNames.get(i));
+                    outputStream.writeLong(segmentSizes.get(i));
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * @param segment номер сегмента в списке сегментов снимка
+         */
+        void writeEntry(DatabaseKey key, int segment, long offset) throws IOException {
+            outputStream.writeInt(key.length());
+            outputStream.write(key.getBytes());
+            outputStream.writeInt(segment);
+            outputStream.writeLong(offset);
+        }
+
+        /**
+         * Дописывает контрольную сумму, сбрасывает файл на диск и переименовывает его на место снимка
+         */
+        void commit() throws IOException {
+            outputStream.writeLong(checkedOutputStream.getChecksum().getValue());
+            outputStream.flush();
+            fileOutputStream.getChannel().force(true);
+            outputStream.close();
+            Files.move(temporaryPath, tablePath.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            try {
+                outputStream.close();
+            } finally {
+                Files.deleteIfExists(temporaryPath);
+            }
+        }
+    }
+
+    /**
+     * Читает снимок индекса таблицы
+     *
+     * @return снимок или {@link Optional#empty()}, если его нет или он поврежден
+     */
+    public static Optional<IndexCheckpoint> read(Path tablePath) throws IOException {
+        Path checkpointPath = tablePath.resolve(FILE_NAME);
+        if (!Files.exists(checkpointPath)) {
+            return Optional.empty();
+        }
+        byte[] bytes = Files.readAllBytes(checkpointPath);
+        if (bytes.length < Long.BYTES) {
+            return Optional.empty();
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 0, bytes.length - Long.BYTES);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getLong(bytes.length - Long.BYTES) != checksum.getValue()) {
+            return Optional.empty();
+        }
+        buffer.limit(bytes.length - Long.BYTES);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                return Optional.empty();
+            }
+            int segmentCount = buffer.getInt();
+            List<String> segmentNames = new ArrayList<>(segmentCount);
+            List<Long> segmentSizes = new ArrayList<>(segmentCount);
+            for (int i = 0; i < segmentCount; i++) {
+                byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+                buffer.get(name);
+                segmentNames.add(new String(name, StandardCharsets.UTF_8));
+                segmentSizes.add(buffer.getLong());
+            }
+            return Optional.of(new IndexCheckpoint(segmentNames, segmentSizes, buffer.slice()));
+        } catch (BufferUnderflowException e) {
+            return Optional.empty();
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(DatabaseKey key, int segment, long offset);
+    }
+}
@@ -0,0 +1,43 @@
+package com.itmo.java.basics.logic.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Притормаживает фоновый ввод-вывод, чтобы он не превышал заданное число байт в секунду
+ */
+class IoRateLimiter {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long bytesPerSecond;
+    private long windowStart;
+    private long bytesInWindow;
+
+    /**
+     * @param bytesPerSecond ограничение скорости. 0 - без ограничения
+     */
+    IoRateLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.windowStart = System.nanoTime();
+        this.bytesInWindow = 0;
+    }
+
+    /**
+     * Учитывает обработанные байты и засыпает, если лимит на текущую секунду уже исчерпан
+     */
+    void acquire(long bytes) throws InterruptedException {
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long elapsed = System.nanoTime() - windowStart;
+        if (elapsed >= WINDOW_NANOS) {
+            windowStart += elapsed;
+            bytesInWindow = 0;
+            elapsed = 0;
+        }
+        bytesInWindow += bytes;
+        long allowedAt = bytesInWindow * WINDOW_NANOS / bytesPerSecond;
+        if (allowedAt > elapsed) {
+            TimeUnit.NANOSECONDS.sleep(allowedAt - elapsed);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.TableConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отображения read-only сегментов таблицы в память.
+ * Суммарный размер отображений ограничен, дольше всех не читавшиеся сегменты вытесняются.
+ * Сам файл освобождается сборщиком мусора, когда на вытесненный буфер не остается ссылок.
+ * <p>
+ * Уже созданное отображение берется из {@link ConcurrentHashMap} без блокировки, чтение только отмечает
+ * время обращения. Блокировка нужна лишь для создания отображения и вытеснения
+ */
+public class MappedSegmentCache {
+    private static final MappedSegmentCache DISABLED = new MappedSegmentCache(0);
+
+    private final long maxMappedBytes;
+    private final Map<String, Mapping> mappings;
+    /**
+     * Меняется только под блокировкой
+     */
+    private long mappedBytes;
+
+    public MappedSegmentCache(long maxMappedBytes) {
+        this.maxMappedBytes = maxMappedBytes;
+        this.mappings = new ConcurrentHashMap<>();
+        this.mappedBytes = 0;
+    }
+
+    public static MappedSegmentCache create(TableConfig config) {
+        return config.isMappedReads() ? new MappedSegmentCache(config.getMaxMappedBytes()) : DISABLED;
+    }
+
+    public static MappedSegmentCache disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Возвращает отображение сегмента, при необходимости создавая его.
+     *
+     * @param segmentName имя сегмента
+     * @param size        размер сегмента
+     * @param mapper      отображает файл сегмента указанного размера
+     * @return независимую копию отображения или {@link Optional#empty()}, если сегмент не помещается в лимит
+     * @throws IOException если не удалось отобразить файл
+     */
+    Optional<ByteBuffer> getMapping(String segmentName, long size, Mapper mapper) throws IOException {
+        Mapping mapping = mappings.get(segmentName);
+        if (mapping == null) {
+            if (size > maxMappedBytes) {
+                return Optional.empty();
+            }
+            mapping = createMapping(segmentName, size, mapper);
+        }
+        mapping.lastUsed = System.nanoTime();
+        return Optional.of(mapping.buffer.duplicate());
+    }
+
+    private synchronized Mapping createMapping(String segmentName, long size, Mapper mapper) throws IOException {
+        Mapping mapping = mappings.get(segmentName);
+        if (mapping == null) {
+            evict(maxMappedBytes - size);
+            mapping = new Mapping(mapper.map(size));
+            mappings.put(segmentName, mapping);
+            mappedBytes += size;
+        }
+        return mapping;
+    }
+
+    /**
+     * Убирает отображение сегмента, например перед удалением или закрытием его файла
+     */
+    synchronized void release(String segmentName) {
+        Mapping mapping = mappings.remove(segmentName);
+        if (mapping != null) {
+            mappedBytes -= mapping.buffer.capacity();
+        }
+    }
+
+    private void evict(long targetBytes) {
+        while (mappedBytes > targetBytes && !mappings.isEmpty()) {
+            Map.Entry<String, Mapping> coldest = null;
+            for (Map.Entry<String, Mapping> candidate : mappings.entrySet()) {
+                if (coldest == null || candidate.getValue().lastUsed < coldest.getValue().lastUsed) {
+                    coldest = candidate;
+                }
+            }
+            release(coldest.getKey());
+        }
+    }
+
+    private static final class Mapping {
+        private final MappedByteBuffer buffer;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Mapping(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    @FunctionalInterface
+    interface Mapper {
+        MappedByteBuffer map(long size) throws IOException;
+    }
+}
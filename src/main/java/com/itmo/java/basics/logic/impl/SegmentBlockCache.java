@@ -0,0 +1,174 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.TableConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш блоков файлов сегментов таблицы. Файл сегмента делится на блоки фиксированного размера,
+ * прочитанный блок остается в памяти, и соседние записи читаются уже без обращения к файлу.
+ * Суммарный размер блоков ограничен, дольше всех не читавшиеся блоки вытесняются.
+ * <p>
+ * Чтобы читатели не сталкивались на одной блокировке, блоки разложены по нескольким частям по хэшу ключа.
+ * У каждой части свой LRU, своя блокировка и равная доля бюджета
+ * <p>
+ * Сегменты только дописываются, поэтому записанные байты блока не меняются. Последний блок
+ * изменяемого сегмента может быть прочитан не целиком: если нужных байт в нем еще нет, он перечитывается
+ */
+public class SegmentBlockCache {
+    private static final SegmentBlockCache DISABLED = new SegmentBlockCache(0, 1);
+    private static final int MAX_STRIPES = 16;
+
+    private final long maxBytes;
+    private final int blockSize;
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SegmentBlockCache(long maxBytes, int blockSize) {
+        this.maxBytes = maxBytes;
+        this.blockSize = blockSize;
+        // в каждой части должен помещаться хотя бы один блок
+        int stripeCount = (int) Math.max(1, Math.min(MAX_STRIPES, maxBytes / Math.max(1, blockSize)));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(maxBytes / stripeCount);
+        }
+    }
+
+    public static SegmentBlockCache create(TableConfig config) {
+        return config.getBlockCacheBytes() > 0
+                ? new SegmentBlockCache(config.getBlockCacheBytes(), config.getBlockSize())
+                : DISABLED;
+    }
+
+    public static SegmentBlockCache disabled() {
+        return DISABLED;
+    }
+
+    boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Возвращает блок сегмента, при необходимости читая его
+     *
+     * @param block     номер блока
+     * @param minLength сколько байт с начала блока нужно прочитать
+     * @param loader    читает блок из файла
+     * @return блок, в котором не меньше minLength байт
+     */
+    ByteBuffer getBlock(String segmentName, long block, int minLength, BlockLoader loader) throws IOException {
+        BlockKey key = new BlockKey(segmentName, block);
+        Stripe stripe = stripes[Math.floorMod(key.hashCode(), stripes.length)];
+        byte[] cached = stripe.get(key);
+        if (cached != null && cached.length >= minLength) {
+            hits.increment();
+            return ByteBuffer.wrap(cached);
+        }
+        misses.increment();
+        byte[] loaded = loader.load(block);
+        stripe.put(key, loaded);
+        return ByteBuffer.wrap(loaded);
+    }
+
+    /**
+     * Убирает блоки сегмента, например перед удалением или закрытием его файла
+     */
+    void release(String segmentName) {
+        for (Stripe stripe : stripes) {
+            stripe.release(segmentName);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Часть кэша со своим LRU и своей долей бюджета
+     */
+    private static final class Stripe {
+        private final long maxBytes;
+        private final Map<BlockKey, byte[]> blocks = new LinkedHashMap<>(16, 0.75f, true);
+        private long cachedBytes;
+
+        private Stripe(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized byte[] get(BlockKey key) {
+            return blocks.get(key);
+        }
+
+        private synchronized void put(BlockKey key, byte[] block) {
+            if (block.length > maxBytes) {
+                return;
+            }
+            byte[] previous = blocks.put(key, block);
+            cachedBytes += block.length - (previous != null ? previous.length : 0);
+            Iterator<byte[]> coldest = blocks.values().iterator();
+            while (cachedBytes > maxBytes && coldest.hasNext()) {
+                cachedBytes -= coldest.next().length;
+                coldest.remove();
+            }
+        }
+
+        private synchronized void release(String segmentName) {
+            Iterator<Map.Entry<BlockKey, byte[]>> iterator = blocks.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<BlockKey, byte[]> entry = iterator.next();
+                if (entry.getKey().segmentName.equals(segmentName)) {
+                    cachedBytes -= entry.getValue().length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface BlockLoader {
+        byte[] load(long block) throws IOException;
+    }
+
+    private static final class BlockKey {
+        private final String segmentName;
+        private final long block;
+
+        private BlockKey(String segmentName, long block) {
+            this.segmentName = segmentName;
+            this.block = block;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BlockKey)) {
+                return false;
+            }
+            BlockKey other = (BlockKey) o;
+            return block == other.block && segmentName.equals(other.segmentName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(segmentName, block);
+        }
+    }
+}
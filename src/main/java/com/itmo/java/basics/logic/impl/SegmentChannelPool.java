@@ -0,0 +1,103 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.TableConfig;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Открытые на чтение каналы сегментов таблицы. Одновременно открыто не больше заданного числа каналов:
+ * когда лимит превышен, закрывается канал, из которого дольше всех не читали, и сегмент при следующем
+ * чтении открывает файл заново. Так таблица из десятков тысяч сегментов не упирается в лимит дескрипторов.
+ * <p>
+ * Чтение удерживает канал счетчиком ссылок, поэтому вытесненный канал закрывается, только когда
+ * закончатся начатые через него чтения. Взять уже открытый канал можно без блокировки
+ */
+public class SegmentChannelPool {
+    private final int maxOpenChannels;
+    private final Set<PooledChannel> openChannels = new HashSet<>();
+
+    public SegmentChannelPool(int maxOpenChannels) {
+        this.maxOpenChannels = Math.max(1, maxOpenChannels);
+    }
+
+    public static SegmentChannelPool create(TableConfig config) {
+        return new SegmentChannelPool(config.getMaxOpenSegmentFiles());
+    }
+
+    /**
+     * Открывает канал на чтение файла и, если открытых каналов стало больше лимита, вытесняет самый давний
+     *
+     * @return канал, уже удерживаемый вызывающим: его нужно отпустить через {@link PooledChannel#release()}
+     */
+    synchronized PooledChannel open(Path path) throws IOException {
+        PooledChannel channel = new PooledChannel(FileChannel.open(path, StandardOpenOption.READ));
+        openChannels.add(channel);
+        while (openChannels.size() > maxOpenChannels) {
+            PooledChannel coldest = null;
+            for (PooledChannel candidate : openChannels) {
+                if (candidate != channel && (coldest == null || candidate.lastUsed < coldest.lastUsed)) {
+                    coldest = candidate;
+                }
+            }
+            evict(coldest);
+        }
+        return channel;
+    }
+
+    /**
+     * Убирает канал из пула. Закрывается он, когда его отпустит последнее чтение
+     */
+    synchronized void evict(PooledChannel channel) throws IOException {
+        if (openChannels.remove(channel)) {
+            channel.release();
+        }
+    }
+
+    synchronized int getOpenChannels() {
+        return openChannels.size();
+    }
+
+    static final class PooledChannel {
+        private final FileChannel channel;
+        /**
+         * Одна ссылка у пула и по одной у каждого незаконченного чтения
+         */
+        private final AtomicInteger references = new AtomicInteger(2);
+        private volatile long lastUsed = System.nanoTime();
+
+        private PooledChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        FileChannel channel() {
+            return channel;
+        }
+
+        /**
+         * @return false, если канал уже закрыт или закрывается
+         */
+        boolean retain() {
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            lastUsed = System.nanoTime();
+            return true;
+        }
+
+        void release() throws IOException {
+            if (references.decrementAndGet() == 0) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.index.impl.SegmentIndex;
+import com.itmo.java.basics.index.impl.SegmentLocation;
+import com.itmo.java.basics.index.impl.SegmentOffsetInfoImpl;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.Segment;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Сливает read-only сегменты таблицы в новые, оставляя только последнее живое значение каждого ключа.
+ * Живые записи копируются из старых сегментов с ограничением скорости, новые пишутся во временные файлы
+ * и переименовываются только после того, как полностью записаны и сброшены на диск
+ */
+class SegmentCompactor {
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path tablePath;
+    private final String tableName;
+    private final TableConfig config;
+    private final MappedSegmentCache mappedSegmentCache;
+    private final SegmentBlockCache blockCache;
+    private final SegmentChannelPool channelPool;
+
+    SegmentCompactor(Path tablePath, String tableName, TableConfig config, MappedSegmentCache mappedSegmentCache,
+                     SegmentBlockCache blockCache, SegmentChannelPool channelPool) {
+        this.tablePath = tablePath;
+        this.tableName = tableName;
+        this.config = config;
+        this.mappedSegmentCache = mappedSegmentCache;
+        this.blockCache = blockCache;
+        this.channelPool = channelPool;
+    }
+
+    /**
+     * Сливает переданные сегменты. Сегменты должны быть самыми старыми в таблице и идти в порядке создания,
+     * тогда удаленные ключи можно не переносить: более старых значений для них не останется.
+     * <p>
+     * В памяти держится только положение последней записи каждого ключа: сначала по подсказкам или заголовкам
+     * записей собираются положения, затем живые записи копируются из старых сегментов в новые
+     *
+     * @param inputs read-only сегменты, которые нужно слить
+     * @return новые сегменты и ключи, которые в них попали или были выброшены как удаленные
+     * @throws IOException          если произошла ошибка ввода-вывода
+     * @throws InterruptedException если поток был прерван во время ожидания ограничителя скорости
+     */
+    CompactionResult compact(List<Segment> inputs) throws IOException, InterruptedException {
+        IoRateLimiter rateLimiter = new IoRateLimiter(config.getCompactionBytesPerSecond());
+        Map<DatabaseKey, RecordLocation> latest = new HashMap<>();
+        for (int input = 0; input < inputs.size(); input++) {
+            Path inputPath = tablePath.resolve(inputs.get(input).getName());
+            Optional<List<SegmentHintFile.Entry>> hints = SegmentHintFile.read(inputPath);
+            List<SegmentHintFile.Entry> entries = hints.isPresent()
+                    ? hints.get()
+                    : SegmentHintFile.scan(inputPath, inputs.get(input).size());
+            for (SegmentHintFile.Entry entry : entries) {
+                if (hints.isEmpty()) {
+                    rateLimiter.acquire(Integer.BYTES + entry.getKey().length + Integer.BYTES);
+                }
+                latest.put(DatabaseKey.wrap(entry.getKey()),
+                        new RecordLocation(input, entry.getOffset(), entry.getSize(), entry.isRemoved()));
+            }
+        }
+
+        long createdAt = SegmentImpl.segmentCreatedAt(tableName, inputs.get(0).getName());
+        long generation = 0;
+        for (Segment input : inputs) {
+            if (SegmentImpl.segmentCreatedAt(tableName, input.getName()) == createdAt) {
+                generation = Math.max(generation, SegmentImpl.segmentGeneration(tableName, input.getName()));
+            }
+        }
+
+        CompactionResult result = new CompactionResult();
+        List<Map.Entry<DatabaseKey, RecordLocation>> live = new ArrayList<>();
+        for (Map.Entry<DatabaseKey, RecordLocation> entry : latest.entrySet()) {
+            if (entry.getValue().removed) {
+                result.removedKeys.add(entry.getKey());
+            } else {
+                live.add(entry);
+            }
+        }
+        live.sort(Comparator.comparingInt((Map.Entry<DatabaseKey, RecordLocation> entry) -> entry.getValue().input)
+                .thenComparingLong(entry -> entry.getValue().offset));
+
+        FileChannel[] sources = new FileChannel[inputs.size()];
+        try {
+            for (int input = 0; input < inputs.size(); input++) {
+                sources[input] = FileChannel.open(tablePath.resolve(inputs.get(input).getName()),
+                        StandardOpenOption.READ);
+            }
+            int from = 0;
+            long batchSize = 0;
+            for (int i = 0; i < live.size(); i++) {
+                batchSize += live.get(i).getValue().size;
+                if (batchSize >= SegmentImpl.MAX_SEGMENT_SIZE || i == live.size() - 1) {
+                    result.segments.add(writeSegment(SegmentImpl.createCompactedSegmentName(tableName, createdAt,
+                            ++generation), live.subList(from, i + 1), sources, rateLimiter, result));
+                    from = i + 1;
+                    batchSize = 0;
+                }
+            }
+        } finally {
+            for (FileChannel source : sources) {
+                if (source != null) {
+                    source.close();
+                }
+            }
+        }
+        return result;
+    }
+
+    private SegmentImpl writeSegment(String segmentName, List<Map.Entry<DatabaseKey, RecordLocation>> records,
+                                     FileChannel[] sources, IoRateLimiter rateLimiter, CompactionResult result)
+            throws IOException, InterruptedException {
+        Path temporaryPath = tablePath.resolve(segmentName + TEMPORARY_SUFFIX);
+        Path segmentPath = tablePath.resolve(segmentName);
+        SegmentIndex segmentIndex = SegmentIndex.create(config);
+        List<SegmentHintFile.Entry> hints = new ArrayList<>();
+        long offset = 0;
+        try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryPath.toFile());
+             BufferedOutputStream outputStream = new BufferedOutputStream(fileOutputStream)) {
+            for (Map.Entry<DatabaseKey, RecordLocation> entry : records) {
+                RecordLocation location = entry.getValue();
+                rateLimiter.acquire(location.size);
+                outputStream.write(readRecord(sources[location.input], location));
+                segmentIndex.onIndexedEntityUpdated(entry.getKey(), new SegmentOffsetInfoImpl(offset));
+                hints.add(new SegmentHintFile.Entry(entry.getKey().getBytes(), offset, location.size, false));
+                offset += location.size;
+            }
+            outputStream.flush();
+            fileOutputStream.getChannel().force(true);
+        }
+        Files.move(temporaryPath, segmentPath, StandardCopyOption.ATOMIC_MOVE);
+        SegmentHintFile.write(segmentPath, offset, hints);
+        SegmentImpl segment = SegmentImpl.fromCompactedFile(segmentPath, segmentIndex, offset, config,
+                mappedSegmentCache, blockCache, channelPool);
+        for (SegmentHintFile.Entry hint : hints) {
+            result.liveKeys.put(DatabaseKey.wrap(hint.getKey()), new SegmentLocation(segment, hint.getOffset()));
+        }
+        return segment;
+    }
+
+    /**
+     * Читает запись целиком, вместе с заголовком, как она лежит в старом сегменте
+     */
+    private static byte[] readRecord(FileChannel source, RecordLocation location) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(location.size);
+        long position = location.offset;
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException(String.format("Unexpected end of segment at position %d", position));
+            }
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Удаляет недописанные временные файлы сегментов, оставшиеся от прерванной компакции.
+     * Остальные временные файлы таблицы не трогаются: их одновременно могут дописывать фоновые работы
+     */
+    static void deleteTemporaryFiles(Path tablePath, String tableName) throws IOException {
+        try (var files = Files.list(tablePath)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(TEMPORARY_SUFFIX) && SegmentImpl.isSegmentName(tableName,
+                        fileName.substring(0, fileName.length() - TEMPORARY_SUFFIX.length()))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Положение последней записи ключа среди сливаемых сегментов
+     */
+    private static final class RecordLocation {
+        private final int input;
+        private final long offset;
+        private final int size;
+        private final boolean removed;
+
+        private RecordLocation(int input, long offset, int size, boolean removed) {
+            this.input = input;
+            this.offset = offset;
+            this.size = size;
+            this.removed = removed;
+        }
+    }
+
+    static class CompactionResult {
+        private final List<Segment> segments = new ArrayList<>();
+        private final Map<DatabaseKey, SegmentLocation> liveKeys = new LinkedHashMap<>();
+        private final Set<DatabaseKey> removedKeys = new HashSet<>();
+
+        List<Segment> getSegments() {
+            return segments;
+        }
+
+        /**
+         * Ключи, перенесенные в новые сегменты, и положение, в котором каждый из них теперь лежит
+         */
+        Map<DatabaseKey, SegmentLocation> getLiveKeys() {
+            return liveKeys;
+        }
+
+        /**
+         * Ключи, последней записью которых было удаление
+         */
+        Set<DatabaseKey> getRemovedKeys() {
+            return removedKeys;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.itmo.java.basics.logic.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Файл-подсказка рядом с read-only сегментом: ключи сегмента, смещения и размеры их записей без самих значений.
+ * По нему индекс сегмента восстанавливается при старте без чтения значений.
+ * <p>
+ * Формат: магическое число, размер сегмента (long), количество записей (int), затем для каждой записи
+ * keySize (int), key, offset (long), размер записи (int), признак удаления (boolean).
+ * Если размер сегмента не совпадает с файлом, подсказка обрывается или повреждена, она игнорируется
+ */
+public final class SegmentHintFile {
+    private static final int MAGIC = 0x4B565348;
+    private static final String HINT_SUFFIX = ".hint";
+    /**
+     * Размер записи с пустым ключом без значения: keySize и valueSize
+     */
+    private static final int MIN_RECORD_SIZE = 2 * Integer.BYTES;
+    static final String TEMPORARY_SUFFIX = HINT_SUFFIX + ".tmp";
+
+    private SegmentHintFile() {
+    }
+
+    public static Path hintPath(Path segmentPath) {
+        return segmentPath.resolveSibling(segmentPath.getFileName() + HINT_SUFFIX);
+    }
+
+    /**
+     * Читает подсказку сегмента. Подсказка проверяется целиком: записи должны идти подряд с начала сегмента
+     * и заканчиваться ровно на его конце, размеры записей - сходиться с длинами ключей
+     *
+     * @return записи сегмента в порядке их следования. {@link Optional#empty()} - если подсказки нет
+     * или она повреждена или не соответствует файлу сегмента
+     */
+    public static Optional<List<Entry>> read(Path segmentPath) throws IOException {
+        Path hintPath = hintPath(segmentPath);
+        if (!Files.exists(hintPath)) {
+            return Optional.empty();
+        }
+        long segmentSize = Files.size(segmentPath);
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(hintPath.toFile())))) {
+            if (inputStream.readInt() != MAGIC || inputStream.readLong() != segmentSize) {
+                return Optional.empty();
+            }
+            int count = inputStream.readInt();
+            if (count < 0 || count > segmentSize / MIN_RECORD_SIZE) {
+                return Optional.empty();
+            }
+            List<Entry> entries = new ArrayList<>(count);
+            long expectedOffset = 0;
+            for (int i = 0; i < count; i++) {
+                int keySize = inputStream.readInt();
+                if (keySize < 0 || keySize > segmentSize - expectedOffset - MIN_RECORD_SIZE) {
+                    return Optional.empty();
+                }
+                byte[] key = inputStream.readNBytes(keySize);
+                if (key.length != keySize) {
+                    return Optional.empty();
+                }
+                Entry entry = new Entry(key, inputStream.readLong(), inputStream.readInt(), inputStream.readBoolean());
+                if (entry.getOffset() != expectedOffset || !hasValidSize(entry)) {
+                    return Optional.empty();
+                }
+                expectedOffset += entry.getSize();
+                entries.add(entry);
+            }
+            if (expectedOffset != segmentSize || inputStream.read() != -1) {
+                return Optional.empty();
+            }
+            return Optional.of(entries);
+        } catch (EOFException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean hasValidSize(Entry entry) {
+        long headerSize = MIN_RECORD_SIZE + entry.getKey().length;
+        return entry.isRemoved() ? entry.getSize() == headerSize : entry.getSize() >= headerSize;
+    }
+
+    /**
+     * Записывает подсказку сегмента во временный файл, сбрасывает его на диск и переименовывает на место подсказки
+     */
+    public static void write(Path segmentPath, long segmentSize, List<Entry> entries) throws IOException {
+        Path temporaryPath = segmentPath.resolveSibling(segmentPath.getFileName() + TEMPORARY_SUFFIX);
+        try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryPath.toFile());
+             DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream))) {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeLong(segmentSize);
+            outputStream.writeInt(entries.size());
+            for (Entry entry : entries) {
+                outputStream.writeInt(entry.getKey().length);
+                outputStream.write(entry.getKey());
+                outputStream.writeLong(entry.getOffset());
+                outputStream.writeInt(entry.getSize());
+                outputStream.writeBoolean(entry.isRemoved());
+            }
+            outputStream.flush();
+            fileOutputStream.getChannel().force(true);
+        }
+        Files.move(temporaryPath, hintPath(segmentPath), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Собирает записи сегмента, читая только заголовки записей. Значения пропускаются без чтения
+     */
+    static List<Entry> scan(Path segmentPath, long segmentSize) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (FileInputStream fileInputStream = new FileInputStream(segmentPath.toFile());
+             DataInputStream inputStream = new DataInputStream(new BufferedInputStream(fileInputStream))) {
+            long offset = 0;
+            while (offset < segmentSize) {
+                byte[] key = inputStream.readNBytes(inputStream.readInt());
+                int valueSize = inputStream.readInt();
+                boolean removed = valueSize == -1;
+                int size = Integer.BYTES + key.length + Integer.BYTES + (removed ? 0 : valueSize);
+                if (!removed) {
+                    skipFully(inputStream, valueSize);
+                }
+                entries.add(new Entry(key, offset, size, removed));
+                offset += size;
+            }
+        }
+        return entries;
+    }
+
+    private static void skipFully(DataInputStream inputStream, int length) throws IOException {
+        int skipped = 0;
+        while (skipped < length) {
+            int current = inputStream.skipBytes(length - skipped);
+            if (current == 0) {
+                throw new EOFException();
+            }
+            skipped += current;
+        }
+    }
+
+    public static final class Entry {
+        private final byte[] key;
+        private final long offset;
+        private final int size;
+        private final boolean removed;
+
+        public Entry(byte[] key, long offset, int size, boolean removed) {
+            this.key = key;
+            this.offset = offset;
+            this.size = size;
+            this.removed = removed;
+        }
+
+        public byte[] getKey() {
+            return key;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Размер записи в сегменте вместе с заголовком
+         */
+        public int getSize() {
+            return size;
+        }
+
+        public boolean isRemoved() {
+            return removed;
+        }
+    }
+}
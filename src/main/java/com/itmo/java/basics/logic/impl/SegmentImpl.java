@@ -1,43 +1,123 @@
 package com.itmo.java.basics.logic.impl;
 
+import com.itmo.java.basics.config.TableConfig;
 import com.itmo.java.basics.index.SegmentOffsetInfo;
 import com.itmo.java.basics.index.impl.SegmentIndex;
 import com.itmo.java.basics.index.impl.SegmentOffsetInfoImpl;
 import com.itmo.java.basics.initialization.SegmentInitializationContext;
+import com.itmo.java.basics.logic.DatabaseKey;
 import com.itmo.java.basics.logic.DatabaseRecord;
 import com.itmo.java.basics.logic.Segment;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.WritableDatabaseRecord;
-import com.itmo.java.basics.logic.io.DatabaseInputStream;
 import com.itmo.java.basics.logic.io.DatabaseOutputStream;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class SegmentImpl implements Segment {
+    static final long MAX_SEGMENT_SIZE = 100_000;
+    private static final int REMOVED_OBJECT_SIZE = -1;
+
+    /**
+     * Суффикс имени сегмента: время создания и, для сегментов, полученных компакцией, номер поколения
+     */
+    private static final Pattern SEGMENT_SUFFIX = Pattern.compile("(\\d+)(?:\\.(\\d+))?");
+
+    /**
+     * Сколько байт читается за один системный вызов при поиске записи.
+     * Большинство записей целиком помещаются в этот размер
+     */
+    private static final int READ_AHEAD_SIZE = 4096;
+
     private final Path segmentPath;
     private final SegmentIndex segmentIndex;
-    private long segmentOffset;
+    private final TableConfig config;
+    private final MappedSegmentCache mappedSegmentCache;
+    private final SegmentBlockCache blockCache;
+    private final SegmentChannelPool channelPool;
+    private final boolean sealed;
+    /**
+     * Пишет один поток, читают многие: запись сначала попадает в файл, и только потом сдвигается конец сегмента
+     */
+    private volatile long segmentOffset;
+    private volatile GroupCommitWriter writer;
+    /**
+     * Канал на чтение из {@link SegmentChannelPool}. Если пул его вытеснил, при следующем чтении открывается новый
+     */
+    private volatile SegmentChannelPool.PooledChannel readChannel;
+    private boolean closed;
+    /**
+     * Записи сегмента для файла-подсказки, собираемые по мере записи. null - если сегмент восстановлен
+     * не с начала, тогда при запечатывании записи собираются повторным чтением заголовков
+     */
+    private List<SegmentHintFile.Entry> hintEntries;
+    /**
+     * Подсказка пишется в фоне под этой блокировкой, закрытие сегмента ее дожидается:
+     * после закрытия компакция удаляет сегмент вместе с подсказкой
+     */
+    private final Object hintLock = new Object();
 
-    private SegmentImpl(Path segmentPath) {
+    private SegmentImpl(Path segmentPath, TableConfig config, MappedSegmentCache mappedSegmentCache,
+                        SegmentBlockCache blockCache, SegmentChannelPool channelPool) {
         this.segmentPath = segmentPath;
-        this.segmentIndex = new SegmentIndex();
+        this.segmentIndex = SegmentIndex.create(config);
+        this.config = config;
+        this.mappedSegmentCache = mappedSegmentCache;
+        this.blockCache = blockCache;
+        this.channelPool = channelPool;
+        this.sealed = false;
         this.segmentOffset = 0;
+        this.hintEntries = new ArrayList<>();
     }
 
-    private SegmentImpl(Path segmentPath, SegmentIndex segmentIndex, long segmentOffset) {
+    private SegmentImpl(Path segmentPath, SegmentIndex segmentIndex, long segmentOffset,
+                        TableConfig config, MappedSegmentCache mappedSegmentCache, SegmentBlockCache blockCache,
+                        SegmentChannelPool channelPool, boolean sealed) {
         this.segmentPath = segmentPath;
         this.segmentIndex = segmentIndex;
+        this.config = config;
+        this.mappedSegmentCache = mappedSegmentCache;
+        this.blockCache = blockCache;
+        this.channelPool = channelPool;
+        this.sealed = sealed;
         this.segmentOffset = segmentOffset;
+        this.hintEntries = segmentOffset == 0 ? new ArrayList<>() : null;
     }
 
     public static Segment create(String segmentName, Path tableRootPath) throws DatabaseException {
+        TableConfig config = TableConfig.defaultConfig();
+        return create(segmentName, tableRootPath, config, MappedSegmentCache.disabled(),
+                SegmentBlockCache.disabled(), SegmentChannelPool.create(config));
+    }
+
+    /**
+     * @param config             настройки таблицы, которой принадлежит сегмент
+     * @param mappedSegmentCache отображения сегментов таблицы, через которые читается сегмент после того,
+     *                           как станет read-only
+     * @param blockCache         кэш блоков сегментов таблицы
+     * @param channelPool        открытые каналы сегментов таблицы
+     */
+    public static Segment create(String segmentName, Path tableRootPath, TableConfig config,
+                                 MappedSegmentCache mappedSegmentCache, SegmentBlockCache blockCache,
+                                 SegmentChannelPool channelPool)
+            throws DatabaseException {
         Path segmentPath;
         try {
             segmentPath = Files.createFile(Paths.get(tableRootPath.toString() + File.separator + segmentName));
@@ -45,32 +125,157 @@ public class SegmentImpl implements Segment {
             throw new DatabaseException(String.format("IO exception when creating segment %s to path %s",
                     segmentName, tableRootPath), e);
         }
-        return new SegmentImpl(segmentPath);
+        return new SegmentImpl(segmentPath, config, mappedSegmentCache, blockCache, channelPool);
     }
 
     public static Segment initializeFromContext(SegmentInitializationContext context) {
-        return new SegmentImpl(context.getSegmentPath(), context.getIndex(), context.getCurrentSize());
+        TableConfig config = TableConfig.defaultConfig();
+        return initializeFromContext(context, config, MappedSegmentCache.disabled(),
+                SegmentBlockCache.disabled(), SegmentChannelPool.create(config));
+    }
+
+    public static Segment initializeFromContext(SegmentInitializationContext context, TableConfig config,
+                                                MappedSegmentCache mappedSegmentCache, SegmentBlockCache blockCache,
+                                                SegmentChannelPool channelPool) {
+        return new SegmentImpl(context.getSegmentPath(), context.getIndex(), context.getCurrentSize(),
+                config, mappedSegmentCache, blockCache, channelPool, false);
+    }
+
+    /**
+     * Создает read-only сегмент из уже записанного компактором файла
+     */
+    static SegmentImpl fromCompactedFile(Path segmentPath, SegmentIndex segmentIndex, long size,
+                                         TableConfig config, MappedSegmentCache mappedSegmentCache,
+                                         SegmentBlockCache blockCache, SegmentChannelPool channelPool) {
+        return new SegmentImpl(segmentPath, segmentIndex, size, config, mappedSegmentCache, blockCache,
+                channelPool, true);
     }
 
     static String createSegmentName(String tableName) {
         return tableName + "_" + System.currentTimeMillis();
     }
 
+    /**
+     * Имя сегмента, полученного компакцией. Такой сегмент встает в порядке сегментов таблицы
+     * сразу после сегмента с тем же временем создания и меньшим поколением
+     */
+    static String createCompactedSegmentName(String tableName, long createdAt, long generation) {
+        return tableName + "_" + createdAt + "." + generation;
+    }
+
+    /**
+     * Проверяет, является ли файл из директории таблицы сегментом этой таблицы
+     */
+    public static boolean isSegmentName(String tableName, String fileName) {
+        return parseSegmentSuffix(tableName, fileName).isPresent();
+    }
+
+    /**
+     * Порядок появления сегментов таблицы: по времени создания, затем по поколению компакции
+     */
+    public static Comparator<String> segmentOrder(String tableName) {
+        Comparator<String> byCreation = Comparator.comparingLong(name -> segmentCreatedAt(tableName, name));
+        return byCreation.thenComparingLong(name -> segmentGeneration(tableName, name));
+    }
+
+    static long segmentCreatedAt(String tableName, String segmentName) {
+        return Long.parseLong(parseSegmentSuffix(tableName, segmentName).orElseThrow().group(1));
+    }
+
+    static long segmentGeneration(String tableName, String segmentName) {
+        String generation = parseSegmentSuffix(tableName, segmentName).orElseThrow().group(2);
+        return generation != null ? Long.parseLong(generation) : 0;
+    }
+
+    private static Optional<Matcher> parseSegmentSuffix(String tableName, String fileName) {
+        if (!fileName.startsWith(tableName + "_")) {
+            return Optional.empty();
+        }
+        Matcher matcher = SEGMENT_SUFFIX.matcher(fileName.substring(tableName.length() + 1));
+        return matcher.matches() ? Optional.of(matcher) : Optional.empty();
+    }
+
     @Override
     public String getName() {
         return segmentPath.getFileName().toString();
     }
 
+    private GroupCommitWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new GroupCommitWriter(
+                    FileChannel.open(segmentPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND),
+                    segmentOffset, config.getDurabilityMode(), config.getFsyncIntervalMillis());
+        }
+        return writer;
+    }
+
+    /**
+     * Берет канал на чтение. Открытый канал отдается читателям без блокировки: позиционные чтения не мешают друг другу.
+     * Взятый канал нужно отпустить через {@link SegmentChannelPool.PooledChannel#release()}
+     */
+    private SegmentChannelPool.PooledChannel acquireReadChannel() throws IOException {
+        SegmentChannelPool.PooledChannel channel = readChannel;
+        if (channel != null && channel.retain()) {
+            return channel;
+        }
+        synchronized (this) {
+            channel = readChannel;
+            if (channel != null && channel.retain()) {
+                return channel;
+            }
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+            channel = channelPool.open(segmentPath);
+            readChannel = channel;
+            return channel;
+        }
+    }
+
     private void writeDatabaseRecord(WritableDatabaseRecord dbRecord) throws IOException {
-        try (var dbOutputStream =
-                     new DatabaseOutputStream(new FileOutputStream(segmentPath.toString(), true))) {
-            segmentIndex.onIndexedEntityUpdated(new String(dbRecord.getKey()), new SegmentOffsetInfoImpl(segmentOffset));
-            segmentOffset += dbOutputStream.write(dbRecord);
+        var bytes = new ByteArrayOutputStream((int) dbRecord.size());
+        try (var dbOutputStream = new DatabaseOutputStream(bytes)) {
+            dbOutputStream.write(dbRecord);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        getWriter().append(buffer);
+        segmentIndex.onIndexedEntityUpdated(DatabaseKey.wrap(dbRecord.getKey()), new SegmentOffsetInfoImpl(segmentOffset));
+        if (hintEntries != null) {
+            hintEntries.add(new SegmentHintFile.Entry(dbRecord.getKey(), segmentOffset, buffer.limit(),
+                    !dbRecord.isValuePresented()));
         }
+        segmentOffset += buffer.limit();
+        if (isReadOnly()) {
+            writeHintFileInBackground();
+            closeWriter();
+        }
+    }
+
+    /**
+     * Отдает запись подсказки запечатанного сегмента фоновому потоку, чтобы не задерживать запись.
+     * Ошибка записи подсказки не страшна: без нее сегмент при старте будет прочитан целиком
+     */
+    private void writeHintFileInBackground() {
+        List<SegmentHintFile.Entry> entries = hintEntries;
+        long size = segmentOffset;
+        hintEntries = null;
+        TableImpl.MAINTENANCE_EXECUTOR.execute(() -> {
+            synchronized (hintLock) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    SegmentHintFile.write(segmentPath, size,
+                            entries != null ? entries : SegmentHintFile.scan(segmentPath, size));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
     }
 
     @Override
-    public boolean write(String objectKey, byte[] objectValue) throws IOException {
+    public boolean write(DatabaseKey objectKey, byte[] objectValue) throws IOException {
         if (isReadOnly()) {
             return false;
         }
@@ -79,37 +284,203 @@ public class SegmentImpl implements Segment {
         return true;
     }
 
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        SegmentChannelPool.PooledChannel channel = acquireReadChannel();
+        try {
+            while (buffer.hasRemaining()) {
+                int read = channel.channel().read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException(String.format("Unexpected end of segment %s at position %d", getName(), position));
+                }
+                position += read;
+            }
+        } finally {
+            channel.release();
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Отображает файл сегмента в память. Отображение остается действительным и после закрытия канала
+     */
+    private MappedByteBuffer map(long size) throws IOException {
+        SegmentChannelPool.PooledChannel channel = acquireReadChannel();
+        try {
+            return channel.channel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+            channel.release();
+        }
+    }
+
+    /**
+     * Разбирает запись прямо из отображения файла, без системных вызовов
+     */
+    private Optional<DatabaseRecord> readMappedDatabaseRecord(ByteBuffer mapping, long offset) {
+        mapping.position((int) offset);
+        int keySize = mapping.getInt();
+        byte[] key = new byte[keySize];
+        mapping.get(key);
+        int valueSize = mapping.getInt();
+        if (valueSize == REMOVED_OBJECT_SIZE) {
+            return Optional.of(new RemoveDatabaseRecord(key));
+        }
+        byte[] value = new byte[valueSize];
+        mapping.get(value);
+        return Optional.of(new SetDatabaseRecord(key, value));
+    }
+
+    /**
+     * Копирует байты сегмента, начиная с position, через {@link SegmentBlockCache}
+     */
+    private void readBlocks(ByteBuffer target, long position) throws IOException {
+        int blockSize = blockCache.getBlockSize();
+        while (target.hasRemaining()) {
+            long block = position / blockSize;
+            int blockOffset = (int) (position - block * blockSize);
+            int minLength = (int) Math.min(blockSize, blockOffset + (long) target.remaining());
+            ByteBuffer cached = blockCache.getBlock(getName(), block, minLength, this::loadBlock);
+            cached.position(blockOffset).limit(minLength);
+            position += cached.remaining();
+            target.put(cached);
+        }
+        target.flip();
+    }
+
+    private byte[] loadBlock(long block) throws IOException {
+        long blockStart = block * blockCache.getBlockSize();
+        byte[] bytes = new byte[(int) Math.min(blockCache.getBlockSize(), segmentOffset - blockStart)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        readFully(buffer, blockStart);
+        return bytes;
+    }
+
+    /**
+     * Разбирает запись из блоков {@link SegmentBlockCache}
+     */
+    private Optional<DatabaseRecord> readCachedDatabaseRecord(long offset) throws IOException {
+        ByteBuffer keySizeBuffer = ByteBuffer.allocate(Integer.BYTES);
+        readBlocks(keySizeBuffer, offset);
+        int keySize = keySizeBuffer.getInt();
+        ByteBuffer header = ByteBuffer.allocate(keySize + Integer.BYTES);
+        readBlocks(header, offset + Integer.BYTES);
+        byte[] key = new byte[keySize];
+        header.get(key);
+        int valueSize = header.getInt();
+        if (valueSize == REMOVED_OBJECT_SIZE) {
+            return Optional.of(new RemoveDatabaseRecord(key));
+        }
+        byte[] value = new byte[valueSize];
+        readBlocks(ByteBuffer.wrap(value), offset + Integer.BYTES + keySize + Integer.BYTES);
+        return Optional.of(new SetDatabaseRecord(key, value));
+    }
+
+    /**
+     * Читает запись из отображения файла, если сегмент read-only и отображения включены,
+     * иначе из кэша блоков, если он включен. Без них читает одним позиционным чтением,
+     * если запись помещается в {@link #READ_AHEAD_SIZE}, иначе дочитывает оставшуюся часть значения вторым чтением
+     */
     private Optional<DatabaseRecord> readDatabaseRecord(long offset) throws IOException {
-        try (var dbInputStream = new DatabaseInputStream(new FileInputStream(segmentPath.toString()))) {
-            long skipped = dbInputStream.skip(offset);
-            if (skipped != offset) {
-                throw new IOException(String.format("Error in skipping bytes in file %s", getName()));
+        if (offset >= segmentOffset) {
+            return Optional.empty();
+        }
+        if (isReadOnly()) {
+            Optional<ByteBuffer> mapping = mappedSegmentCache.getMapping(getName(), segmentOffset, this::map);
+            if (mapping.isPresent()) {
+                return readMappedDatabaseRecord(mapping.get(), offset);
             }
-            return dbInputStream.readDbUnit();
         }
+        if (blockCache.isEnabled()) {
+            return readCachedDatabaseRecord(offset);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_AHEAD_SIZE, segmentOffset - offset));
+        readFully(buffer, offset);
+        int keySize = buffer.getInt();
+        if (buffer.remaining() < keySize + Integer.BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(keySize + Integer.BYTES);
+            readFully(header, offset + Integer.BYTES);
+            buffer = header;
+        }
+        byte[] key = new byte[keySize];
+        buffer.get(key);
+        int valueSize = buffer.getInt();
+        if (valueSize == REMOVED_OBJECT_SIZE) {
+            return Optional.of(new RemoveDatabaseRecord(key));
+        }
+        byte[] value = new byte[valueSize];
+        int buffered = Math.min(buffer.remaining(), valueSize);
+        buffer.get(value, 0, buffered);
+        if (buffered < valueSize) {
+            long valueOffset = offset + Integer.BYTES + keySize + Integer.BYTES;
+            readFully(ByteBuffer.wrap(value, buffered, valueSize - buffered), valueOffset + buffered);
+        }
+        return Optional.of(new SetDatabaseRecord(key, value));
     }
 
     @Override
-    public Optional<byte[]> read(String objectKey) throws IOException {
+    public Optional<byte[]> read(DatabaseKey objectKey) throws IOException {
         Optional<SegmentOffsetInfo> offset = segmentIndex.searchForKey(objectKey);
         if (offset.isEmpty()) {
             return Optional.empty();
         }
-        var dbRecord = readDatabaseRecord(offset.get().getOffset());
-        return dbRecord.map(DatabaseRecord::getValue);
+        return readAt(offset.get().getOffset());
+    }
+
+    @Override
+    public Optional<byte[]> readAt(long offset) throws IOException {
+        return readDatabaseRecord(offset).map(DatabaseRecord::getValue);
+    }
+
+    /**
+     * Ждет fsync без блокировки сегмента. Если писатель уже закрыт, сегмент запечатан и все сброшено при закрытии
+     */
+    @Override
+    public void awaitDurable(long position) throws IOException {
+        GroupCommitWriter currentWriter = writer;
+        if (currentWriter != null) {
+            currentWriter.awaitDurable(position);
+        }
+    }
+
+    @Override
+    public long size() {
+        return segmentOffset;
     }
 
     @Override
     public boolean isReadOnly() {
-        return segmentPath.toFile().length() >= 100000;
+        return sealed || segmentOffset >= MAX_SEGMENT_SIZE;
     }
 
     @Override
-    public boolean delete(String objectKey) throws IOException {
+    public boolean delete(DatabaseKey objectKey) throws IOException {
         if (isReadOnly()) {
             return false;
         }
         writeDatabaseRecord(new RemoveDatabaseRecord(objectKey.getBytes()));
         return true;
     }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        synchronized (hintLock) {
+            closed = true;
+        }
+        mappedSegmentCache.release(getName());
+        blockCache.release(getName());
+        try {
+            closeWriter();
+        } finally {
+            if (readChannel != null) {
+                channelPool.evict(readChannel);
+                readChannel = null;
+            }
+        }
+    }
 }
@@ -0,0 +1,441 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.ValueView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Общий для всех таблиц сервера кэш значений с бюджетом в байтах и политикой W-TinyLFU.
+ * Каждая таблица работает со своим {@link DatabaseCacheImpl}: ключи хранятся в нем, а очереди вытеснения,
+ * счетчик частот и бюджет - общие. Поэтому память сама перетекает к таблицам, чьи ключи читают чаще:
+ * их записи выигрывают допуск в кэш у записей редко читаемых таблиц.
+ * <p>
+ * Новые записи попадают в маленькое LRU-окно, вытесненные из окна - в испытательную часть основного
+ * сегментированного LRU, а при повторном обращении - в защищенную. Когда бюджет превышен, кандидат из окна
+ * вытесняет жертву из испытательной части только если по {@link FrequencySketch} к нему обращались чаще.
+ * Поэтому однократные обращения, например при сканировании, не вымывают из кэша популярные ключи.
+ * <p>
+ * Политика обновляется под блокировкой, которую чтение только пытается взять: если она занята,
+ * обращение не учитывается.
+ * <p>
+ * Значения хранятся либо массивами в куче, либо, в режиме off-heap, в слотах {@link SlabAllocator} вне кучи:
+ * тогда в куче остаются только ключи и узлы очередей, и большой кэш не раздувает старое поколение.
+ * Значения, для которых слот получить не удалось (больше куска или память кончилась), не кэшируются,
+ * иначе они занимали бы кучу сверх бюджета вне ее. В куче остаются только пустые значения.
+ * Пока значение читается, узел удерживается счетчиком ссылок, и его слот не освобождается до конца чтения.
+ * Так же удерживается значение, отданное без копирования через {@link DatabaseCacheImpl#retain}, пока его не отпустят
+ */
+public class SharedDatabaseCache {
+    /**
+     * Примерные накладные расходы на запись кэша сверх байтов ключа и значения
+     */
+    static final int ENTRY_OVERHEAD = 96;
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+    private static final int AVERAGE_ENTRY_SIZE = 256;
+    private static final int MAX_SKETCH_CAPACITY = 1 << 22;
+
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final AtomicInteger tableSeeds = new AtomicInteger();
+    private final FrequencySketch sketch;
+    private final AccessOrderQueue window = new AccessOrderQueue();
+    private final AccessOrderQueue probation = new AccessOrderQueue();
+    private final AccessOrderQueue protectedQueue = new AccessOrderQueue();
+    private final long maxBytes;
+    private final long maxWindowBytes;
+    private final long maxProtectedBytes;
+    private final SlabAllocator slabs;
+    private long bytes;
+
+    private SharedDatabaseCache(long maxBytes, SlabAllocator slabs) {
+        this.maxBytes = maxBytes;
+        this.slabs = slabs;
+        this.maxWindowBytes = Math.max(1, maxBytes * WINDOW_PERCENT / 100);
+        this.maxProtectedBytes = (maxBytes - maxWindowBytes) * PROTECTED_PERCENT / 100;
+        this.sketch = new FrequencySketch((int) Math.min(MAX_SKETCH_CAPACITY, maxBytes / AVERAGE_ENTRY_SIZE));
+    }
+
+    /**
+     * @param maxBytes сколько байт ключей и значений (с учетом накладных расходов) может держать кэш
+     */
+    public static SharedDatabaseCache create(long maxBytes) {
+        return create(maxBytes, false);
+    }
+
+    /**
+     * @param offHeap хранить ли значения вне кучи. Под них выделяется не больше maxBytes памяти
+     */
+    public static SharedDatabaseCache create(long maxBytes, boolean offHeap) {
+        return new SharedDatabaseCache(maxBytes, offHeap ? new SlabAllocator(maxBytes) : null);
+    }
+
+    /**
+     * Создает кэш таблицы, расходующий общий бюджет
+     */
+    DatabaseCacheImpl tableCache(String tableName) {
+        return new DatabaseCacheImpl(tableName, this, tableSeeds.incrementAndGet() * 0x9e3779b9);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Сколько байт бюджета сейчас занято
+     */
+    public long getBytes() {
+        policyLock.lock();
+        try {
+            return bytes;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    void onRead(DatabaseCacheImpl table, DatabaseKey key, Node node) {
+        if (!policyLock.tryLock()) {
+            return;
+        }
+        try {
+            sketch.increment(spread(table, key));
+            if (node != null) {
+                onAccess(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * @return копию значения узла или {@code null}, если его слот уже освобожден
+     */
+    byte[] read(Node node) {
+        if (node.slot == SlabAllocator.NO_SLOT) {
+            return node.value;
+        }
+        if (!tryRetain(node)) {
+            return null;
+        }
+        try {
+            return slabs.read(node.slot, node.length);
+        } finally {
+            release(node);
+        }
+    }
+
+    /**
+     * Удерживает слот узла, пока значение не отпустят: до этого слот не освобождается, даже если узел вытеснен
+     *
+     * @return значение без копирования или {@code null}, если слот узла уже освобожден
+     */
+    ValueView retain(Node node) {
+        if (node.slot == SlabAllocator.NO_SLOT) {
+            return ValueView.of(node.value);
+        }
+        if (!tryRetain(node)) {
+            return null;
+        }
+        return ValueView.retained(slabs.view(node.slot, node.length), () -> release(node));
+    }
+
+    void put(DatabaseCacheImpl table, DatabaseKey key, byte[] value) {
+        boolean onHeap = slabs == null || value.length == 0;
+        int sizeClass = onHeap ? -1 : slabs.sizeClass(value.length);
+        long weight = weight(key, onHeap || sizeClass < 0 ? value.length : slabs.slotSize(sizeClass));
+        policyLock.lock();
+        try {
+            sketch.increment(spread(table, key));
+            Node node = table.nodes.get(key);
+            if (node != null && node.slot == SlabAllocator.NO_SLOT && onHeap && weight <= maxBytes) {
+                node.value = value;
+                changeWeight(node, weight - node.weight);
+                onAccess(node);
+                evict();
+                return;
+            }
+            if (node != null) {
+                evictNode(node);
+            }
+            if (weight > maxBytes || !onHeap && sizeClass < 0) {
+                return;
+            }
+            node = new Node(table, key);
+            if (onHeap) {
+                node.value = value;
+            } else {
+                long slot = allocate(sizeClass);
+                if (slot == SlabAllocator.NO_SLOT) {
+                    return;
+                }
+                slabs.write(slot, value);
+                node.slot = slot;
+                node.sizeClass = sizeClass;
+                node.length = value.length;
+            }
+            node.queue = window;
+            window.addLast(node);
+            changeWeight(node, weight);
+            table.nodes.put(key, node);
+            evict();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Ключи таблицы в порядке убывания частоты обращений по {@link FrequencySketch}
+     */
+    List<DatabaseKey> hotKeys(DatabaseCacheImpl table, int limit) {
+        List<Node> nodes;
+        int[] frequencies;
+        policyLock.lock();
+        try {
+            nodes = new ArrayList<>(table.nodes.values());
+            frequencies = new int[nodes.size()];
+            for (int i = 0; i < nodes.size(); i++) {
+                frequencies[i] = sketch.frequency(spread(nodes.get(i)));
+            }
+        } finally {
+            policyLock.unlock();
+        }
+        Integer[] order = new Integer[nodes.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> frequencies[i]).reversed());
+        List<DatabaseKey> keys = new ArrayList<>(Math.min(limit, order.length));
+        for (int i = 0; i < order.length && keys.size() < limit; i++) {
+            keys.add(nodes.get(order[i]).key);
+        }
+        return keys;
+    }
+
+    void remove(DatabaseCacheImpl table, DatabaseKey key) {
+        policyLock.lock();
+        try {
+            Node node = table.nodes.get(key);
+            if (node != null) {
+                evictNode(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void onAccess(Node node) {
+        if (node.queue == null) {
+            return;
+        }
+        if (node.queue == probation) {
+            moveTo(node, protectedQueue);
+            while (protectedQueue.bytes > maxProtectedBytes) {
+                moveTo(protectedQueue.head, probation);
+            }
+        } else {
+            node.queue.moveToLast(node);
+        }
+    }
+
+    /**
+     * Переносит лишние записи из окна в испытательную часть и, пока бюджет превышен,
+     * выбирает между самой старой записью испытательной части и очередной пришедшей из окна
+     */
+    private void evict() {
+        Node candidate = null;
+        while (window.bytes > maxWindowBytes) {
+            Node moved = window.head;
+            moveTo(moved, probation);
+            if (candidate == null) {
+                candidate = moved;
+            }
+        }
+        while (bytes > maxBytes) {
+            if (probation.head == null) {
+                if (protectedQueue.head == null) {
+                    evictNode(window.head);
+                    continue;
+                }
+                moveTo(protectedQueue.head, probation);
+            }
+            Node victim = probation.head;
+            if (candidate == null || candidate.queue != probation) {
+                evictNode(victim);
+            } else if (candidate == victim
+                    || sketch.frequency(spread(candidate)) <= sketch.frequency(spread(victim))) {
+                Node next = candidate.next;
+                evictNode(candidate);
+                candidate = next;
+            } else {
+                evictNode(victim);
+            }
+        }
+    }
+
+    /**
+     * Выделяет слот. Если свободных слотов класса нет и память кончилась, вытесняет записи того же класса,
+     * начиная с наименее ценных
+     *
+     * @return слот или {@link SlabAllocator#NO_SLOT}, если его не удалось получить. Тогда значение не кэшируется
+     */
+    private long allocate(int sizeClass) {
+        long slot = slabs.allocate(sizeClass);
+        if (slot == SlabAllocator.NO_SLOT && slabs.usedSlots(sizeClass) == 0) {
+            return slot;
+        }
+        if (slot == SlabAllocator.NO_SLOT) {
+            slot = evictSizeClass(probation, sizeClass);
+        }
+        if (slot == SlabAllocator.NO_SLOT) {
+            slot = evictSizeClass(window, sizeClass);
+        }
+        if (slot == SlabAllocator.NO_SLOT) {
+            slot = evictSizeClass(protectedQueue, sizeClass);
+        }
+        return slot;
+    }
+
+    private long evictSizeClass(AccessOrderQueue queue, int sizeClass) {
+        Node node = queue.head;
+        while (node != null) {
+            Node next = node.next;
+            if (node.slot != SlabAllocator.NO_SLOT && node.sizeClass == sizeClass) {
+                evictNode(node);
+                long slot = slabs.allocate(sizeClass);
+                if (slot != SlabAllocator.NO_SLOT) {
+                    return slot;
+                }
+            }
+            node = next;
+        }
+        return SlabAllocator.NO_SLOT;
+    }
+
+    private boolean tryRetain(Node node) {
+        int references;
+        do {
+            references = node.references;
+            if (references == 0) {
+                return false;
+            }
+        } while (!Node.REFERENCES.compareAndSet(node, references, references + 1));
+        return true;
+    }
+
+    private void release(Node node) {
+        if (Node.REFERENCES.decrementAndGet(node) == 0) {
+            slabs.free(node.slot, node.sizeClass);
+        }
+    }
+
+    private void moveTo(Node node, AccessOrderQueue queue) {
+        node.queue.remove(node);
+        node.queue = queue;
+        queue.addLast(node);
+    }
+
+    private void changeWeight(Node node, long delta) {
+        node.weight += delta;
+        node.queue.bytes += delta;
+        node.table.bytes += delta;
+        bytes += delta;
+    }
+
+    private void evictNode(Node node) {
+        changeWeight(node, -node.weight);
+        node.queue.remove(node);
+        node.queue = null;
+        node.table.nodes.remove(node.key, node);
+        if (node.slot != SlabAllocator.NO_SLOT) {
+            release(node);
+        }
+    }
+
+    private static long weight(DatabaseKey key, int valueSize) {
+        return (long) key.length() + valueSize + ENTRY_OVERHEAD;
+    }
+
+    private static int spread(Node node) {
+        return spread(node.table, node.key);
+    }
+
+    private static int spread(DatabaseCacheImpl table, DatabaseKey key) {
+        int hash = (key.hashCode() ^ table.hashSeed) * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    static final class Node {
+        private static final AtomicIntegerFieldUpdater<Node> REFERENCES =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "references");
+
+        private final DatabaseCacheImpl table;
+        private final DatabaseKey key;
+        private volatile byte[] value;
+        private long slot = SlabAllocator.NO_SLOT;
+        private int sizeClass;
+        private int length;
+        /**
+         * Одна ссылка у самого кэша и по одной у каждого незаконченного чтения значения вне кучи
+         */
+        private volatile int references = 1;
+        private long weight;
+        private AccessOrderQueue queue;
+        private Node previous;
+        private Node next;
+
+        private Node(DatabaseCacheImpl table, DatabaseKey key) {
+            this.table = table;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Двусвязный список записей от самого старого обращения к самому новому
+     */
+    private static final class AccessOrderQueue {
+        private Node head;
+        private Node tail;
+        private long bytes;
+
+        private void addLast(Node node) {
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            bytes += node.weight;
+        }
+
+        private void remove(Node node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            bytes -= node.weight;
+        }
+
+        private void moveToLast(Node node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.itmo.java.basics.logic.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Память для значений кэша вне кучи. Память выделяется кусками через {@link ByteBuffer#allocateDirect(int)},
+ * каждый кусок нарезается на слоты одного класса размеров. Размер куска - от {@link #MIN_CHUNK_SIZE}
+ * до {@link #MAX_CHUNK_SIZE}, так чтобы в бюджете помещалось хотя бы {@link #MIN_CHUNKS} кусков,
+ * иначе кусков не хватит даже на каждый класс по одному.
+ * Классы растут в {@link #GROWTH_FACTOR} раз, поэтому значение занимает не больше чем на четверть больше своего размера.
+ * Освобожденные слоты переиспользуются значениями того же класса, куски обратно не отдаются.
+ * <p>
+ * Слот задается числом: номер куска в старших 32 битах, смещение в куске - в младших
+ */
+final class SlabAllocator {
+    static final long NO_SLOT = -1;
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024;
+    private static final int MIN_CHUNKS = 64;
+    private static final int MIN_SLOT_SIZE = 64;
+    private static final double GROWTH_FACTOR = 1.25;
+
+    private final int chunkSize;
+    private final int[] slotSizes;
+    private final SizeClass[] sizeClasses;
+    private final ByteBuffer[] chunks;
+    private int chunkCount;
+
+    /**
+     * @param maxBytes сколько памяти можно выделить под куски, не меньше одного куска
+     */
+    SlabAllocator(long maxBytes) {
+        this.chunkSize = (int) Math.max(MIN_CHUNK_SIZE,
+                Math.min(MAX_CHUNK_SIZE, Long.highestOneBit(Math.max(1, maxBytes / MIN_CHUNKS))));
+        int[] sizes = new int[64];
+        int count = 0;
+        for (int size = MIN_SLOT_SIZE; size < chunkSize; size = Math.max(size + 8, (int) (size * GROWTH_FACTOR) & ~7)) {
+            sizes[count++] = size;
+        }
+        sizes[count++] = chunkSize;
+        this.slotSizes = Arrays.copyOf(sizes, count);
+        this.sizeClasses = new SizeClass[count];
+        for (int i = 0; i < count; i++) {
+            sizeClasses[i] = new SizeClass();
+        }
+        this.chunks = new ByteBuffer[(int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / chunkSize))];
+    }
+
+    /**
+     * @return класс размеров для значения или -1, если значение больше куска
+     */
+    int sizeClass(int length) {
+        int index = Arrays.binarySearch(slotSizes, length);
+        if (index >= 0) {
+            return index;
+        }
+        index = -index - 1;
+        return index < slotSizes.length ? index : -1;
+    }
+
+    int slotSize(int sizeClass) {
+        return slotSizes[sizeClass];
+    }
+
+    /**
+     * Сколько слотов класса сейчас занято
+     */
+    synchronized int usedSlots(int sizeClass) {
+        return sizeClasses[sizeClass].used;
+    }
+
+    /**
+     * @return свободный слот класса или {@link #NO_SLOT}, если свободных нет, а все куски уже выделены
+     */
+    synchronized long allocate(int sizeClass) {
+        SizeClass slots = sizeClasses[sizeClass];
+        if (slots.freeCount > 0) {
+            slots.used++;
+            return slots.free[--slots.freeCount];
+        }
+        int slotSize = slotSizes[sizeClass];
+        if (slots.chunk < 0 || slots.nextOffset + slotSize > chunkSize) {
+            if (chunkCount == chunks.length) {
+                return NO_SLOT;
+            }
+            chunks[chunkCount] = ByteBuffer.allocateDirect(chunkSize);
+            slots.chunk = chunkCount++;
+            slots.nextOffset = 0;
+        }
+        long slot = (long) slots.chunk << 32 | slots.nextOffset;
+        slots.nextOffset += slotSize;
+        slots.used++;
+        return slot;
+    }
+
+    synchronized void free(long slot, int sizeClass) {
+        SizeClass slots = sizeClasses[sizeClass];
+        if (slots.freeCount == slots.free.length) {
+            slots.free = Arrays.copyOf(slots.free, slots.free.length * 2);
+        }
+        slots.free[slots.freeCount++] = slot;
+        slots.used--;
+    }
+
+    void write(long slot, byte[] value) {
+        ByteBuffer buffer = chunk(slot);
+        buffer.position(offset(slot));
+        buffer.put(value);
+    }
+
+    byte[] read(long slot, int length) {
+        ByteBuffer buffer = chunk(slot);
+        buffer.position(offset(slot));
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return value;
+    }
+
+    /**
+     * @return буфер только для чтения, смотрящий на значение в слоте без копирования
+     */
+    ByteBuffer view(long slot, int length) {
+        ByteBuffer buffer = chunk(slot);
+        int offset = offset(slot);
+        buffer.limit(offset + length).position(offset);
+        return buffer.slice().asReadOnlyBuffer();
+    }
+
+    private ByteBuffer chunk(long slot) {
+        return chunks[(int) (slot >>> 32)].duplicate();
+    }
+
+    private static int offset(long slot) {
+        return (int) slot;
+    }
+
+    private static final class SizeClass {
+        private int chunk = -1;
+        private int nextOffset;
+        private long[] free = new long[16];
+        private int freeCount;
+        private int used;
+    }
+}
@@ -1,8 +1,13 @@
 package com.itmo.java.basics.logic.impl;
 
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.TableConfig;
 import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.index.IndexCursor;
+import com.itmo.java.basics.index.impl.SegmentLocation;
 import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.initialization.TableInitializationContext;
+import com.itmo.java.basics.logic.DatabaseKey;
 import com.itmo.java.basics.logic.Segment;
 import com.itmo.java.basics.logic.Table;
 
@@ -10,7 +15,23 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Таблица - логическая сущность, представляющая собой набор файлов-сегментов, которые объединены одним
@@ -20,25 +41,93 @@ import java.util.Optional;
  * - имеет единый размер сегмента
  * - представляет из себя директорию в файловой системе, именованную как таблица
  * и хранящую файлы-сегменты данной таблицы
+ * <p>
+ * Доступ к сегментам и индексу - через {@link StampedLock}: чтения идут параллельно под блокировкой на чтение,
+ * запись, удаление, смена текущего сегмента и подмена сегментов компакцией - под блокировкой на запись.
+ * Блокировка не реентерабельна, поэтому внутри уже взятой блокировки используются методы без нее
  */
 public class TableImpl implements Table {
+    /**
+     * Сколько ключей индекса снимок копирует за одну блокировку на чтение
+     */
+    private static final int CHECKPOINT_CHUNK_SIZE = 4096;
+
+    /**
+     * Короткие фоновые работы всех таблиц: снимки индекса и сохранение часто читаемых ключей
+     */
+    static final ScheduledExecutorService MAINTENANCE_EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "table-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Компакция всех таблиц. Отдельный поток, чтобы долгое слияние сегментов не задерживало снимки индекса
+     */
+    static final ScheduledExecutorService COMPACTION_EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "table-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private final Path tablePath;
     private final TableIndex tableIndex;
+    private final TableConfig config;
+    private final MappedSegmentCache mappedSegmentCache;
+    private final SegmentBlockCache blockCache;
+    private final SegmentChannelPool channelPool;
+    private final List<Segment> segments;
+    private final StampedLock lock = new StampedLock();
     private Segment currentSegment;
+    private ScheduledFuture<?> compaction;
+    private ScheduledFuture<?> checkpoint;
+    /**
+     * Сколько раз компакция подменяла сегменты таблицы. По нему снимок индекса замечает подмену
+     */
+    private long compactions;
+    private boolean closed;
 
-    private TableImpl(Path tablePath, TableIndex tableIndex) {
+    private TableImpl(Path tablePath, TableIndex tableIndex, TableConfig config) {
         this.tablePath = tablePath;
         this.tableIndex = tableIndex;
+        this.config = config;
+        this.mappedSegmentCache = MappedSegmentCache.create(config);
+        this.blockCache = SegmentBlockCache.create(config);
+        this.channelPool = SegmentChannelPool.create(config);
+        this.segments = new ArrayList<>();
         this.currentSegment = null;
     }
 
-    private TableImpl(Path tablePath, TableIndex tableIndex, Segment currentSegment) {
+    private TableImpl(Path tablePath, TableIndex tableIndex, TableConfig config,
+                      MappedSegmentCache mappedSegmentCache, SegmentBlockCache blockCache,
+                      SegmentChannelPool channelPool, List<Segment> segments, Segment currentSegment) {
         this.tablePath = tablePath;
         this.tableIndex = tableIndex;
+        this.config = config;
+        this.mappedSegmentCache = mappedSegmentCache;
+        this.blockCache = blockCache;
+        this.channelPool = channelPool;
+        this.segments = new ArrayList<>(segments);
         this.currentSegment = currentSegment;
     }
 
     public static Table create(String tableName, Path pathToDatabaseRoot, TableIndex tableIndex) throws DatabaseException {
+        return create(tableName, pathToDatabaseRoot, tableIndex, TableConfig.defaultConfig());
+    }
+
+    public static Table create(String tableName, Path pathToDatabaseRoot, TableIndex tableIndex, TableConfig config)
+            throws DatabaseException {
+        return create(tableName, pathToDatabaseRoot, tableIndex, config,
+                SharedDatabaseCache.create(DatabaseConfig.DEFAULT_CACHE_MAX_BYTES));
+    }
+
+    /**
+     * @param cache общий кэш, из бюджета которого кэшируются значения таблицы
+     */
+    public static Table create(String tableName, Path pathToDatabaseRoot, TableIndex tableIndex, TableConfig config,
+                               SharedDatabaseCache cache) throws DatabaseException {
         if (tableName == null) {
             throw new DatabaseException("Table name is null");
         }
@@ -49,12 +138,29 @@ public class TableImpl implements Table {
             throw new DatabaseException(String.format("IO exception when creating table %s to path %s",
                     tableName, pathToDatabaseRoot), e);
         }
-        return new CachingTable(new TableImpl(tablePath, tableIndex), new DatabaseCacheImpl());
+        TableImpl table = new TableImpl(tablePath, tableIndex, config);
+        table.scheduleCompaction();
+        table.scheduleCheckpoints();
+        CachingTable cachingTable = new CachingTable(table, cache.tableCache(tableName), tablePath, config);
+        cachingTable.scheduleHotKeys();
+        return cachingTable;
     }
 
     public static Table initializeFromContext(TableInitializationContext context) {
-        return new CachingTable(new TableImpl(context.getTablePath(), context.getTableIndex(), context.getCurrentSegment()),
-                new DatabaseCacheImpl());
+        return initializeFromContext(context, SharedDatabaseCache.create(DatabaseConfig.DEFAULT_CACHE_MAX_BYTES));
+    }
+
+    public static Table initializeFromContext(TableInitializationContext context, SharedDatabaseCache cache) {
+        TableImpl table = new TableImpl(context.getTablePath(), context.getTableIndex(),
+                context.getTableConfig(), context.getMappedSegmentCache(), context.getSegmentBlockCache(),
+                context.getSegmentChannelPool(), context.getSegments(), context.getCurrentSegment());
+        table.scheduleCompaction();
+        table.scheduleCheckpoints();
+        CachingTable cachingTable = new CachingTable(table, cache.tableCache(context.getTableName()),
+                context.getTablePath(), context.getTableConfig());
+        cachingTable.warmUp();
+        cachingTable.scheduleHotKeys();
+        return cachingTable;
     }
 
     @Override
@@ -63,22 +169,74 @@ public class TableImpl implements Table {
     }
 
     private void updateSegment() throws DatabaseException {
-        currentSegment = SegmentImpl.create(SegmentImpl.createSegmentName(getName()), tablePath);
+        currentSegment = SegmentImpl.create(SegmentImpl.createSegmentName(getName()), tablePath, config, mappedSegmentCache,
+                blockCache, channelPool);
+        segments.add(currentSegment);
+    }
+
+    @Override
+    public void write(DatabaseKey objectKey, byte[] objectValue) throws DatabaseException {
+        Segment segment;
+        long end;
+        long stamp = lock.writeLock();
+        try {
+            writeUnlocked(objectKey, objectValue);
+            segment = currentSegment;
+            end = segment.size();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitDurable(segment, end);
     }
 
+    /**
+     * Записывает значения под одной блокировкой на запись
+     */
     @Override
-    public void write(String objectKey, byte[] objectValue) throws DatabaseException {
-        if (currentSegment == null) {
-            updateSegment();
+    public void writeAll(List<DatabaseKey> objectKeys, List<byte[]> objectValues) throws DatabaseException {
+        if (objectKeys.isEmpty()) {
+            return;
         }
+        Segment segment;
+        long end;
+        long stamp = lock.writeLock();
         try {
-            if (currentSegment.write(objectKey, objectValue)) {
-                tableIndex.onIndexedEntityUpdated(objectKey, currentSegment);
-                return;
+            for (int i = 0; i < objectKeys.size(); i++) {
+                writeUnlocked(objectKeys.get(i), objectValues.get(i));
             }
-            updateSegment();
-            currentSegment.write(objectKey, objectValue);
-            tableIndex.onIndexedEntityUpdated(objectKey, currentSegment);
+            segment = currentSegment;
+            end = segment.size();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitDurable(segment, end);
+    }
+
+    /**
+     * Дожидается fsync уже после снятия блокировки таблицы, чтобы один fsync покрывал записи всех писателей,
+     * успевших записать до него. Записи в предыдущие сегменты уже сброшены: сегмент сбрасывается, когда запечатывается
+     */
+    private void awaitDurable(Segment segment, long end) throws DatabaseException {
+        try {
+            segment.awaitDurable(end);
+        } catch (IOException e) {
+            throw new DatabaseException(String.format("IO exception when syncing segment %s of table %s",
+                    segment.getName(), getName()), e);
+        }
+    }
+
+    private void writeUnlocked(DatabaseKey objectKey, byte[] objectValue) throws DatabaseException {
+        try {
+            if (currentSegment == null) {
+                updateSegment();
+            }
+            long offset = currentSegment.size();
+            if (!currentSegment.write(objectKey, objectValue)) {
+                updateSegment();
+                offset = currentSegment.size();
+                currentSegment.write(objectKey, objectValue);
+            }
+            tableIndex.onIndexedEntityUpdated(objectKey, new SegmentLocation(currentSegment, offset));
         } catch (IOException e) {
             throw new DatabaseException(String.format("IO exception when writing key %s in table %s, segment %s",
                     objectKey, getName(), currentSegment.getName()), e);
@@ -86,36 +244,365 @@ public class TableImpl implements Table {
     }
 
     @Override
-    public Optional<byte[]> read(String objectKey) throws DatabaseException {
-        Optional<Segment> segment = tableIndex.searchForKey(objectKey);
-        if (segment.isEmpty()) {
+    public Optional<byte[]> read(DatabaseKey objectKey) throws DatabaseException {
+        long stamp = lock.readLock();
+        try {
+            return readUnlocked(objectKey);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Optional<byte[]> readUnlocked(DatabaseKey objectKey) throws DatabaseException {
+        Optional<SegmentLocation> location = tableIndex.searchForKey(objectKey);
+        if (location.isEmpty()) {
             return Optional.empty();
         }
         try {
-            return segment.get().read(objectKey);
+            return location.get().getSegment().readAt(location.get().getOffset());
         } catch (IOException e) {
             throw new DatabaseException(String.format("IO exception when reading key %s in table %s, segment %s",
-                    objectKey, getName(), currentSegment.getName()), e);
+                    objectKey, getName(), location.get().getSegment().getName()), e);
         }
     }
 
+    /**
+     * Читает значения под одной блокировкой на чтение. Положения ключей сначала ищутся в индексе,
+     * затем записи читаются по сегментам в порядке смещений, чтобы обращения к диску шли почти подряд
+     */
     @Override
-    public void delete(String objectKey) throws DatabaseException {
-        Optional<Segment> segment = tableIndex.searchForKey(objectKey);
-        if (segment.isEmpty()) {
-            throw new DatabaseException(String.format("Nonexistent key %s", objectKey));
+    public List<Optional<byte[]>> readAll(List<DatabaseKey> objectKeys) throws DatabaseException {
+        List<Optional<byte[]>> values = new ArrayList<>(Collections.nCopies(objectKeys.size(), Optional.empty()));
+        long stamp = lock.readLock();
+        try {
+            Map<Segment, List<PendingRead>> readsBySegment = new IdentityHashMap<>();
+            for (int i = 0; i < objectKeys.size(); i++) {
+                Optional<SegmentLocation> location = tableIndex.searchForKey(objectKeys.get(i));
+                if (location.isPresent()) {
+                    readsBySegment.computeIfAbsent(location.get().getSegment(), segment -> new ArrayList<>())
+                            .add(new PendingRead(i, location.get().getOffset()));
+                }
+            }
+            for (Map.Entry<Segment, List<PendingRead>> segmentReads : readsBySegment.entrySet()) {
+                List<PendingRead> reads = segmentReads.getValue();
+                reads.sort(Comparator.comparingLong(read -> read.offset));
+                for (PendingRead read : reads) {
+                    try {
+                        values.set(read.position, segmentReads.getKey().readAt(read.offset));
+                    } catch (IOException e) {
+                        throw new DatabaseException(String.format("IO exception when reading key %s in table %s, segment %s",
+                                objectKeys.get(read.position), getName(), segmentReads.getKey().getName()), e);
+                    }
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
         }
+        return values;
+    }
+
+    @Override
+    public void delete(DatabaseKey objectKey) throws DatabaseException {
+        Segment segment;
+        long end;
+        long stamp = lock.writeLock();
         try {
-            if (currentSegment.delete(objectKey)) {
-                tableIndex.onIndexedEntityUpdated(objectKey, currentSegment);
-                return;
+            Optional<SegmentLocation> location = tableIndex.searchForKey(objectKey);
+            if (location.isEmpty()) {
+                throw new DatabaseException(String.format("Nonexistent key %s", objectKey));
+            }
+            long offset = currentSegment.size();
+            if (!currentSegment.delete(objectKey)) {
+                updateSegment();
+                offset = currentSegment.size();
+                currentSegment.delete(objectKey);
             }
-            updateSegment();
-            currentSegment.delete(objectKey);
-            tableIndex.onIndexedEntityUpdated(objectKey, currentSegment);
+            tableIndex.onIndexedEntityDeleted(objectKey, new SegmentLocation(currentSegment, offset));
+            segment = currentSegment;
+            end = segment.size();
         } catch (IOException e) {
             throw new DatabaseException(String.format("IO exception when deleting key %s in table %s, segment %s",
                     objectKey, getName(), currentSegment.getName()), e);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitDurable(segment, end);
+    }
+
+    @Override
+    public SortedMap<DatabaseKey, byte[]> scan(DatabaseKey fromKey, boolean fromInclusive, DatabaseKey toKey, int limit)
+            throws DatabaseException {
+        Optional<NavigableSet<DatabaseKey>> orderedKeys = tableIndex.orderedKeys();
+        if (orderedKeys.isEmpty()) {
+            throw new DatabaseException(String.format("Table %s has no ordered index", getName()));
+        }
+        SortedMap<DatabaseKey, byte[]> result = new TreeMap<>();
+        long stamp = lock.readLock();
+        try {
+            for (DatabaseKey key : orderedKeys.get().tailSet(fromKey, fromInclusive)) {
+                if (result.size() >= limit || toKey != null && key.compareTo(toKey) >= 0) {
+                    break;
+                }
+                Optional<byte[]> value = readUnlocked(key);
+                value.ifPresent(bytes -> result.put(key, bytes));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return result;
+    }
+
+    private void scheduleCompaction() {
+        if (config.getCompactionIntervalMillis() <= 0) {
+            return;
+        }
+        SegmentCompactor compactor = new SegmentCompactor(tablePath, getName(), config, mappedSegmentCache,
+                blockCache, channelPool);
+        compaction = COMPACTION_EXECUTOR.scheduleWithFixedDelay(() -> {
+            try {
+                compactIfNeeded(compactor);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, config.getCompactionIntervalMillis(), config.getCompactionIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void scheduleCheckpoints() {
+        if (config.getCheckpointIntervalMillis() <= 0) {
+            return;
+        }
+        checkpoint = MAINTENANCE_EXECUTOR.scheduleWithFixedDelay(() -> {
+            try {
+                writeCheckpoint();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, config.getCheckpointIntervalMillis(), config.getCheckpointIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Пишет снимок индекса потоком, не держа блокировку таблицы во время записи на диск. Сегменты и их размеры
+     * фиксируются в начале, ключи копируются порциями, каждая - под короткой блокировкой на чтение.
+     * Если компакция подменила сегменты или записи индекса переехали, снимок бросается до следующего раза
+     */
+    private void writeCheckpoint() throws IOException {
+        CheckpointSnapshot snapshot;
+        long stamp = lock.readLock();
+        try {
+            if (closed) {
+                return;
+            }
+            snapshot = new CheckpointSnapshot();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        try (IndexCheckpoint.Writer writer = snapshot.writer()) {
+            List<CheckpointEntry> chunk = new ArrayList<>(CHECKPOINT_CHUNK_SIZE);
+            boolean more = true;
+            while (more) {
+                stamp = lock.readLock();
+                try {
+                    if (!snapshot.isValid()) {
+                        return;
+                    }
+                    more = snapshot.nextChunk(chunk);
+                } catch (ConcurrentModificationException e) {
+                    return;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+                writeChunk(writer, chunk);
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * Пишет снимок индекса при закрытии таблицы, когда блокировка на запись уже взята
+     */
+    private void writeCheckpointUnlocked() throws IOException {
+        CheckpointSnapshot snapshot = new CheckpointSnapshot();
+        try (IndexCheckpoint.Writer writer = snapshot.writer()) {
+            List<CheckpointEntry> chunk = new ArrayList<>(CHECKPOINT_CHUNK_SIZE);
+            boolean more = true;
+            while (more) {
+                more = snapshot.nextChunk(chunk);
+                writeChunk(writer, chunk);
+            }
+            writer.commit();
+        }
+    }
+
+    private static void writeChunk(IndexCheckpoint.Writer writer, List<CheckpointEntry> chunk) throws IOException {
+        for (CheckpointEntry entry : chunk) {
+            writer.writeEntry(entry.key, entry.segment, entry.offset);
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Сливает самые старые read-only сегменты, если их накопилось достаточно.
+     * Тяжелая часть работы идет без блокировки таблицы, под блокировкой на запись только подменяются записи индекса
+     */
+    private void compactIfNeeded(SegmentCompactor compactor) throws IOException, InterruptedException {
+        List<Segment> inputs;
+        long stamp = lock.readLock();
+        try {
+            if (closed) {
+                return;
+            }
+            List<Segment> sealed = new ArrayList<>(segments);
+            sealed.remove(currentSegment);
+            if (sealed.size() < config.getCompactionMinSegments()) {
+                return;
+            }
+            inputs = new ArrayList<>(sealed.subList(0, Math.min(sealed.size(), config.getCompactionMaxSegments())));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        SegmentCompactor.deleteTemporaryFiles(tablePath, getName());
+        SegmentCompactor.CompactionResult result = compactor.compact(inputs);
+        Set<Segment> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+        replaced.addAll(inputs);
+        stamp = lock.writeLock();
+        try {
+            if (closed) {
+                return;
+            }
+            for (Map.Entry<DatabaseKey, SegmentLocation> liveKey : result.getLiveKeys().entrySet()) {
+                Optional<SegmentLocation> location = tableIndex.searchForKey(liveKey.getKey());
+                if (location.isPresent() && replaced.contains(location.get().getSegment())) {
+                    tableIndex.onIndexedEntityUpdated(liveKey.getKey(), liveKey.getValue());
+                }
+            }
+            for (DatabaseKey removedKey : result.getRemovedKeys()) {
+                Optional<SegmentLocation> location = tableIndex.searchForKey(removedKey);
+                if (location.isPresent() && replaced.contains(location.get().getSegment())) {
+                    tableIndex.onIndexedEntityRemoved(removedKey);
+                }
+            }
+            segments.removeAll(replaced);
+            segments.addAll(0, result.getSegments());
+            compactions++;
+            for (Segment segment : inputs) {
+                tableIndex.onSegmentRemoved(segment);
+                segment.close();
+                Files.deleteIfExists(SegmentHintFile.hintPath(tablePath.resolve(segment.getName())));
+                Files.deleteIfExists(tablePath.resolve(segment.getName()));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void close() throws DatabaseException {
+        long stamp = lock.writeLock();
+        try {
+            closeSegments();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void closeSegments() throws DatabaseException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (compaction != null) {
+            compaction.cancel(false);
+        }
+        IOException closeException = null;
+        if (checkpoint != null) {
+            checkpoint.cancel(false);
+            try {
+                writeCheckpointUnlocked();
+            } catch (IOException e) {
+                closeException = e;
+            }
+        }
+        for (Segment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                closeException = e;
+            }
+        }
+        if (closeException != null) {
+            throw new DatabaseException(String.format("IO exception when closing segments of table %s", getName()),
+                    closeException);
+        }
+    }
+
+    /**
+     * Снимок индекса, который пишется порциями: сегменты таблицы и их размеры на момент начала снимка и курсор по индексу.
+     * Создается под блокировкой таблицы
+     */
+    private final class CheckpointSnapshot {
+        private final List<String> segmentNames = new ArrayList<>();
+        private final List<Long> segmentSizes = new ArrayList<>();
+        private final Map<Segment, Integer> segmentNumbers = new IdentityHashMap<>();
+        private final long compactionsAtStart = compactions;
+        private final IndexCursor<DatabaseKey, SegmentLocation> cursor = tableIndex.cursor();
+
+        private CheckpointSnapshot() {
+            for (Segment segment : segments) {
+                segmentNumbers.put(segment, segmentNumbers.size());
+                segmentNames.add(segment.getName());
+                segmentSizes.add(segment.size());
+            }
+        }
+
+        private IndexCheckpoint.Writer writer() throws IOException {
+            return IndexCheckpoint.writer(tablePath, segmentNames, segmentSizes);
+        }
+
+        private boolean isValid() {
+            return !closed && compactions == compactionsAtStart;
+        }
+
+        /**
+         * Копирует следующую порцию ключей. Вызывается под блокировкой таблицы. Ключ, чья запись уже лежит
+         * за границей снимка, пропускается: при старте он все равно будет прочитан из хвоста сегментов.
+         * С упорядоченным индексом пропускаются и удаленные ключи: без записи в индексе они и так не читаются
+         *
+         * @return true, если остались необойденные ключи
+         */
+        private boolean nextChunk(List<CheckpointEntry> chunk) {
+            Optional<NavigableSet<DatabaseKey>> orderedKeys = tableIndex.orderedKeys();
+            return cursor.next(CHECKPOINT_CHUNK_SIZE, (key, location) -> {
+                Integer segment = segmentNumbers.get(location.getSegment());
+                boolean deleted = orderedKeys.isPresent() && !orderedKeys.get().contains(key);
+                if (segment != null && location.getOffset() < segmentSizes.get(segment) && !deleted) {
+                    chunk.add(new CheckpointEntry(key, segment, location.getOffset()));
+                }
+            });
+        }
+    }
+
+    private static final class CheckpointEntry {
+        private final DatabaseKey key;
+        private final int segment;
+        private final long offset;
+
+        private CheckpointEntry(DatabaseKey key, int segment, long offset) {
+            this.key = key;
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Запись, которую {@link #readAll} прочитает: номер ключа в запросе и смещение в сегменте
+     */
+    private static final class PendingRead {
+        private final int position;
+        private final long offset;
+
+        private PendingRead(int position, long offset) {
+            this.position = position;
+            this.offset = offset;
         }
     }
 }
@@ -26,19 +26,36 @@ public class CommandReader implements AutoCloseable {
         return reader.hasArray();
     }
 
+    /**
+     * Сколько байт следующих команд можно прочитать без блокировки
+     */
+    public int available() throws IOException {
+        return reader.available();
+    }
+
     /**
      * Считывает комманду с помощью ридера и возвращает ее
      *
      * @throws IllegalArgumentException если нет имени команды и id
      */
     public DatabaseCommand readCommand() throws IOException {
+        RespArray commandArgs = readCommandMessage();
+        RespObject commandName =
+                commandArgs.getObjects().get(DatabaseCommandArgPositions.COMMAND_NAME.getPositionIndex());
+        return DatabaseCommands.valueOf(commandName.asString()).getCommand(env, commandArgs.getObjects());
+    }
+
+    /**
+     * Считывает комманду, не собирая ее. Нужно, чтобы сервер сам выбрал, где ее исполнить
+     *
+     * @throws IllegalArgumentException если нет имени команды и id
+     */
+    public RespArray readCommandMessage() throws IOException {
         RespArray commandArgs = reader.readArray();
         if (commandArgs.getObjects().size() < 2) {
             throw new IllegalArgumentException("Command args can't have less then 2 objects");
         }
-        RespObject commandName =
-                commandArgs.getObjects().get(DatabaseCommandArgPositions.COMMAND_NAME.getPositionIndex());
-        return DatabaseCommands.valueOf(commandName.asString()).getCommand(env, commandArgs.getObjects());
+        return commandArgs;
     }
 
     @Override
@@ -2,6 +2,9 @@ package com.itmo.java.client.client;
 
 import com.itmo.java.client.exception.DatabaseExecutionException;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Клиент для доступа к БД
  */
@@ -15,4 +18,14 @@ public interface KvsClient {
     String set(String tableName, String key, String value) throws DatabaseExecutionException;
 
     String delete(String tableName, String key) throws DatabaseExecutionException;
+
+    /**
+     * @return значения в порядке ключей, null для ключей, которых нет
+     */
+    List<String> mget(String tableName, List<String> keys) throws DatabaseExecutionException;
+
+    /**
+     * @return предыдущие значения в порядке обхода {@code entries}, null для ключей, которых не было
+     */
+    List<String> mset(String tableName, Map<String, String> entries) throws DatabaseExecutionException;
 }
@@ -5,12 +5,20 @@ import com.itmo.java.client.command.CreateTableKvsCommand;
 import com.itmo.java.client.command.DeleteKvsCommand;
 import com.itmo.java.client.command.GetKvsCommand;
 import com.itmo.java.client.command.KvsCommand;
+import com.itmo.java.client.command.MGetKvsCommand;
+import com.itmo.java.client.command.MSetKvsCommand;
 import com.itmo.java.client.command.SetKvsCommand;
 import com.itmo.java.client.connection.KvsConnection;
 import com.itmo.java.client.exception.ConnectionException;
 import com.itmo.java.client.exception.DatabaseExecutionException;
+import com.itmo.java.client.exception.ServerOverloadedException;
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespError;
 import com.itmo.java.protocol.model.RespObject;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 public class SimpleKvsClient implements KvsClient {
@@ -36,6 +44,10 @@ public class SimpleKvsClient implements KvsClient {
             throw new DatabaseExecutionException(String.format("ConnectionException when sending command %s",
                     command.serialize().asString()), e);
         }
+        if (result.isError() && result.asString() != null && result.asString().startsWith(RespError.OVERLOADED)) {
+            throw new ServerOverloadedException(String.format("Server is overloaded, command %s was not executed: %s",
+                    command.serialize().asString(), result.asString()));
+        }
         if (result.isError()) {
             throw new DatabaseExecutionException(String.format("Error when executing command %s",
                     command.serialize().asString()));
@@ -77,4 +89,28 @@ public class SimpleKvsClient implements KvsClient {
         RespObject result = handleCommandResult(command);
         return result.asString();
     }
+
+    @Override
+    public List<String> mget(String tableName, List<String> keys) throws DatabaseExecutionException {
+        KvsCommand command = new MGetKvsCommand(databaseName, tableName, keys);
+        return asStrings(command, handleCommandResult(command));
+    }
+
+    @Override
+    public List<String> mset(String tableName, Map<String, String> entries) throws DatabaseExecutionException {
+        KvsCommand command = new MSetKvsCommand(databaseName, tableName, entries);
+        return asStrings(command, handleCommandResult(command));
+    }
+
+    private static List<String> asStrings(KvsCommand command, RespObject result) throws DatabaseExecutionException {
+        if (!(result instanceof RespArray)) {
+            throw new DatabaseExecutionException(String.format("Array expected as result of command %s, but was %s",
+                    command.serialize().asString(), result.asString()));
+        }
+        List<String> values = new ArrayList<>();
+        for (RespObject object : ((RespArray) result).getObjects()) {
+            values.add(object.asString());
+        }
+        return values;
+    }
 }
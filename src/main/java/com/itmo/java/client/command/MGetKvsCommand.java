@@ -0,0 +1,50 @@
+package com.itmo.java.client.command;
+
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MGetKvsCommand implements KvsCommand {
+
+    private static final String COMMAND_NAME = "MGET_KEYS";
+    private final int id;
+    private final String databaseName;
+    private final String tableName;
+    private final List<String> keys;
+
+
+    public MGetKvsCommand(String databaseName, String tableName, List<String> keys) {
+        this.databaseName = databaseName;
+        this.tableName = tableName;
+        this.keys = keys;
+        this.id = idGen.incrementAndGet();
+    }
+
+    /**
+     * Возвращает RESP объект. {@link RespArray} с {@link RespCommandId}, именем команды, аргументами в виде {@link RespBulkString}
+     *
+     * @return объект
+     */
+    @Override
+    public RespArray serialize() {
+        List<RespObject> objects = new ArrayList<>(4 + keys.size());
+        objects.add(new RespCommandId(id));
+        objects.add(new RespBulkString(COMMAND_NAME.getBytes(StandardCharsets.UTF_8)));
+        objects.add(new RespBulkString(databaseName.getBytes(StandardCharsets.UTF_8)));
+        objects.add(new RespBulkString(tableName.getBytes(StandardCharsets.UTF_8)));
+        for (String key : keys) {
+            objects.add(new RespBulkString(key.getBytes(StandardCharsets.UTF_8)));
+        }
+        return new RespArray(objects.toArray(new RespObject[0]));
+    }
+
+    @Override
+    public int getCommandId() {
+        return id;
+    }
+}
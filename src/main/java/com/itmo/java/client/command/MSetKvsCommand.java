@@ -0,0 +1,53 @@
+package com.itmo.java.client.command;
+
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class MSetKvsCommand implements KvsCommand {
+
+    private static final String COMMAND_NAME = "MSET_KEYS";
+    private final int id;
+    private final String databaseName;
+    private final String tableName;
+    private final Map<String, String> entries;
+
+
+    public MSetKvsCommand(String databaseName, String tableName, Map<String, String> entries) {
+        this.databaseName = databaseName;
+        this.tableName = tableName;
+        this.entries = entries;
+        this.id = idGen.incrementAndGet();
+    }
+
+    /**
+     * Возвращает RESP объект. {@link RespArray} с {@link RespCommandId}, именем команды, аргументами в виде {@link RespBulkString}.
+     * Ключи и значения идут парами в порядке обхода {@link Map#entrySet()}
+     *
+     * @return объект
+     */
+    @Override
+    public RespArray serialize() {
+        List<RespObject> objects = new ArrayList<>(4 + 2 * entries.size());
+        objects.add(new RespCommandId(id));
+        objects.add(new RespBulkString(COMMAND_NAME.getBytes(StandardCharsets.UTF_8)));
+        objects.add(new RespBulkString(databaseName.getBytes(StandardCharsets.UTF_8)));
+        objects.add(new RespBulkString(tableName.getBytes(StandardCharsets.UTF_8)));
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            objects.add(new RespBulkString(entry.getKey().getBytes(StandardCharsets.UTF_8)));
+            objects.add(new RespBulkString(entry.getValue().getBytes(StandardCharsets.UTF_8)));
+        }
+        return new RespArray(objects.toArray(new RespObject[0]));
+    }
+
+    @Override
+    public int getCommandId() {
+        return id;
+    }
+}
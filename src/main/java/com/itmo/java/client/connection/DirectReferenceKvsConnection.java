@@ -4,8 +4,10 @@ import com.itmo.java.basics.DatabaseServer;
 import com.itmo.java.basics.console.DatabaseCommandResult;
 import com.itmo.java.client.exception.ConnectionException;
 import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
 import com.itmo.java.protocol.model.RespCommandId;
 import com.itmo.java.protocol.model.RespObject;
+import com.itmo.java.protocol.model.RespRetainedBulkString;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -26,7 +28,14 @@ public class DirectReferenceKvsConnection implements KvsConnection {
         CompletableFuture<DatabaseCommandResult> dbCommandResult =
                 databaseServer.executeNextCommand(new RespArray(new RespCommandId(commandId), command));
         try {
-            return dbCommandResult.get().serialize();
+            DatabaseCommandResult result = dbCommandResult.get();
+            try {
+                RespObject response = result.serialize();
+                // удерживаемое значение копируется, чтобы отпустить его сразу, а не ждать записи
+                return response instanceof RespRetainedBulkString ? new RespBulkString(response.asBytes()) : response;
+            } finally {
+                result.release();
+            }
         } catch (ExecutionException e) {
             throw new ConnectionException("ExecutionException when getting database command result", e);
         } catch (InterruptedException e) {
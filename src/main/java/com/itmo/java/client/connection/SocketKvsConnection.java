@@ -52,6 +52,7 @@ public class SocketKvsConnection implements KvsConnection {
         }
         try {
             respWriter.write(command);
+            respWriter.flush();
         } catch (IOException e) {
             throw new ConnectionException(String.format("IOException when writing command in socket %s", socket), e);
         }
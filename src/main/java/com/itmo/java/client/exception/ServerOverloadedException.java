@@ -0,0 +1,10 @@
+package com.itmo.java.client.exception;
+
+/**
+ * Сервер отклонил команду, не исполняя, потому что перегружен. Команду можно повторить позже
+ */
+public class ServerOverloadedException extends DatabaseExecutionException {
+    public ServerOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.itmo.java.protocol;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Поток, которому можно отдать буфер целиком, не копируя его байты
+ */
+public interface BufferSink {
+    /**
+     * Ставит буфер в очередь на отправку
+     *
+     * @param onSent вызывается ровно один раз, когда буфер отправлен или уже не будет отправлен.
+     *               До этого буфер должен оставаться действительным
+     */
+    void write(ByteBuffer buffer, Runnable onSent) throws IOException;
+}
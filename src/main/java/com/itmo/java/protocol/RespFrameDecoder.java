@@ -0,0 +1,340 @@
+package com.itmo.java.protocol;
+
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespError;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Разбирает RESP из буфера, в который байты приходят порциями. Все, что пришло, сразу разбирается и забирается
+ * из буфера, а недоразобранный объект запоминается в состоянии декодера, так что следующая порция продолжает
+ * разбор с места остановки, а не с начала объекта. Буфер можно переиспользовать между порциями.
+ * <p>
+ * Размеры разбираются прямо из буфера, без промежуточных строк, а данные bulk строки копируются из буфера
+ * сразу в массив, который отдается в {@link RespBulkString}.
+ * <p>
+ * Размер bulk строки и массива приходит от клиента, поэтому он ограничен, а память под данные и элементы
+ * выделяется не сразу по объявленному размеру, а растет по мере того, как они действительно приходят.
+ * Иначе один заголовок вида {@code $2000000000} заставил бы сервер выделить гигабайты.
+ * <p>
+ * Один декодер - на один поток байт, потокобезопасности нет
+ */
+public final class RespFrameDecoder {
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    public static final int DEFAULT_MAX_BULK_LENGTH = 512 * 1024 * 1024;
+    public static final int DEFAULT_MAX_ARRAY_LENGTH = 1024 * 1024;
+    /**
+     * Сколько байт данных или элементов массива выделяется сразу, дальше память удваивается по мере чтения
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int READ_CODE = 0;
+    private static final int READ_SIZE = 1;
+    private static final int READ_BULK_DATA = 2;
+    private static final int READ_COMMAND_ID = 3;
+    private static final int READ_ERROR = 4;
+    private static final int READ_CR = 5;
+    private static final int READ_LF = 6;
+
+    /**
+     * Массивы, элементы которых еще читаются. Сверху - самый вложенный
+     */
+    private final Deque<PartialArray> arrays = new ArrayDeque<>();
+    private final int maxBulkLength;
+    private final int maxArrayLength;
+    private int state = READ_CODE;
+    /**
+     * Куда перейти после LF
+     */
+    private int afterLf = READ_CODE;
+    private byte code;
+
+    private long size;
+    private boolean negative;
+    private int digits;
+
+    private byte[] data;
+    private int dataLength;
+    /**
+     * Объявленный размер читаемой bulk строки
+     */
+    private int bulkLength;
+    private int commandIdBytes;
+    private int commandId;
+    /**
+     * Объект, который будет готов, когда дочитается CRLF после него
+     */
+    private RespObject completed;
+
+    public RespFrameDecoder() {
+        this(DEFAULT_MAX_BULK_LENGTH, DEFAULT_MAX_ARRAY_LENGTH);
+    }
+
+    /**
+     * @param maxBulkLength  наибольший размер bulk строки в байтах
+     * @param maxArrayLength наибольшее количество элементов массива
+     */
+    public RespFrameDecoder(int maxBulkLength, int maxArrayLength) {
+        this.maxBulkLength = maxBulkLength;
+        this.maxArrayLength = maxArrayLength;
+    }
+
+    /**
+     * Следующий объект будет прочитан без кода: его код уже прочитан снаружи
+     *
+     * @throws IOException если код неизвестен
+     */
+    public void expect(byte code) throws IOException {
+        if (state != READ_CODE) {
+            throw new IllegalStateException("Previous RESP object is not read yet");
+        }
+        begin(code);
+    }
+
+    /**
+     * Читает из буфера следующий массив верхнего уровня
+     *
+     * @return массив или null, если буфер кончился раньше. Тогда весь буфер разобран и нужна следующая порция
+     * @throws IOException если байты не являются RESP массивом
+     */
+    public RespArray decodeArray(ByteBuffer buffer) throws IOException {
+        if (state == READ_CODE && arrays.isEmpty() && buffer.hasRemaining() && buffer.get(buffer.position()) != RespArray.CODE) {
+            throw new IOException(String.format("Array expected but was read code %s", buffer.get(buffer.position())));
+        }
+        return (RespArray) decode(buffer);
+    }
+
+    /**
+     * Читает из буфера следующий объект верхнего уровня. Позиция буфера сдвигается за все разобранные байты
+     *
+     * @return объект или null, если буфер кончился раньше. Тогда весь буфер разобран и нужна следующая порция
+     * @throws IOException если байты не являются RESP объектом
+     */
+    public RespObject decode(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            RespObject object = step(buffer);
+            if (object != null) {
+                object = addToArrays(object);
+                if (object != null) {
+                    return object;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Продвигает разбор текущего объекта
+     *
+     * @return объект, если он дочитан, иначе null
+     */
+    private RespObject step(ByteBuffer buffer) throws IOException {
+        switch (state) {
+            case READ_CODE:
+                begin(buffer.get());
+                return null;
+            case READ_SIZE:
+                if (readSize(buffer)) {
+                    sizeRead();
+                }
+                return null;
+            case READ_BULK_DATA:
+                int length = Math.min(buffer.remaining(), bulkLength - dataLength);
+                if (dataLength + length > data.length) {
+                    data = Arrays.copyOf(data, Math.min(bulkLength, Math.max(data.length * 2, dataLength + length)));
+                }
+                buffer.get(data, dataLength, length);
+                dataLength += length;
+                if (dataLength == bulkLength) {
+                    expectCrLf(new RespBulkString(data));
+                }
+                return null;
+            case READ_COMMAND_ID:
+                commandId = (commandId << Byte.SIZE) | (buffer.get() & 0xFF);
+                if (++commandIdBytes == Integer.BYTES) {
+                    expectCrLf(new RespCommandId(commandId));
+                }
+                return null;
+            case READ_ERROR:
+                readError(buffer);
+                return null;
+            case READ_CR:
+                byte cr = buffer.get();
+                if (cr != CR) {
+                    throw new IOException(String.format("Error when CR expected but was read %s", cr));
+                }
+                state = READ_LF;
+                return null;
+            case READ_LF:
+                byte lf = buffer.get();
+                if (lf != LF) {
+                    throw new IOException(String.format("Error when LF expected but was read %s", lf));
+                }
+                state = afterLf;
+                RespObject object = completed;
+                completed = null;
+                return object;
+            default:
+                throw new IllegalStateException("Unknown decoder state " + state);
+        }
+    }
+
+    private void begin(byte code) throws IOException {
+        this.code = code;
+        switch (code) {
+            case RespArray.CODE:
+            case RespBulkString.CODE:
+                size = 0;
+                negative = false;
+                digits = 0;
+                state = READ_SIZE;
+                return;
+            case RespCommandId.CODE:
+                commandId = 0;
+                commandIdBytes = 0;
+                state = READ_COMMAND_ID;
+                return;
+            case RespError.CODE:
+                data = new byte[16];
+                dataLength = 0;
+                state = READ_ERROR;
+                return;
+            default:
+                throw new IOException("Unknown RESP object code");
+        }
+    }
+
+    /**
+     * Дочитывает размер до CR
+     *
+     * @return true, если CR прочитан
+     */
+    private boolean readSize(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == CR) {
+                if (digits == 0) {
+                    throw new IOException("Malformed RESP size");
+                }
+                return true;
+            }
+            if (b == '-' && digits == 0 && !negative) {
+                negative = true;
+            } else if (b >= '0' && b <= '9' && digits < 10) {
+                size = size * 10 + (b - '0');
+                digits++;
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Malformed RESP size");
+                }
+            } else {
+                throw new IOException(String.format("Unexpected byte %s in RESP size", b));
+            }
+        }
+        return false;
+    }
+
+    private void sizeRead() throws IOException {
+        int value = (int) (negative ? -size : size);
+        state = READ_LF;
+        afterLf = READ_CODE;
+        if (code == RespArray.CODE) {
+            if (value < 0) {
+                throw new IOException(String.format("Negative array size %d", value));
+            }
+            if (value > maxArrayLength) {
+                throw new IOException(String.format("Array size %d exceeds limit %d", value, maxArrayLength));
+            }
+            if (value == 0) {
+                completed = new RespArray();
+            } else {
+                arrays.push(new PartialArray(value));
+            }
+            return;
+        }
+        if (value == RespBulkString.NULL_STRING_SIZE) {
+            completed = RespBulkString.NULL_STRING;
+            return;
+        }
+        if (value < 0) {
+            throw new IOException(String.format("Negative bulk string size %d", value));
+        }
+        if (value > maxBulkLength) {
+            throw new IOException(String.format("Bulk string size %d exceeds limit %d", value, maxBulkLength));
+        }
+        data = new byte[Math.min(value, INITIAL_CAPACITY)];
+        dataLength = 0;
+        bulkLength = value;
+        afterLf = READ_BULK_DATA;
+    }
+
+    /**
+     * Дочитывает сообщение об ошибке до CR
+     */
+    private void readError(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == CR) {
+                completed = new RespError(Arrays.copyOf(data, dataLength));
+                data = null;
+                state = READ_LF;
+                afterLf = READ_CODE;
+                return;
+            }
+            if (dataLength == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[dataLength++] = b;
+        }
+    }
+
+    private void expectCrLf(RespObject object) {
+        completed = object;
+        data = null;
+        state = READ_CR;
+        afterLf = READ_CODE;
+    }
+
+    /**
+     * Кладет дочитанный объект в массив, который его ждет
+     *
+     * @return объект верхнего уровня, если он дочитан, иначе null
+     */
+    private RespObject addToArrays(RespObject object) {
+        while (!arrays.isEmpty()) {
+            PartialArray array = arrays.peek();
+            if (array.filled == array.objects.length) {
+                array.objects = Arrays.copyOf(array.objects, Math.min(array.size, array.objects.length * 2));
+            }
+            array.objects[array.filled++] = object;
+            if (array.filled < array.size) {
+                return null;
+            }
+            arrays.pop();
+            object = new RespArray(array.objects);
+        }
+        return object;
+    }
+
+    private static final class PartialArray {
+        /**
+         * Объявленное количество элементов
+         */
+        private final int size;
+        private RespObject[] objects;
+        private int filled;
+
+        private PartialArray(int size) {
+            this.size = size;
+            this.objects = new RespObject[Math.min(size, INITIAL_CAPACITY)];
+        }
+    }
+}
@@ -10,20 +10,21 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
 
+/**
+ * Читает RESP объекты из input stream. Байты читаются из стрима порциями в переиспользуемый буфер
+ * и разбираются {@link RespFrameDecoder}, а не по одному байту на вызов {@link InputStream#read()}
+ */
 public class RespReader implements AutoCloseable {
     private static final int END_OF_STREAM = -1;
+    private static final int BUFFER_SIZE = 8 * 1024;
 
+    private final InputStream is;
     /**
-     * Специальные символы окончания элемента
+     * Прочитанные из стрима, но еще не разобранные байты, в режиме чтения
      */
-    private static final byte CR = '\r';
-    private static final byte LF = '\n';
-
-    private final InputStream is;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    private final RespFrameDecoder decoder = new RespFrameDecoder();
 
     public RespReader(InputStream is) {
         this.is = is;
@@ -33,11 +34,17 @@ public class RespReader implements AutoCloseable {
      * Есть ли следующий массив в стриме?
      */
     public boolean hasArray() throws IOException {
-        byte code = (byte) is.read();
-        if (code == END_OF_STREAM) {
-            throw new EOFException(String.format("End of file in stream %s", is));
+        if (!buffer.hasRemaining()) {
+            fill();
         }
-        return code == RespArray.CODE;
+        return buffer.get() == RespArray.CODE;
+    }
+
+    /**
+     * Сколько байт можно прочитать без блокировки: уже прочитанные в буфер и доступные в стриме
+     */
+    public int available() throws IOException {
+        return buffer.remaining() + is.available();
     }
 
     /**
@@ -48,22 +55,11 @@ public class RespReader implements AutoCloseable {
      * @throws IOException  при ошибке чтения
      */
     public RespObject readObject() throws IOException {
-        byte code = (byte) is.read();
-        if (code == END_OF_STREAM) {
-            throw new EOFException(String.format("End of file in stream %s", is));
-        }
-        switch (code) {
-            case RespArray.CODE:
-                return readArray();
-            case RespBulkString.CODE:
-                return readBulkString();
-            case RespCommandId.CODE:
-                return readCommandId();
-            case RespError.CODE:
-                return readError();
-            default:
-                throw new IOException("Unknown RESP object code");
+        RespObject object;
+        while ((object = decoder.decode(buffer)) == null) {
+            fill();
         }
+        return object;
     }
 
     /**
@@ -73,53 +69,8 @@ public class RespReader implements AutoCloseable {
      * @throws IOException  при ошибке чтения
      */
     public RespError readError() throws IOException {
-        StringBuilder result = new StringBuilder();
-        char ch;
-        while ((ch = (char) is.read()) != CR) {
-            if ((byte) ch == END_OF_STREAM) {
-                throw new EOFException(String.format("End of file in stream %s", is));
-            }
-            result.append(ch);
-        }
-        readLf();
-        return new RespError(String.valueOf(result).getBytes(StandardCharsets.UTF_8));
-    }
-
-    private int readSize() throws IOException {
-        List<Byte> result = new ArrayList<>();
-        byte b;
-        while ((b = (byte) is.read()) != CR) {
-            if (b == END_OF_STREAM) {
-                throw new EOFException(String.format("End of file in stream %s", is));
-            }
-            result.add(b);
-        }
-        readLf();
-        byte[] byteArray = new byte[result.size()];
-        for (int i = 0; i < result.size(); i++) {
-            byteArray[i] = result.get(i);
-        }
-        return Integer.parseInt(new String(byteArray));
-    }
-
-    private void readCr() throws IOException {
-        byte cr = (byte) is.read();
-        if (cr == END_OF_STREAM) {
-            throw new EOFException(String.format("End of file in stream %s", is));
-        }
-        if (cr != CR) {
-            throw new IOException(String.format("Error when CR expected but was read %s", cr));
-        }
-    }
-
-    private void readLf() throws IOException {
-        byte lf = (byte) is.read();
-        if (lf == END_OF_STREAM) {
-            throw new EOFException(String.format("End of file in stream %s", is));
-        }
-        if (lf != LF) {
-            throw new IOException(String.format("Error when LF expected but was read %s", lf));
-        }
+        decoder.expect(RespError.CODE);
+        return (RespError) readObject();
     }
 
     /**
@@ -129,17 +80,8 @@ public class RespReader implements AutoCloseable {
      * @throws IOException  при ошибке чтения
      */
     public RespBulkString readBulkString() throws IOException {
-        int size = readSize();
-        if (size == END_OF_STREAM) {
-            return RespBulkString.NULL_STRING;
-        }
-        byte[] data = is.readNBytes(size);
-        if (data.length != size) {
-            throw new EOFException(String.format("End of file in stream %s", is));
-        }
-        readCr();
-        readLf();
-        return new RespBulkString(data);
+        decoder.expect(RespBulkString.CODE);
+        return (RespBulkString) readObject();
     }
 
     /**
@@ -149,12 +91,8 @@ public class RespReader implements AutoCloseable {
      * @throws IOException  при ошибке чтения
      */
     public RespArray readArray() throws IOException {
-        int size = readSize();
-        RespObject[] objects = new RespObject[size];
-        for (int i = 0; i < size; i++) {
-            objects[i] = readObject();
-        }
-        return new RespArray(objects);
+        decoder.expect(RespArray.CODE);
+        return (RespArray) readObject();
     }
 
     /**
@@ -164,16 +102,27 @@ public class RespReader implements AutoCloseable {
      * @throws IOException  при ошибке чтения
      */
     public RespCommandId readCommandId() throws IOException {
-        int id = ByteBuffer.wrap(is.readNBytes(Integer.BYTES)).getInt();
-        if (id == END_OF_STREAM) {
+        decoder.expect(RespCommandId.CODE);
+        return (RespCommandId) readObject();
+    }
+
+    /**
+     * Дочитывает в буфер следующую порцию байт из стрима. Декодер забирает из буфера все, что пришло,
+     * поэтому сдвигать приходится только хвост после последнего прочитанного объекта
+     *
+     * @throws EOFException если stream кончился
+     */
+    private void fill() throws IOException {
+        buffer.compact();
+        int read = is.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        if (read == END_OF_STREAM) {
+            buffer.flip();
             throw new EOFException(String.format("End of file in stream %s", is));
         }
-        readCr();
-        readLf();
-        return new RespCommandId(id);
+        buffer.position(buffer.position() + read);
+        buffer.flip();
     }
 
-
     @Override
     public void close() throws IOException {
         is.close();
@@ -4,23 +4,102 @@ import com.itmo.java.protocol.model.RespObject;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
+/**
+ * Пишет RESP объекты в output stream. Объекты кодируются в буфер писателя, а в стрим байты уходят одним вызовом
+ * на {@link #flush()} или при заполнении буфера, а не по вызову на каждый код, размер и CRLF.
+ * Данные не меньше половины буфера пишутся в стрим напрямую, без копирования в буфер.
+ * Буферы {@link BufferSink} копируются прямо в буфер писателя, без промежуточного массива
+ */
 public class RespWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
     private final OutputStream os;
+    private final BufferedOutput buffered = new BufferedOutput();
 
     public RespWriter(OutputStream os) {
         this.os = os;
     }
 
     /**
-     * Записывает в output stream объект
+     * Записывает в буфер объект. До стрима он дойдет при {@link #flush()}
      */
     public void write(RespObject object) throws IOException {
-        object.write(os);
+        object.write(buffered);
+    }
+
+    /**
+     * Отправляет в стрим все записанное
+     */
+    public void flush() throws IOException {
+        buffered.drain();
+        os.flush();
     }
 
     @Override
     public void close() throws IOException {
-        os.close();
+        try {
+            flush();
+        } finally {
+            os.close();
+        }
+    }
+
+    /**
+     * Буфер, в который {@link RespObject#write(OutputStream)} пишет свои части
+     */
+    private final class BufferedOutput extends OutputStream implements BufferSink {
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int length;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (length == buffer.length) {
+                drain();
+            }
+            buffer[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len >= buffer.length / 2) {
+                drain();
+                os.write(b, off, len);
+                return;
+            }
+            if (len > buffer.length - length) {
+                drain();
+            }
+            System.arraycopy(b, off, buffer, length, len);
+            length += len;
+        }
+
+        @Override
+        public void write(ByteBuffer data, Runnable onSent) throws IOException {
+            try {
+                if (data.hasArray() && data.remaining() >= buffer.length / 2) {
+                    write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+                    return;
+                }
+                while (data.hasRemaining()) {
+                    if (length == buffer.length) {
+                        drain();
+                    }
+                    int chunk = Math.min(data.remaining(), buffer.length - length);
+                    data.get(buffer, length, chunk);
+                    length += chunk;
+                }
+            } finally {
+                onSent.run();
+            }
+        }
+
+        private void drain() throws IOException {
+            if (length > 0) {
+                os.write(buffer, 0, length);
+                length = 0;
+            }
+        }
     }
 }
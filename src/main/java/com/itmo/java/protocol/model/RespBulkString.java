@@ -42,6 +42,16 @@ public class RespBulkString implements RespObject {
         return data != null ? new String(data) : null;
     }
 
+    /**
+     * Байтовое представление
+     *
+     * @return сами данные без копирования, если они есть. Если нет - null
+     */
+    @Override
+    public byte[] asBytes() {
+        return data;
+    }
+
     @Override
     public void write(OutputStream os) throws IOException {
         os.write(CODE);
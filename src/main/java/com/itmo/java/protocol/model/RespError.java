@@ -12,6 +12,10 @@ public class RespError implements RespObject {
      * Код объекта
      */
     public static final byte CODE = '-';
+    /**
+     * Начало сообщения, которым сервер отклоняет команду из-за перегрузки. Клиенту стоит повторить ее позже
+     */
+    public static final String OVERLOADED = "OVERLOADED";
     private final byte[] message;
 
     public RespError(byte[] message) {
@@ -25,6 +25,15 @@ public interface RespObject {
      */
     String asString();
 
+    /**
+     * @return байтовое значение объекта без перекодирования там, где это возможно.
+     * По умолчанию - {@link #asString()} в UTF-8
+     */
+    default byte[] asBytes() {
+        String value = asString();
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
     /**
      * Сериализует данный объект в RESP и записывает байты в переданный OutputStream.
      */
@@ -0,0 +1,64 @@
+package com.itmo.java.protocol.model;
+
+import com.itmo.java.protocol.BufferSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Строка поверх удерживаемого буфера, например значения из кэша вне кучи. Кодируется так же, как {@link RespBulkString}.
+ * {@link BufferSink} получает сам буфер и отпускает его, когда отправит. В обычный поток байты копируются,
+ * и буфер отпускается сразу после записи
+ */
+public class RespRetainedBulkString implements RespObject {
+    private final ByteBuffer data;
+    private final Runnable release;
+
+    /**
+     * @param data    буфер ровно с данными строки
+     * @param release отпускает буфер, вызывается после записи
+     */
+    public RespRetainedBulkString(ByteBuffer data, Runnable release) {
+        this.data = data;
+        this.release = release;
+    }
+
+    @Override
+    public boolean isError() {
+        return false;
+    }
+
+    @Override
+    public String asString() {
+        return new String(asBytes());
+    }
+
+    /**
+     * @return копию данных
+     */
+    @Override
+    public byte[] asBytes() {
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void write(OutputStream os) throws IOException {
+        os.write(RespBulkString.CODE);
+        os.write(Integer.toString(data.remaining()).getBytes(StandardCharsets.UTF_8));
+        os.write(CRLF);
+        if (os instanceof BufferSink) {
+            ((BufferSink) os).write(data.duplicate(), release);
+        } else {
+            try {
+                os.write(asBytes());
+            } finally {
+                release.run();
+            }
+        }
+        os.write(CRLF);
+    }
+}
@@ -0,0 +1,27 @@
+package com.itmo.java.basics.connector;
+
+import com.itmo.java.basics.config.ConnectorType;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Потоки, на которых {@link JavaSocketServerConnector} обслуживает клиентские соединения.
+ * Версия для JDK 21+: у {@link ConnectorType#VIRTUAL} каждое соединение живет на своем виртуальном потоке
+ */
+final class ClientThreads {
+
+    private ClientThreads() {
+    }
+
+    /**
+     * Экзекьютор для {@link JavaSocketServerConnector.ClientTask}. Виртуальный поток, заблокированный на чтении
+     * из сокета, не держит поток ОС, поэтому тысячи простаивающих соединений обходятся дешево
+     */
+    static ExecutorService newClientExecutor(ConnectorType connectorType) {
+        if (connectorType == ConnectorType.VIRTUAL) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return Executors.newSingleThreadExecutor();
+    }
+}
@@ -0,0 +1,330 @@
+package com.itmo.java.basics;
+
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.console.impl.ExecutionEnvironmentImpl;
+import com.itmo.java.basics.console.impl.SuccessArrayDatabaseCommandResult;
+import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.initialization.impl.DatabaseInitializer;
+import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
+import com.itmo.java.basics.initialization.impl.SegmentInitializer;
+import com.itmo.java.basics.initialization.impl.TableInitializer;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespError;
+import com.itmo.java.protocol.model.RespObject;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DatabaseServerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DatabaseServer server;
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void rejectsCommandWhenQueueIsFull() throws Exception {
+        server = createServer(1, 0);
+        CompletableFuture<DatabaseCommandResult> running = server.executeNextCommand(this::blockUntilReleased);
+        CompletableFuture<DatabaseCommandResult> queued = server.executeNextCommand(() -> success("queued"));
+
+        CompletableFuture<DatabaseCommandResult> rejected = server.executeNextCommand(() -> success("rejected"));
+
+        assertTrue(rejected.isDone());
+        assertOverloaded(rejected.get());
+        assertEquals(1, server.getRejectedCommands());
+        release.countDown();
+        assertFalse(running.get(5, TimeUnit.SECONDS).serialize().isError());
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS).getPayLoad());
+    }
+
+    @Test
+    public void rejectsCommandThatWaitedLongerThanDeadline() throws Exception {
+        server = createServer(10, 50);
+        CompletableFuture<DatabaseCommandResult> running = server.executeNextCommand(this::blockUntilReleased);
+        CompletableFuture<DatabaseCommandResult> expired = server.executeNextCommand(() -> success("expired"));
+        Thread.sleep(100);
+
+        release.countDown();
+
+        assertFalse(running.get(5, TimeUnit.SECONDS).serialize().isError());
+        assertOverloaded(expired.get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getExpiredCommands());
+        assertEquals("fresh", server.executeNextCommand(() -> success("fresh")).get(5, TimeUnit.SECONDS).getPayLoad());
+    }
+
+    @Test
+    public void commandsOnOneKeyRunInSubmissionOrder() throws Exception {
+        server = createServer(4, DatabaseConfig.DEFAULT_EXECUTOR_QUEUE_CAPACITY, 0);
+        createTable();
+
+        List<CompletableFuture<DatabaseCommandResult>> reads = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            server.executeNextCommand(command("SET_KEY", "db", "table", "key", String.valueOf(i)));
+            server.executeNextCommand(command("SET_KEY", "db", "table", "other" + i, "other"));
+            reads.add(server.executeNextCommand(command("GET_KEY", "db", "table", "key")));
+        }
+
+        for (int i = 0; i < reads.size(); i++) {
+            assertEquals(String.valueOf(i), reads.get(i).get(5, TimeUnit.SECONDS).getPayLoad());
+        }
+    }
+
+    @Test
+    public void administrativeAndWholeTableCommandsRunOnCoordinator() throws Exception {
+        server = createServer(4, DatabaseConfig.DEFAULT_EXECUTOR_QUEUE_CAPACITY, 0);
+        createTable();
+        RespArray createDatabase = command("CREATE_DATABASE", "other");
+        RespArray scan = command("SCAN_PREFIX", "db", "table", "key", "10");
+        assertFalse(server.isSharded(createDatabase));
+        assertFalse(server.isSharded(command("CREATE_TABLE", "db", "other")));
+        assertFalse(server.isSharded(scan));
+        assertFalse(server.isSharded(command("SCAN_RANGE", "db", "table", "a", "z", "10")));
+        assertTrue(server.isSharded(command("GET_KEY", "db", "table", "key")));
+
+        CompletableFuture<DatabaseCommandResult> running = server.executeNextCommand(this::blockUntilReleased);
+        CompletableFuture<DatabaseCommandResult> created = server.executeNextCommand(createDatabase);
+        CompletableFuture<DatabaseCommandResult> scanned = server.executeNextCommand(scan);
+        CompletableFuture<DatabaseCommandResult> read = server.executeNextCommand(command("GET_KEY", "db", "table", "key"));
+
+        assertTrue(read.get(5, TimeUnit.SECONDS).isSuccess());
+        assertFalse(created.isDone());
+        assertFalse(scanned.isDone());
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS).isSuccess());
+        assertTrue(created.get(5, TimeUnit.SECONDS).getPayLoad(), created.get().isSuccess());
+        assertTrue(scanned.get(5, TimeUnit.SECONDS).getPayLoad(), scanned.get().isSuccess());
+    }
+
+    @Test
+    public void unknownCommandFailsOnCoordinator() throws Exception {
+        server = createServer(4, DatabaseConfig.DEFAULT_EXECUTOR_QUEUE_CAPACITY, 0);
+        RespArray unknown = command("NO_SUCH_COMMAND", "db", "table", "key");
+        assertFalse(server.isSharded(unknown));
+
+        CompletableFuture<DatabaseCommandResult> running = server.executeNextCommand(this::blockUntilReleased);
+        CompletableFuture<DatabaseCommandResult> failed = server.executeNextCommand(unknown);
+        Thread.sleep(50);
+
+        assertFalse(failed.isDone());
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS).isSuccess());
+        DatabaseCommandResult result = failed.get(5, TimeUnit.SECONDS);
+        assertFalse(result.isSuccess());
+        assertTrue(result.serialize().isError());
+    }
+
+    @Test
+    public void multiKeyCommandsAreSplitByShardAndMergedInKeyOrder() throws Exception {
+        server = createServer(4, DatabaseConfig.DEFAULT_EXECUTOR_QUEUE_CAPACITY, 0);
+        createTable();
+        // ключей достаточно, чтобы они попали во все шарды
+        List<String> msetArgs = new ArrayList<>(List.of("MSET_KEYS", "db", "table"));
+        for (int i = 0; i < 32; i += 2) {
+            msetArgs.add("key" + i);
+            msetArgs.add("value" + i);
+        }
+        List<byte[]> previous = values(server.executeNextCommand(command(msetArgs.toArray(new String[0]))));
+        assertEquals(16, previous.size());
+        for (byte[] value : previous) {
+            assertNull(value);
+        }
+
+        List<String> mgetArgs = new ArrayList<>(List.of("MGET_KEYS", "db", "table"));
+        for (int i = 31; i >= 0; i--) {
+            mgetArgs.add("key" + i);
+        }
+        List<byte[]> values = values(server.executeNextCommand(command(mgetArgs.toArray(new String[0]))));
+
+        assertEquals(32, values.size());
+        for (int i = 31; i >= 0; i--) {
+            byte[] value = values.get(31 - i);
+            if (i % 2 == 0) {
+                assertEquals("value" + i, new String(value, StandardCharsets.UTF_8));
+            } else {
+                assertNull(value);
+            }
+        }
+    }
+
+    @Test
+    public void failedPartOfMultiKeyCommandFailsWholeCommand() throws Exception {
+        server = createServer(new FailingReadsEnvironment(config(4, DatabaseConfig.DEFAULT_EXECUTOR_QUEUE_CAPACITY, 0)));
+        createTable();
+        List<String> args = new ArrayList<>(List.of("MGET_KEYS", "db", "table"));
+        for (int i = 0; i < 32; i++) {
+            args.add("key" + i);
+        }
+        args.add(FailingReadsEnvironment.BROKEN_KEY);
+
+        DatabaseCommandResult result = server.executeNextCommand(command(args.toArray(new String[0])))
+                .get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isSuccess());
+        assertEquals(FailingReadsEnvironment.BROKEN_KEY, result.getPayLoad());
+        assertEquals(32, values(server.executeNextCommand(command(args.subList(0, 35).toArray(new String[0])))).size());
+    }
+
+    private static List<byte[]> values(CompletableFuture<DatabaseCommandResult> future) throws Exception {
+        DatabaseCommandResult result = future.get(5, TimeUnit.SECONDS);
+        assertTrue(result.getPayLoad(), result instanceof SuccessArrayDatabaseCommandResult);
+        return ((SuccessArrayDatabaseCommandResult) result).getValues();
+    }
+
+    private DatabaseServer createServer(int queueCapacity, long deadlineMillis) throws Exception {
+        return createServer(1, queueCapacity, deadlineMillis);
+    }
+
+    private DatabaseServer createServer(int shards, int queueCapacity, long deadlineMillis) throws Exception {
+        return createServer(new ExecutionEnvironmentImpl(config(shards, queueCapacity, deadlineMillis)));
+    }
+
+    private DatabaseConfig config(int shards, int queueCapacity, long deadlineMillis) {
+        TableConfig tableConfig = TableConfig.defaultConfig().toBuilder().orderedIndex(true).build();
+        return new DatabaseConfig(folder.getRoot().toString(), tableConfig, Map.of(),
+                DatabaseConfig.DEFAULT_CACHE_MAX_BYTES, false, shards, queueCapacity, deadlineMillis);
+    }
+
+    private static DatabaseServer createServer(ExecutionEnvironmentImpl environment) throws Exception {
+        return DatabaseServer.initialize(environment,
+                new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer()))));
+    }
+
+    private void createTable() throws Exception {
+        assertTrue(server.executeNextCommand(command("CREATE_DATABASE", "db")).get(5, TimeUnit.SECONDS).isSuccess());
+        assertTrue(server.executeNextCommand(command("CREATE_TABLE", "db", "table")).get(5, TimeUnit.SECONDS).isSuccess());
+    }
+
+    private static RespArray command(String... args) {
+        RespObject[] objects = new RespObject[args.length + 1];
+        objects[0] = new RespCommandId(1);
+        for (int i = 0; i < args.length; i++) {
+            objects[i + 1] = new RespBulkString(args[i].getBytes(StandardCharsets.UTF_8));
+        }
+        return new RespArray(objects);
+    }
+
+    private DatabaseCommandResult blockUntilReleased() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return success("released");
+    }
+
+    private static DatabaseCommandResult success(String payload) {
+        return DatabaseCommandResult.success(payload.getBytes());
+    }
+
+    private static void assertOverloaded(DatabaseCommandResult result) {
+        assertFalse(result.isSuccess());
+        RespObject response = result.serialize();
+        assertTrue(response.isError());
+        assertTrue(response.asString(), response.asString().startsWith(RespError.OVERLOADED));
+    }
+
+    /**
+     * Окружение, базы данных которого не читают {@link #BROKEN_KEY}, так что падает только часть команды с его шардом
+     */
+    private static final class FailingReadsEnvironment extends ExecutionEnvironmentImpl {
+        static final String BROKEN_KEY = "broken";
+
+        FailingReadsEnvironment(DatabaseConfig config) {
+            super(config);
+        }
+
+        @Override
+        public Optional<Database> getDatabase(String name) {
+            return super.getDatabase(name).map(FailingReadsDatabase::new);
+        }
+    }
+
+    private static final class FailingReadsDatabase implements Database {
+        private final Database database;
+
+        FailingReadsDatabase(Database database) {
+            this.database = database;
+        }
+
+        @Override
+        public List<Optional<byte[]>> readAll(String tableName, List<DatabaseKey> objectKeys) throws DatabaseException {
+            if (objectKeys.contains(DatabaseKey.of(FailingReadsEnvironment.BROKEN_KEY))) {
+                throw new DatabaseException(FailingReadsEnvironment.BROKEN_KEY);
+            }
+            return database.readAll(tableName, objectKeys);
+        }
+
+        @Override
+        public String getName() {
+            return database.getName();
+        }
+
+        @Override
+        public void createTableIfNotExists(String tableName) throws DatabaseException {
+            database.createTableIfNotExists(tableName);
+        }
+
+        @Override
+        public void write(String tableName, DatabaseKey objectKey, byte[] objectValue) throws DatabaseException {
+            database.write(tableName, objectKey, objectValue);
+        }
+
+        @Override
+        public Optional<byte[]> read(String tableName, DatabaseKey objectKey) throws DatabaseException {
+            return database.read(tableName, objectKey);
+        }
+
+        @Override
+        public void writeAll(String tableName, List<DatabaseKey> objectKeys, List<byte[]> objectValues)
+                throws DatabaseException {
+            database.writeAll(tableName, objectKeys, objectValues);
+        }
+
+        @Override
+        public void delete(String tableName, DatabaseKey objectKey) throws DatabaseException {
+            database.delete(tableName, objectKey);
+        }
+
+        @Override
+        public SortedMap<DatabaseKey, byte[]> scan(String tableName, DatabaseKey fromKey, boolean fromInclusive,
+                                                   DatabaseKey toKey, int limit) throws DatabaseException {
+            return database.scan(tableName, fromKey, fromInclusive, toKey, limit);
+        }
+
+        @Override
+        public void close() throws DatabaseException {
+            database.close();
+        }
+    }
+}
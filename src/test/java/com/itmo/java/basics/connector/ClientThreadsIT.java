@@ -0,0 +1,34 @@
+package com.itmo.java.basics.connector;
+
+import com.itmo.java.basics.config.ConnectorType;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Запускается профилем jdk21 на собранном multi-release jar: на JDK 21+ должна загрузиться
+ * версия {@link ClientThreads} из src/main/java21 с виртуальными потоками
+ */
+public class ClientThreadsIT {
+
+    @Test
+    public void virtualConnectorUsesVirtualThreadsOnJdk21() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21);
+        String location = String.valueOf(ClientThreads.class.getResource("ClientThreads.class"));
+        assertTrue(location, location.contains("META-INF/versions/21/"));
+
+        ExecutorService executor = ClientThreads.newClientExecutor(ConnectorType.VIRTUAL);
+        try {
+            // Thread.isVirtual() появился в JDK 21, а тесты компилируются под Java 11
+            Object virtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()))
+                    .get(5, TimeUnit.SECONDS);
+            assertTrue(Boolean.TRUE.equals(virtual));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.itmo.java.basics.connector;
+
+import com.itmo.java.basics.DatabaseServer;
+import com.itmo.java.basics.config.ConnectorType;
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.ServerConfig;
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.console.impl.ExecutionEnvironmentImpl;
+import com.itmo.java.basics.initialization.impl.DatabaseInitializer;
+import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
+import com.itmo.java.basics.initialization.impl.SegmentInitializer;
+import com.itmo.java.basics.initialization.impl.TableInitializer;
+import com.itmo.java.protocol.RespFrameDecoder;
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NioServerConnectorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DatabaseServer databaseServer;
+    private NioServerConnector connector;
+    private int port;
+
+    @Before
+    public void setUp() throws Exception {
+        start(new DatabaseConfig(folder.getRoot().toString()));
+    }
+
+    private void start(DatabaseConfig config) throws Exception {
+        databaseServer = DatabaseServer.initialize(new ExecutionEnvironmentImpl(config),
+                new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer()))));
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        // один цикл событий, чтобы все соединения теста обслуживал один поток
+        connector = new NioServerConnector(databaseServer,
+                new ServerConfig("localhost", port, ConnectorType.NIO, 1, ServerConfig.DEFAULT_MAX_IN_FLIGHT));
+        connector.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connector.close();
+        databaseServer.close();
+    }
+
+    @Test
+    public void brokenClientClosesOnlyItsConnection() throws Exception {
+        try (Socket healthy = connect(); Socket broken = connect()) {
+            RespObject created = roundTrip(healthy, command(1, "CREATE_DATABASE", "db"));
+            assertFalse(created.asString(), created.isError());
+
+            broken.getOutputStream().write("not a RESP array\r\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals(-1, broken.getInputStream().read());
+
+            RespObject table = roundTrip(healthy, command(2, "CREATE_TABLE", "db", "table"));
+            assertFalse(table.asString(), table.isError());
+            try (Socket next = connect()) {
+                RespObject missing = roundTrip(next, command(3, "GET_KEY", "db", "table", "key"));
+                assertTrue(missing.asString(), missing.isError() || missing.asString() == null);
+            }
+        }
+    }
+
+    @Test
+    public void clientThatDoesNotReadIsServedAfterItCatchesUp() throws Exception {
+        try (Socket socket = connect()) {
+            assertFalse(roundTrip(socket, command(1, "CREATE_DATABASE", "db")).isError());
+            assertFalse(roundTrip(socket, command(2, "CREATE_TABLE", "db", "table")).isError());
+            String value = "v".repeat(16 * 1024);
+            assertFalse(roundTrip(socket, command(3, "SET_KEY", "db", "table", "key", value)).isError());
+
+            // ответов на все команды больше порога очереди ответов, а клиент пока их не читает
+            int commands = 1000;
+            ByteArrayOutputStream requests = new ByteArrayOutputStream();
+            for (int i = 0; i < commands; i++) {
+                command(4 + i, "GET_KEY", "db", "table", "key").write(requests);
+            }
+            socket.getOutputStream().write(requests.toByteArray());
+            Thread.sleep(200);
+
+            for (RespObject response : readResponses(socket, commands)) {
+                assertEquals(value, response.asString());
+            }
+        }
+    }
+
+    @Test
+    public void offHeapValueQueuedForSendingIsNotOverwritten() throws Exception {
+        tearDown();
+        // кэш на несколько значений, чтобы запись других ключей вытесняла прочитанное
+        start(new DatabaseConfig(folder.newFolder().toString(), TableConfig.defaultConfig(), Map.of(),
+                256 * 1024, true));
+        try (Socket reader = connect(); Socket writer = connect()) {
+            assertFalse(roundTrip(writer, command(1, "CREATE_DATABASE", "db")).isError());
+            assertFalse(roundTrip(writer, command(2, "CREATE_TABLE", "db", "table")).isError());
+            // ровно размер буфера из пула: срез слаба не должен попасть в пул
+            String original = "a".repeat(16 * 1024);
+            String overwritten = "b".repeat(16 * 1024);
+            assertFalse(roundTrip(writer, command(3, "SET_KEY", "db", "table", "key", original)).isError());
+            assertEquals(original, roundTrip(reader, command(4, "GET_KEY", "db", "table", "key")).asString());
+
+            // ответы больше порога очереди ответов и лежат в ней срезами, пока клиент их не читает
+            int commands = 200;
+            ByteArrayOutputStream requests = new ByteArrayOutputStream();
+            for (int i = 0; i < commands; i++) {
+                command(5 + i, "GET_KEY", "db", "table", "key").write(requests);
+            }
+            reader.getOutputStream().write(requests.toByteArray());
+            Thread.sleep(200);
+
+            assertFalse(roundTrip(writer, command(1, "SET_KEY", "db", "table", "key", overwritten)).isError());
+            for (int i = 0; i < 64; i++) {
+                String other = String.valueOf((char) ('c' + i % 20)).repeat(16 * 1024);
+                assertFalse(roundTrip(writer, command(2 + i, "SET_KEY", "db", "table", "other" + i, other)).isError());
+                assertEquals(other, roundTrip(writer, command(2 + i, "GET_KEY", "db", "table", "other" + i)).asString());
+            }
+
+            for (RespObject response : readResponses(reader, commands)) {
+                String value = response.asString();
+                assertTrue(value.equals(original) || value.equals(overwritten));
+            }
+        }
+    }
+
+    @Test
+    public void pipelinedScanSeesPrecedingWritesOnOtherShards() throws Exception {
+        tearDown();
+        start(new DatabaseConfig(folder.newFolder().toString(),
+                TableConfig.defaultConfig().toBuilder().orderedIndex(true).build(), Map.of(),
+                DatabaseConfig.DEFAULT_CACHE_MAX_BYTES, false, 2));
+        try (Socket socket = connect()) {
+            assertFalse(roundTrip(socket, command(1, "CREATE_DATABASE", "db")).isError());
+            assertFalse(roundTrip(socket, command(2, "CREATE_TABLE", "db", "table")).isError());
+
+            // ключи попадают в оба шарда, а скан по префиксу отправлен сразу за записями
+            for (int round = 0; round < 5; round++) {
+                int keys = 100;
+                String prefix = "round" + round + "-";
+                ByteArrayOutputStream requests = new ByteArrayOutputStream();
+                for (int i = 0; i < keys; i++) {
+                    command(i, "SET_KEY", "db", "table", prefix + i, "value").write(requests);
+                }
+                command(keys, "SCAN_PREFIX", "db", "table", prefix, "1000").write(requests);
+                socket.getOutputStream().write(requests.toByteArray());
+
+                List<RespObject> responses = readResponses(socket, keys + 1);
+                RespObject scan = responses.get(keys);
+                assertTrue(scan.asString(), scan instanceof RespArray);
+                // курсор и пары ключ, значение
+                assertEquals(1 + 2 * keys, ((RespArray) scan).getObjects().size());
+            }
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", port);
+        socket.setSoTimeout(5_000);
+        return socket;
+    }
+
+    static RespArray command(int id, String... args) {
+        RespObject[] objects = new RespObject[args.length + 1];
+        objects[0] = new RespCommandId(id);
+        for (int i = 0; i < args.length; i++) {
+            objects[i + 1] = new RespBulkString(args[i].getBytes(StandardCharsets.UTF_8));
+        }
+        return new RespArray(objects);
+    }
+
+    /**
+     * Читает ответы на несколько отправленных команд
+     */
+    private static List<RespObject> readResponses(Socket socket, int count) throws IOException {
+        RespFrameDecoder decoder = new RespFrameDecoder();
+        InputStream input = socket.getInputStream();
+        byte[] chunk = new byte[64 * 1024];
+        List<RespObject> responses = new ArrayList<>(count);
+        while (responses.size() < count) {
+            int read = input.read(chunk);
+            assertTrue(read > 0);
+            ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+            RespObject response;
+            while ((response = decoder.decode(buffer)) != null) {
+                responses.add(response);
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Отправляет команду и читает ответ на нее
+     */
+    static RespObject roundTrip(Socket socket, RespArray command) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        command.write(bytes);
+        socket.getOutputStream().write(bytes.toByteArray());
+        RespFrameDecoder decoder = new RespFrameDecoder();
+        InputStream input = socket.getInputStream();
+        byte[] chunk = new byte[1];
+        while (true) {
+            if (input.read(chunk) < 0) {
+                throw new IOException("Connection closed before response");
+            }
+            RespObject response = decoder.decode(ByteBuffer.wrap(chunk));
+            if (response != null) {
+                return response;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.impl.DatabaseImpl;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class MGetKeysCommandTest {
+    private static final String DB = "db";
+    private static final String TABLE = "table";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutionEnvironmentImpl environment;
+
+    @Before
+    public void setUp() throws Exception {
+        environment = new ExecutionEnvironmentImpl(new DatabaseConfig(folder.getRoot().toString()));
+        Database database = DatabaseImpl.create(DB, folder.getRoot().toPath(), environment.getConfig(), environment.getCache());
+        environment.addDatabase(database);
+        database.createTableIfNotExists(TABLE);
+        database.write(TABLE, "a", value("a"));
+        database.write(TABLE, "c", value("c"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Test
+    public void returnsValuesInKeyOrderWithNullForMissingKeys() {
+        DatabaseCommandResult result = new MGetKeysCommand(environment, args(DB, TABLE, "c", "b", "a", "c")).execute();
+
+        assertTrue(result.getPayLoad(), result.isSuccess());
+        List<byte[]> values = ((SuccessArrayDatabaseCommandResult) result).getValues();
+        assertEquals(4, values.size());
+        assertArrayEquals(value("c"), values.get(0));
+        assertNull(values.get(1));
+        assertArrayEquals(value("a"), values.get(2));
+        assertArrayEquals(value("c"), values.get(3));
+    }
+
+    @Test
+    public void failsForMissingDatabaseOrTable() {
+        assertFalse(new MGetKeysCommand(environment, args("other", TABLE, "a")).execute().isSuccess());
+        assertFalse(new MGetKeysCommand(environment, args(DB, "other", "a")).execute().isSuccess());
+    }
+
+    @Test
+    public void requiresAtLeastOneKey() {
+        assertThrows(IllegalArgumentException.class, () -> new MGetKeysCommand(environment, args(DB, TABLE)));
+    }
+
+    private static List<RespObject> args(String... args) {
+        List<RespObject> respArgs = new ArrayList<>();
+        respArgs.add(new RespBulkString("1".getBytes(StandardCharsets.UTF_8)));
+        respArgs.add(new RespBulkString("MGET_KEYS".getBytes(StandardCharsets.UTF_8)));
+        for (String arg : args) {
+            respArgs.add(new RespBulkString(arg.getBytes(StandardCharsets.UTF_8)));
+        }
+        return respArgs;
+    }
+
+    private static byte[] value(String key) {
+        return ("value-" + key).getBytes(StandardCharsets.UTF_8);
+    }
+}
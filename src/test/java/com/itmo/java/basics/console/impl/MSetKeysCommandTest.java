@@ -0,0 +1,90 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.impl.DatabaseImpl;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class MSetKeysCommandTest {
+    private static final String DB = "db";
+    private static final String TABLE = "table";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutionEnvironmentImpl environment;
+    private Database database;
+
+    @Before
+    public void setUp() throws Exception {
+        environment = new ExecutionEnvironmentImpl(new DatabaseConfig(folder.getRoot().toString()));
+        database = DatabaseImpl.create(DB, folder.getRoot().toPath(), environment.getConfig(), environment.getCache());
+        environment.addDatabase(database);
+        database.createTableIfNotExists(TABLE);
+        database.write(TABLE, "a", bytes("old-a"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Test
+    public void writesAllPairsAndReturnsPreviousValuesInKeyOrder() throws Exception {
+        DatabaseCommandResult result = new MSetKeysCommand(environment,
+                args(DB, TABLE, "b", "new-b", "a", "new-a")).execute();
+
+        assertTrue(result.getPayLoad(), result.isSuccess());
+        List<byte[]> previous = ((SuccessArrayDatabaseCommandResult) result).getValues();
+        assertEquals(2, previous.size());
+        assertNull(previous.get(0));
+        assertArrayEquals(bytes("old-a"), previous.get(1));
+        assertArrayEquals(bytes("new-a"), database.read(TABLE, "a").orElseThrow());
+        assertArrayEquals(bytes("new-b"), database.read(TABLE, "b").orElseThrow());
+    }
+
+    @Test
+    public void failsForMissingTableWithoutWriting() throws Exception {
+        assertFalse(new MSetKeysCommand(environment, args(DB, "other", "a", "value")).execute().isSuccess());
+        assertArrayEquals(bytes("old-a"), database.read(TABLE, "a").orElseThrow());
+    }
+
+    @Test
+    public void requiresKeyValuePairs() {
+        assertThrows(IllegalArgumentException.class, () -> new MSetKeysCommand(environment, args(DB, TABLE)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new MSetKeysCommand(environment, args(DB, TABLE, "a", "value", "b")));
+    }
+
+    private static List<RespObject> args(String... args) {
+        List<RespObject> respArgs = new ArrayList<>();
+        respArgs.add(new RespBulkString("1".getBytes(StandardCharsets.UTF_8)));
+        respArgs.add(new RespBulkString("MSET_KEYS".getBytes(StandardCharsets.UTF_8)));
+        for (String arg : args) {
+            respArgs.add(new RespBulkString(arg.getBytes(StandardCharsets.UTF_8)));
+        }
+        return respArgs;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
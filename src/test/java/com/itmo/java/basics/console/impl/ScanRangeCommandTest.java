@@ -0,0 +1,152 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.impl.DatabaseImpl;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ScanRangeCommandTest {
+    private static final String DB = "db";
+    private static final String TABLE = "table";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutionEnvironmentImpl environment;
+    private Database database;
+
+    @Before
+    public void setUp() throws Exception {
+        TableConfig config = TableConfig.defaultConfig().toBuilder().orderedIndex(true).build();
+        environment = new ExecutionEnvironmentImpl(new DatabaseConfig(folder.getRoot().toString(), config, Map.of()));
+        database = DatabaseImpl.create(DB, folder.getRoot().toPath(), environment.getConfig(), environment.getCache());
+        environment.addDatabase(database);
+        database.createTableIfNotExists(TABLE);
+        for (int i = 0; i < 100; i++) {
+            database.write(TABLE, key(i), value(i));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Test
+    public void pagesThroughRangeWithCursor() {
+        List<String> keys = scanAll("key010", "key050", 7);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 10; i < 50; i++) {
+            expected.add(name(i));
+        }
+        assertEquals(expected, keys);
+    }
+
+    @Test
+    public void skipsDeletedKeys() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 != 0) {
+                database.delete(TABLE, key(i));
+            }
+        }
+        database.write(TABLE, key(1), value(1));
+
+        List<String> keys = scanAll("key000", "", 5);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 == 0 || i == 1) {
+                expected.add(name(i));
+            }
+        }
+        assertEquals(expected, keys);
+    }
+
+    @Test
+    public void lastPageHasNoCursor() {
+        List<byte[]> page = scan("key095", "", 10, null);
+        assertNull(page.get(0));
+        assertEquals(2 * 5, page.size() - 1);
+        assertArrayEquals(value(95), page.get(2));
+
+        page = scan("key000", "key005", 5, null);
+        assertArrayEquals(key(4).getBytes(), page.get(0));
+        assertTrue(scan("key000", "key005", 5, page.get(0)).get(0) == null);
+    }
+
+    @Test
+    public void rejectsNonPositiveLimit() {
+        DatabaseCommandResult result = new ScanRangeCommand(environment, args("key000", "", "0", null)).execute();
+        assertFalse(result.isSuccess());
+    }
+
+    /**
+     * Читает диапазон страницами, передавая курсор из предыдущего ответа
+     */
+    private List<String> scanAll(String from, String to, int limit) {
+        List<String> keys = new ArrayList<>();
+        byte[] cursor = null;
+        do {
+            List<byte[]> page = scan(from, to, limit, cursor);
+            assertTrue(page.size() - 1 <= 2 * limit);
+            for (int i = 1; i < page.size(); i += 2) {
+                keys.add(new String(page.get(i), StandardCharsets.UTF_8));
+            }
+            cursor = page.get(0);
+        } while (cursor != null);
+        return keys;
+    }
+
+    private List<byte[]> scan(String from, String to, int limit, byte[] cursor) {
+        DatabaseCommandResult result = new ScanRangeCommand(environment,
+                args(from, to, String.valueOf(limit), cursor)).execute();
+        assertTrue(result.getPayLoad(), result.isSuccess());
+        return ((SuccessArrayDatabaseCommandResult) result).getValues();
+    }
+
+    private static List<RespObject> args(String from, String to, String limit, byte[] cursor) {
+        List<String> args = Arrays.asList("1", "SCAN_RANGE", DB, TABLE, from, to, limit);
+        List<RespObject> respArgs = args.stream()
+                .map(arg -> new RespBulkString(arg.getBytes(StandardCharsets.UTF_8)))
+                .collect(Collectors.toList());
+        if (cursor != null) {
+            respArgs.add(new RespBulkString(cursor));
+        }
+        return respArgs;
+    }
+
+    private static DatabaseKey key(int i) {
+        return DatabaseKey.of(name(i));
+    }
+
+    private static String name(int i) {
+        return String.format("key%03d", i);
+    }
+
+    private static byte[] value(int i) {
+        return ("value" + i).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.logic.DatabaseKey;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OpenAddressingIndexTest {
+    @Test
+    public void putGetAndUpdate() {
+        OpenAddressingIndex index = new OpenAddressingIndex();
+        index.put(DatabaseKey.of("a"), 1);
+        index.put(DatabaseKey.of("b"), 2);
+        index.put(DatabaseKey.of("a"), 3);
+
+        assertEquals(2, index.size());
+        assertEquals(3, index.get(DatabaseKey.of("a")));
+        assertEquals(2, index.get(DatabaseKey.of("b")));
+        assertEquals(OpenAddressingIndex.NO_VALUE, index.get(DatabaseKey.of("c")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeValues() {
+        new OpenAddressingIndex().put(DatabaseKey.of("a"), -1);
+    }
+
+    /**
+     * После удаления остальные ключи цепочки должны находиться: удаление сдвигает их назад, а не оставляет дыру
+     */
+    @Test
+    public void removeKeepsCollidingKeysReachable() {
+        OpenAddressingIndex index = new OpenAddressingIndex();
+        int keys = 170;
+        for (int i = 0; i < keys; i++) {
+            index.put(DatabaseKey.of("key" + i), i);
+        }
+        for (int i = 0; i < keys; i += 2) {
+            index.remove(DatabaseKey.of("key" + i));
+            for (int j = i + 1; j < keys; j++) {
+                assertEquals("key" + j, j, index.get(DatabaseKey.of("key" + j)));
+            }
+        }
+        assertEquals(keys / 2, index.size());
+        for (int i = 0; i < keys; i++) {
+            assertEquals(i % 2 == 0 ? OpenAddressingIndex.NO_VALUE : i, index.get(DatabaseKey.of("key" + i)));
+        }
+        index.remove(DatabaseKey.of("key0"));
+        assertEquals(keys / 2, index.size());
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomPutsAndRemoves() {
+        Random random = new Random(42);
+        OpenAddressingIndex index = new OpenAddressingIndex();
+        Map<DatabaseKey, Long> model = new HashMap<>();
+        for (int operation = 0; operation < 200_000; operation++) {
+            DatabaseKey key = DatabaseKey.of("key" + random.nextInt(2_000));
+            if (random.nextInt(3) == 0) {
+                index.remove(key);
+                model.remove(key);
+            } else {
+                long value = random.nextInt(Integer.MAX_VALUE);
+                index.put(key, value);
+                model.put(key, value);
+            }
+            if (operation % 10_000 == 0) {
+                assertSameContents(model, index);
+            }
+        }
+        assertSameContents(model, index);
+    }
+
+    @Test
+    public void churnOfNewKeysKeepsWorking() {
+        OpenAddressingIndex index = new OpenAddressingIndex();
+        for (int i = 0; i < 500_000; i++) {
+            index.put(DatabaseKey.of("key" + i), i);
+            if (i >= 100) {
+                index.remove(DatabaseKey.of("key" + (i - 100)));
+            }
+        }
+        assertEquals(100, index.size());
+        for (int i = 499_900; i < 500_000; i++) {
+            assertEquals(i, index.get(DatabaseKey.of("key" + i)));
+        }
+    }
+
+    private static void assertSameContents(Map<DatabaseKey, Long> model, OpenAddressingIndex index) {
+        assertEquals(model.size(), index.size());
+        for (Map.Entry<DatabaseKey, Long> entry : model.entrySet()) {
+            assertEquals(entry.getValue().longValue(), index.get(entry.getKey()));
+        }
+        Map<DatabaseKey, Long> visited = new HashMap<>();
+        index.forEach((key, value) -> assertTrue(visited.put(key, value) == null));
+        assertEquals(model, visited);
+    }
+}
@@ -0,0 +1,38 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.config.IndexType;
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.logic.DatabaseKey;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TableIndexTest {
+    @Test
+    public void deletedKeysLeaveOrderedKeys() {
+        for (IndexType indexType : IndexType.values()) {
+            TableIndex index = TableIndex.create(TableConfig.defaultConfig().toBuilder()
+                    .indexType(indexType)
+                    .orderedIndex(true)
+                    .build());
+            index.onIndexedEntityUpdated(DatabaseKey.of("a"), new SegmentLocation(null, 0));
+            index.onIndexedEntityUpdated(DatabaseKey.of("b"), new SegmentLocation(null, 10));
+            index.onIndexedEntityDeleted(DatabaseKey.of("a"), new SegmentLocation(null, 20));
+
+            assertEquals(List.of(DatabaseKey.of("b")), List.copyOf(index.orderedKeys().orElseThrow()));
+            assertEquals(20, index.searchForKey(DatabaseKey.of("a")).orElseThrow().getOffset());
+
+            index.onIndexedEntityUpdated(DatabaseKey.of("a"), new SegmentLocation(null, 30));
+            assertEquals(List.of(DatabaseKey.of("a"), DatabaseKey.of("b")),
+                    List.copyOf(index.orderedKeys().orElseThrow()));
+        }
+    }
+
+    @Test
+    public void unorderedIndexHasNoOrderedKeys() {
+        assertTrue(TableIndex.create(TableConfig.defaultConfig()).orderedKeys().isEmpty());
+    }
+}
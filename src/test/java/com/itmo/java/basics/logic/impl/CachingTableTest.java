@@ -0,0 +1,113 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.index.impl.TableIndex;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.Table;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CachingTableTest {
+    private static final DatabaseKey KEY = DatabaseKey.of("key");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SharedDatabaseCache cache;
+    private Table table;
+
+    @Before
+    public void setUp() throws Exception {
+        TableConfig config = TableConfig.defaultConfig();
+        cache = SharedDatabaseCache.create(1 << 20);
+        table = TableImpl.create("table", folder.getRoot().toPath(), TableIndex.create(config), config, cache);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table.close();
+    }
+
+    @Test
+    public void writeInvalidatesCachedValue() throws Exception {
+        table.write(KEY, bytes("first"));
+        assertEquals(0, cache.getBytes());
+
+        assertArrayEquals(bytes("first"), table.read(KEY).orElseThrow());
+        assertTrue(cache.getBytes() > 0);
+
+        table.write(KEY, bytes("second"));
+        assertEquals(0, cache.getBytes());
+        assertArrayEquals(bytes("second"), table.read(KEY).orElseThrow());
+    }
+
+    @Test
+    public void writeAllInvalidatesCachedValues() throws Exception {
+        DatabaseKey other = DatabaseKey.of("other");
+        table.writeAll(List.of(KEY, other), List.of(bytes("first"), bytes("first")));
+        table.readAll(List.of(KEY, other));
+        assertTrue(cache.getBytes() > 0);
+
+        table.writeAll(List.of(KEY, other), List.of(bytes("second"), bytes("third")));
+        assertEquals(0, cache.getBytes());
+        List<Optional<byte[]>> values = table.readAll(List.of(KEY, other));
+        assertArrayEquals(bytes("second"), values.get(0).orElseThrow());
+        assertArrayEquals(bytes("third"), values.get(1).orElseThrow());
+    }
+
+    @Test
+    public void deleteInvalidatesCachedValue() throws Exception {
+        table.write(KEY, bytes("first"));
+        table.read(KEY);
+
+        table.delete(KEY);
+        assertEquals(0, cache.getBytes());
+        assertEquals(Optional.empty(), table.read(KEY));
+        assertTrue(cache.getBytes() > 0);
+        assertEquals(Optional.empty(), table.read(KEY));
+    }
+
+    @Test
+    public void hotKeysAreSavedPeriodically() throws Exception {
+        TableConfig config = TableConfig.defaultConfig().toBuilder()
+                .hotKeysLimit(1)
+                .hotKeysIntervalMillis(20)
+                .build();
+        Table hotTable = TableImpl.create("hot", folder.getRoot().toPath(), TableIndex.create(config), config, cache);
+        try {
+            DatabaseKey other = DatabaseKey.of("other");
+            hotTable.write(KEY, bytes("hot"));
+            hotTable.write(other, bytes("cold"));
+            for (int i = 0; i < 5; i++) {
+                hotTable.read(KEY);
+            }
+            hotTable.read(other);
+
+            Path tablePath = folder.getRoot().toPath().resolve("hot");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (HotKeySnapshot.read(tablePath).orElse(List.of()).isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            // снимок пишется, пока таблица открыта, и в нем только самый частый ключ
+            assertEquals(Optional.of(List.of(KEY)), HotKeySnapshot.read(tablePath));
+        } finally {
+            hotTable.close();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,202 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.DurabilityMode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GroupCommitWriterTest {
+    private static final int WRITERS = 16;
+    private static final int RECORD_SIZE = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void concurrentWritersShareFsync() throws Exception {
+        Path file = folder.newFile().toPath();
+        CountingChannel channel = new CountingChannel(file);
+        GroupCommitWriter writer = new GroupCommitWriter(channel, 0, DurabilityMode.EVERY_BATCH, 0);
+        Object tableLock = new Object();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                writes.add(executor.submit(() -> {
+                    start.await();
+                    long end;
+                    synchronized (tableLock) {
+                        end = writer.append(ByteBuffer.wrap(new byte[RECORD_SIZE]));
+                    }
+                    writer.awaitDurable(end);
+                    assertTrue(channel.syncedSize.get() >= end);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> write : writes) {
+                write.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue("fsync was not batched: " + channel.forces.get(), channel.forces.get() < WRITERS);
+        int forces = channel.forces.get();
+        writer.close();
+        assertEquals(forces, channel.forces.get());
+        assertEquals(WRITERS * RECORD_SIZE, Files.size(file));
+    }
+
+    @Test
+    public void noFsyncWithoutEveryBatchMode() throws Exception {
+        CountingChannel channel = new CountingChannel(folder.newFile().toPath());
+        GroupCommitWriter writer = new GroupCommitWriter(channel, 0, DurabilityMode.NONE, 0);
+        writer.awaitDurable(writer.append(ByteBuffer.wrap(new byte[RECORD_SIZE])));
+        writer.close();
+        assertEquals(0, channel.forces.get());
+    }
+
+    @Test
+    public void closeSyncsUnsyncedRecords() throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[100]);
+        CountingChannel channel = new CountingChannel(file);
+        GroupCommitWriter writer = new GroupCommitWriter(channel, 100, DurabilityMode.EVERY_BATCH, 0);
+        long end = writer.append(ByteBuffer.wrap(new byte[RECORD_SIZE]));
+        assertEquals(100 + RECORD_SIZE, end);
+        writer.close();
+        writer.awaitDurable(end);
+        assertEquals(1, channel.forces.get());
+    }
+
+    /**
+     * Канал на запись в конец файла, который считает fsync и делает их медленными
+     */
+    private static final class CountingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private final AtomicInteger forces = new AtomicInteger();
+        private final AtomicInteger syncedSize = new AtomicInteger();
+
+        private CountingChannel(Path file) throws IOException {
+            this.delegate = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            int size = (int) delegate.size();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delegate.force(metaData);
+            forces.incrementAndGet();
+            syncedSize.accumulateAndGet(size, Math::max);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
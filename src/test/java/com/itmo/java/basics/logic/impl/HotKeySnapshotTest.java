@@ -0,0 +1,78 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.logic.DatabaseKey;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class HotKeySnapshotTest {
+    private static final List<DatabaseKey> KEYS = List.of(DatabaseKey.of("hottest"), DatabaseKey.of(""),
+            DatabaseKey.of("cold"));
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsKeysInSavedOrder() throws Exception {
+        Path tablePath = folder.getRoot().toPath();
+        HotKeySnapshot.write(tablePath, KEYS);
+        assertEquals(Optional.of(KEYS), HotKeySnapshot.read(tablePath));
+
+        HotKeySnapshot.write(tablePath, List.of());
+        assertEquals(Optional.of(List.of()), HotKeySnapshot.read(tablePath));
+    }
+
+    @Test
+    public void missingSnapshotIsEmpty() throws Exception {
+        assertEquals(Optional.empty(), HotKeySnapshot.read(folder.getRoot().toPath()));
+    }
+
+    @Test
+    public void corruptSnapshotIsEmpty() throws Exception {
+        Path tablePath = folder.getRoot().toPath();
+        Path snapshotPath = tablePath.resolve(HotKeySnapshot.FILE_NAME);
+        HotKeySnapshot.write(tablePath, KEYS);
+        byte[] bytes = Files.readAllBytes(snapshotPath);
+
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] corrupt = bytes.clone();
+            corrupt[i] ^= 1;
+            Files.write(snapshotPath, corrupt);
+            assertFalse(String.valueOf(i), HotKeySnapshot.read(tablePath).isPresent());
+        }
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(snapshotPath, Arrays.copyOf(bytes, length));
+            assertFalse(String.valueOf(length), HotKeySnapshot.read(tablePath).isPresent());
+        }
+    }
+
+    @Test
+    public void snapshotWithValidChecksumButWrongLayoutIsEmpty() throws Exception {
+        Path tablePath = folder.getRoot().toPath();
+        // верная контрольная сумма, но ключей объявлено больше, чем записано
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(bytes);
+        outputStream.writeInt(0x4B56484B);
+        outputStream.writeInt(2);
+        outputStream.writeInt(3);
+        outputStream.writeBytes("key");
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes.toByteArray());
+        outputStream.writeLong(checksum.getValue());
+        Files.write(tablePath.resolve(HotKeySnapshot.FILE_NAME), bytes.toByteArray());
+
+        assertEquals(Optional.empty(), HotKeySnapshot.read(tablePath));
+    }
+}
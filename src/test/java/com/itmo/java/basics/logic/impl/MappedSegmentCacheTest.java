@@ -0,0 +1,67 @@
+package com.itmo.java.basics.logic.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class MappedSegmentCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void mapsSegmentOnce() throws Exception {
+        MappedSegmentCache cache = new MappedSegmentCache(1024);
+        List<String> mapped = new ArrayList<>();
+
+        cache.getMapping("first", 100, size -> map("first", size, mapped));
+        cache.getMapping("first", 100, size -> map("first", size, mapped));
+
+        assertEquals(List.of("first"), mapped);
+        assertEquals(100, cache.getMapping("first", 100, size -> map("first", size, mapped)).orElseThrow().limit());
+    }
+
+    @Test
+    public void evictsLeastRecentlyReadSegment() throws Exception {
+        MappedSegmentCache cache = new MappedSegmentCache(250);
+        List<String> mapped = new ArrayList<>();
+        cache.getMapping("first", 100, size -> map("first", size, mapped));
+        cache.getMapping("second", 100, size -> map("second", size, mapped));
+        cache.getMapping("first", 100, size -> map("first", size, mapped));
+
+        cache.getMapping("third", 100, size -> map("third", size, mapped));
+        cache.getMapping("first", 100, size -> map("first", size, mapped));
+        cache.getMapping("second", 100, size -> map("second", size, mapped));
+
+        assertEquals(List.of("first", "second", "third", "second"), mapped);
+    }
+
+    @Test
+    public void doesNotMapSegmentLargerThanLimit() throws Exception {
+        MappedSegmentCache cache = new MappedSegmentCache(50);
+        List<String> mapped = new ArrayList<>();
+
+        assertFalse(cache.getMapping("first", 100, size -> map("first", size, mapped)).isPresent());
+        assertEquals(List.of(), mapped);
+    }
+
+    private MappedByteBuffer map(String name, long size, List<String> mapped) throws IOException {
+        mapped.add(name);
+        Path path = folder.getRoot().toPath().resolve(name);
+        Files.write(path, new byte[(int) size]);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.itmo.java.basics.logic.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentBlockCacheTest {
+    private static final int BLOCK_SIZE = 64;
+
+    @Test
+    public void cachedBlockIsNotReloaded() throws Exception {
+        SegmentBlockCache cache = new SegmentBlockCache(16 * BLOCK_SIZE, BLOCK_SIZE);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(7, cache.getBlock("segment", 0, BLOCK_SIZE, block -> load(block, loads)).get(0));
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void shortBlockIsReloaded() throws Exception {
+        SegmentBlockCache cache = new SegmentBlockCache(16 * BLOCK_SIZE, BLOCK_SIZE);
+        cache.getBlock("segment", 0, 1, block -> new byte[1]);
+
+        assertEquals(BLOCK_SIZE, cache.getBlock("segment", 0, BLOCK_SIZE, block -> new byte[BLOCK_SIZE]).limit());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void budgetIsNotExceeded() throws Exception {
+        SegmentBlockCache cache = new SegmentBlockCache(16 * BLOCK_SIZE, BLOCK_SIZE);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            cache.getBlock("segment", i, BLOCK_SIZE, block -> load(block, loads));
+        }
+        loads.set(0);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.getBlock("segment", i, BLOCK_SIZE, block -> load(block, loads));
+        }
+
+        assertTrue(String.valueOf(loads.get()), 1000 - loads.get() <= 16);
+    }
+
+    @Test
+    public void releaseDropsSegmentBlocks() throws Exception {
+        SegmentBlockCache cache = new SegmentBlockCache(16 * BLOCK_SIZE, BLOCK_SIZE);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            cache.getBlock("first", i, BLOCK_SIZE, block -> load(block, loads));
+            cache.getBlock("second", i, BLOCK_SIZE, block -> load(block, loads));
+        }
+        cache.release("first");
+        loads.set(0);
+
+        for (int i = 0; i < 4; i++) {
+            cache.getBlock("first", i, BLOCK_SIZE, block -> load(block, loads));
+        }
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void concurrentReadersGetTheirBlocks() throws Exception {
+        SegmentBlockCache cache = new SegmentBlockCache(64 * BLOCK_SIZE, BLOCK_SIZE);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                readers.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        long block = i % 128;
+                        byte[] bytes = new byte[BLOCK_SIZE];
+                        cache.getBlock("segment", block, BLOCK_SIZE, loaded -> load(loaded, loads)).get(bytes);
+                        assertEquals((byte) (block + 7), bytes[0]);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(80_000, cache.getHits() + cache.getMisses());
+    }
+
+    private static byte[] load(long block, AtomicInteger loads) {
+        loads.incrementAndGet();
+        byte[] bytes = new byte[BLOCK_SIZE];
+        bytes[0] = (byte) (block + 7);
+        return bytes;
+    }
+}
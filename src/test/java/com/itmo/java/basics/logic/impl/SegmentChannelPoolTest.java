@@ -0,0 +1,73 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.Segment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentChannelPoolTest {
+    private static final int MAX_OPEN = 3;
+    private static final int SEGMENTS = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsAtMostMaxChannelsOpenAndReopensEvicted() throws Exception {
+        TableConfig config = TableConfig.defaultConfig().toBuilder()
+                .maxOpenSegmentFiles(MAX_OPEN)
+                .build();
+        SegmentChannelPool pool = SegmentChannelPool.create(config);
+        List<Segment> segments = new ArrayList<>();
+        for (int i = 0; i < SEGMENTS; i++) {
+            Segment segment = SegmentImpl.create("segment_" + i, folder.getRoot().toPath(), config,
+                    MappedSegmentCache.disabled(), SegmentBlockCache.disabled(), pool);
+            segment.write(DatabaseKey.of("key"), value(i));
+            segments.add(segment);
+        }
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < SEGMENTS; i++) {
+                assertArrayEquals(value(i), segments.get(i).read(DatabaseKey.of("key")).orElseThrow());
+                assertTrue(pool.getOpenChannels() <= MAX_OPEN);
+            }
+        }
+
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        assertEquals(0, pool.getOpenChannels());
+    }
+
+    @Test
+    public void evictedChannelStaysUsableUntilReleased() throws Exception {
+        SegmentChannelPool pool = new SegmentChannelPool(1);
+        SegmentChannelPool.PooledChannel first = pool.open(folder.newFile("a").toPath());
+        SegmentChannelPool.PooledChannel second = pool.open(folder.newFile("b").toPath());
+
+        assertEquals(1, pool.getOpenChannels());
+        assertTrue(first.channel().isOpen());
+        first.release();
+        assertTrue(!first.channel().isOpen());
+        assertTrue(!first.retain());
+
+        second.release();
+        assertTrue(second.channel().isOpen());
+        pool.evict(second);
+        assertTrue(!second.channel().isOpen());
+    }
+
+    private static byte[] value(int i) {
+        return ("value" + i).getBytes(StandardCharsets.UTF_8);
+    }
+}
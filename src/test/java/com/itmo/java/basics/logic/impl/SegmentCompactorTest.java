@@ -0,0 +1,120 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.index.impl.SegmentLocation;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.Segment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentCompactorTest {
+    private static final String TABLE = "table";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsLatestLiveValuesAndDropsRemovedKeys() throws Exception {
+        Path tablePath = folder.getRoot().toPath();
+        TableConfig config = TableConfig.defaultConfig().toBuilder().compactionBytesPerSecond(0).build();
+        SegmentChannelPool channelPool = SegmentChannelPool.create(config);
+
+        Segment first = segment(tablePath, config, channelPool, 1000);
+        first.write(DatabaseKey.of("a"), bytes("a1"));
+        first.write(DatabaseKey.of("b"), bytes("b1"));
+        first.write(DatabaseKey.of("c"), bytes("c1"));
+        Segment second = segment(tablePath, config, channelPool, 1001);
+        second.write(DatabaseKey.of("a"), bytes("a2"));
+        second.delete(DatabaseKey.of("b"));
+        Segment third = segment(tablePath, config, channelPool, 1002);
+        third.write(DatabaseKey.of("d"), bytes("d3"));
+        third.write(DatabaseKey.of("c"), bytes("c3"));
+        for (Segment segment : Arrays.asList(first, second, third)) {
+            segment.close();
+        }
+        Path secondPath = tablePath.resolve(second.getName());
+        SegmentHintFile.write(secondPath, second.size(), SegmentHintFile.scan(secondPath, second.size()));
+
+        SegmentCompactor compactor = new SegmentCompactor(tablePath, TABLE, config, MappedSegmentCache.disabled(),
+                SegmentBlockCache.disabled(), channelPool);
+        SegmentCompactor.CompactionResult result = compactor.compact(Arrays.asList(first, second, third));
+
+        assertEquals(Set.of(DatabaseKey.of("b")), result.getRemovedKeys());
+        assertEquals(Set.of(DatabaseKey.of("a"), DatabaseKey.of("c"), DatabaseKey.of("d")),
+                result.getLiveKeys().keySet());
+        assertValue(result, "a", "a2");
+        assertValue(result, "c", "c3");
+        assertValue(result, "d", "d3");
+
+        List<Segment> segments = result.getSegments();
+        assertEquals(1, segments.size());
+        assertEquals(TABLE + "_1000.1", segments.get(0).getName());
+        assertTrue(segments.get(0).isReadOnly());
+        Path compactedPath = tablePath.resolve(segments.get(0).getName());
+        assertEquals(segments.get(0).size(), Files.size(compactedPath));
+        assertEquals(3, SegmentHintFile.read(compactedPath).orElseThrow().size());
+        for (Segment segment : segments) {
+            segment.close();
+        }
+    }
+
+    @Test
+    public void splitsOutputIntoSegmentsOfMaxSize() throws Exception {
+        Path tablePath = folder.getRoot().toPath();
+        TableConfig config = TableConfig.defaultConfig().toBuilder().compactionBytesPerSecond(0).build();
+        SegmentChannelPool channelPool = SegmentChannelPool.create(config);
+        byte[] value = new byte[1000];
+        Segment first = segment(tablePath, config, channelPool, 2000);
+        Segment second = segment(tablePath, config, channelPool, 2001);
+        int keys = 0;
+        while (first.write(DatabaseKey.of("key" + keys), value)) {
+            keys++;
+        }
+        for (int i = 0; i < keys; i++) {
+            second.write(DatabaseKey.of("other" + i), value);
+        }
+        first.close();
+        second.close();
+
+        SegmentCompactor compactor = new SegmentCompactor(tablePath, TABLE, config, MappedSegmentCache.disabled(),
+                SegmentBlockCache.disabled(), channelPool);
+        SegmentCompactor.CompactionResult result = compactor.compact(Arrays.asList(first, second));
+
+        assertEquals(2 * keys, result.getLiveKeys().size());
+        assertTrue(result.getSegments().size() >= 2);
+        for (SegmentLocation location : result.getLiveKeys().values()) {
+            assertArrayEquals(value, location.getSegment().readAt(location.getOffset()).orElseThrow());
+        }
+        for (Segment segment : result.getSegments()) {
+            segment.close();
+        }
+    }
+
+    private static Segment segment(Path tablePath, TableConfig config, SegmentChannelPool channelPool,
+                                   long createdAt) throws Exception {
+        return SegmentImpl.create(TABLE + "_" + createdAt, tablePath, config, MappedSegmentCache.disabled(),
+                SegmentBlockCache.disabled(), channelPool);
+    }
+
+    private static void assertValue(SegmentCompactor.CompactionResult result, String key, String value)
+            throws Exception {
+        SegmentLocation location = result.getLiveKeys().get(DatabaseKey.of(key));
+        assertArrayEquals(bytes(value), location.getSegment().readAt(location.getOffset()).orElseThrow());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
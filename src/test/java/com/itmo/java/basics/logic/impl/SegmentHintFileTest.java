@@ -0,0 +1,155 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.Segment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentHintFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sealedSegmentWritesHintInBackground() throws Exception {
+        TableConfig config = TableConfig.defaultConfig();
+        Segment segment = SegmentImpl.create("table_1", folder.getRoot().toPath(), config,
+                MappedSegmentCache.disabled(), SegmentBlockCache.disabled(), SegmentChannelPool.create(config));
+        Path segmentPath = folder.getRoot().toPath().resolve(segment.getName());
+        int i = 0;
+        while (!segment.isReadOnly()) {
+            if (i % 3 == 2) {
+                segment.delete(DatabaseKey.of("key" + (i - 1)));
+            } else {
+                segment.write(DatabaseKey.of("key" + i), new byte[1000]);
+            }
+            i++;
+        }
+        awaitMaintenance();
+
+        List<SegmentHintFile.Entry> hints = SegmentHintFile.read(segmentPath).orElseThrow();
+        assertEntriesEqual(SegmentHintFile.scan(segmentPath, segment.size()), hints);
+        assertTrue(hints.stream().anyMatch(SegmentHintFile.Entry::isRemoved));
+        segment.close();
+    }
+
+    @Test
+    public void closedSegmentSkipsPendingHint() throws Exception {
+        TableConfig config = TableConfig.defaultConfig();
+        Segment segment = SegmentImpl.create("table_1", folder.getRoot().toPath(), config,
+                MappedSegmentCache.disabled(), SegmentBlockCache.disabled(), SegmentChannelPool.create(config));
+        Object pause = new Object();
+        synchronized (pause) {
+            TableImpl.MAINTENANCE_EXECUTOR.execute(() -> {
+                synchronized (pause) {
+                    pause.notifyAll();
+                }
+            });
+            segment.write(DatabaseKey.of("key"), new byte[(int) SegmentImpl.MAX_SEGMENT_SIZE]);
+            segment.close();
+        }
+        awaitMaintenance();
+        assertFalse(Files.exists(SegmentHintFile.hintPath(folder.getRoot().toPath().resolve(segment.getName()))));
+    }
+
+    @Test
+    public void readRoundTrip() throws Exception {
+        Path segmentPath = segmentFile(26);
+        List<SegmentHintFile.Entry> entries = Arrays.asList(
+                new SegmentHintFile.Entry(new byte[]{1, 2}, 0, 13, false),
+                new SegmentHintFile.Entry(new byte[]{3}, 13, 9, true),
+                new SegmentHintFile.Entry(new byte[0], 22, 4 + 4, false));
+        assertFalse(SegmentHintFile.read(segmentPath).isPresent());
+        segmentPath = segmentFile(30);
+        SegmentHintFile.write(segmentPath, 30, entries);
+        assertEntriesEqual(entries, SegmentHintFile.read(segmentPath).orElseThrow());
+        assertFalse(Files.exists(segmentPath.resolveSibling(segmentPath.getFileName() + SegmentHintFile.TEMPORARY_SUFFIX)));
+    }
+
+    @Test
+    public void corruptHintIsTreatedAsMissing() throws Exception {
+        Path segmentPath = segmentFile(22);
+        List<SegmentHintFile.Entry> valid = Arrays.asList(
+                new SegmentHintFile.Entry(new byte[]{1, 2}, 0, 13, false),
+                new SegmentHintFile.Entry(new byte[]{3}, 13, 9, true));
+        SegmentHintFile.write(segmentPath, 22, valid);
+        Path hintPath = SegmentHintFile.hintPath(segmentPath);
+        byte[] hint = Files.readAllBytes(hintPath);
+        assertTrue(SegmentHintFile.read(segmentPath).isPresent());
+
+        Files.write(hintPath, Arrays.copyOf(hint, hint.length - 3));
+        assertFalse(SegmentHintFile.read(segmentPath).isPresent());
+
+        Files.write(hintPath, Arrays.copyOf(hint, hint.length + 1));
+        assertFalse(SegmentHintFile.read(segmentPath).isPresent());
+
+        SegmentHintFile.write(segmentPath, 22, Arrays.asList(valid.get(0),
+                new SegmentHintFile.Entry(new byte[]{3}, 14, 8, true)));
+        assertFalse(SegmentHintFile.read(segmentPath).isPresent());
+
+        SegmentHintFile.write(segmentPath, 22, Arrays.asList(valid.get(0),
+                new SegmentHintFile.Entry(new byte[]{3}, 13, 10, true)));
+        assertFalse(SegmentHintFile.read(segmentPath).isPresent());
+
+        SegmentHintFile.write(segmentPath, 22, valid.subList(0, 1));
+        assertFalse(SegmentHintFile.read(segmentPath).isPresent());
+
+        byte[] hugeKey = hint.clone();
+        writeInt(hugeKey, 4 + 8 + 4, Integer.MAX_VALUE);
+        Files.write(hintPath, hugeKey);
+        assertFalse(SegmentHintFile.read(segmentPath).isPresent());
+
+        byte[] hugeCount = hint.clone();
+        writeInt(hugeCount, 4 + 8, Integer.MAX_VALUE);
+        Files.write(hintPath, hugeCount);
+        assertFalse(SegmentHintFile.read(segmentPath).isPresent());
+
+        try (DataOutputStream outputStream = new DataOutputStream(Files.newOutputStream(hintPath))) {
+            outputStream.writeInt(0);
+        }
+        assertFalse(SegmentHintFile.read(segmentPath).isPresent());
+    }
+
+    /**
+     * Дожидается фоновых работ таблиц, запущенных к этому моменту
+     */
+    static void awaitMaintenance() throws Exception {
+        TableImpl.MAINTENANCE_EXECUTOR.submit(() -> {
+        }).get();
+    }
+
+    private Path segmentFile(int size) throws Exception {
+        Path path = folder.getRoot().toPath().resolve("table_" + size);
+        Files.write(path, new byte[size]);
+        return path;
+    }
+
+    private static void writeInt(byte[] bytes, int position, int value) {
+        bytes[position] = (byte) (value >>> 24);
+        bytes[position + 1] = (byte) (value >>> 16);
+        bytes[position + 2] = (byte) (value >>> 8);
+        bytes[position + 3] = (byte) value;
+    }
+
+    private static void assertEntriesEqual(List<SegmentHintFile.Entry> expected, List<SegmentHintFile.Entry> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i).getKey(), actual.get(i).getKey());
+            assertEquals(expected.get(i).getOffset(), actual.get(i).getOffset());
+            assertEquals(expected.get(i).getSize(), actual.get(i).getSize());
+            assertEquals(expected.get(i).isRemoved(), actual.get(i).isRemoved());
+        }
+    }
+}
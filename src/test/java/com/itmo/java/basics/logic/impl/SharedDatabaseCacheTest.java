@@ -0,0 +1,161 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.logic.DatabaseKey;
+import com.itmo.java.basics.logic.ValueView;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SharedDatabaseCacheTest {
+    private static final int VALUE_SIZE = 100;
+    private static final int ENTRIES = 100;
+    private static final long MAX_BYTES = ENTRIES * (8 + VALUE_SIZE + SharedDatabaseCache.ENTRY_OVERHEAD);
+
+    @Test
+    public void scanDoesNotFlushFrequentlyReadKeys() {
+        DatabaseCacheImpl cache = SharedDatabaseCache.create(MAX_BYTES).tableCache("table");
+        for (int i = 0; i < 40; i++) {
+            cache.set(key("hot", i), value(i));
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 40; i++) {
+                assertNotNull(cache.get(key("hot", i)));
+            }
+        }
+
+        for (int i = 0; i < 10 * ENTRIES; i++) {
+            cache.set(key("scan", i), value(i));
+        }
+
+        // LRU вытеснил бы все; счетчик частот приблизительный, поэтому редкие коллизии допустимы
+        int survived = 0;
+        for (int i = 0; i < 40; i++) {
+            byte[] value = cache.get(key("hot", i));
+            if (value != null) {
+                assertArrayEquals(value(i), value);
+                survived++;
+            }
+        }
+        assertTrue(String.valueOf(survived), survived >= 36);
+    }
+
+    @Test
+    public void frequentKeyWinsAdmissionOverOneTimeKeys() {
+        DatabaseCacheImpl cache = SharedDatabaseCache.create(MAX_BYTES).tableCache("table");
+        DatabaseKey frequent = key("freq", 0);
+        for (int i = 0; i < 5; i++) {
+            assertNull(cache.get(frequent));
+        }
+        for (int i = 0; i < 2 * ENTRIES; i++) {
+            cache.set(key("cold", i), value(i));
+        }
+
+        cache.set(frequent, value(0));
+        for (int i = 2 * ENTRIES; i < 3 * ENTRIES; i++) {
+            cache.set(key("cold", i), value(i));
+        }
+
+        assertNotNull(cache.get(frequent));
+        // LRU оставил бы последние ключи, а W-TinyLFU не пускает их в основную часть кэша
+        int admitted = 0;
+        for (int i = 2 * ENTRIES; i < 3 * ENTRIES - 1; i++) {
+            if (cache.get(key("cold", i)) != null) {
+                admitted++;
+            }
+        }
+        assertTrue(String.valueOf(admitted), admitted < ENTRIES / 2);
+    }
+
+    @Test
+    public void tablesShareBudget() {
+        SharedDatabaseCache sharedCache = SharedDatabaseCache.create(MAX_BYTES);
+        DatabaseCacheImpl first = sharedCache.tableCache("first");
+        DatabaseCacheImpl second = sharedCache.tableCache("second");
+        for (int i = 0; i < 5 * ENTRIES; i++) {
+            first.set(key("key", i), value(i));
+            second.set(key("key", i), value(i));
+            assertTrue(sharedCache.getBytes() <= MAX_BYTES);
+        }
+        assertEquals(sharedCache.getBytes(), first.getBytes() + second.getBytes());
+
+        for (int i = 0; i < 5 * ENTRIES; i++) {
+            first.delete(key("key", i));
+        }
+        assertEquals(0, first.getBytes());
+        assertEquals(sharedCache.getBytes(), second.getBytes());
+    }
+
+    @Test
+    public void rejectsEntryLargerThanBudget() {
+        SharedDatabaseCache sharedCache = SharedDatabaseCache.create(MAX_BYTES);
+        DatabaseCacheImpl cache = sharedCache.tableCache("table");
+        cache.set(key("key", 0), new byte[(int) MAX_BYTES]);
+        assertNull(cache.get(key("key", 0)));
+        assertEquals(0, sharedCache.getBytes());
+    }
+
+    @Test
+    public void offHeapCacheSkipsValuesWithoutSlot() {
+        SharedDatabaseCache sharedCache = SharedDatabaseCache.create(1 << 20, true);
+        DatabaseCacheImpl cache = sharedCache.tableCache("table");
+        cache.set(key("key", 0), value(0));
+        cache.set(key("key", 1), new byte[0]);
+        cache.set(key("key", 2), new byte[256 * 1024]);
+
+        assertArrayEquals(value(0), cache.get(key("key", 0)));
+        assertArrayEquals(new byte[0], cache.get(key("key", 1)));
+        assertNull(cache.get(key("key", 2)));
+        assertEquals(sharedCache.getBytes(), cache.getBytes());
+        assertTrue(sharedCache.getBytes() < 1024);
+    }
+
+    @Test
+    public void retainedOffHeapSlotIsNotReusedUntilReleased() {
+        SharedDatabaseCache sharedCache = SharedDatabaseCache.create(MAX_BYTES, true);
+        DatabaseCacheImpl cache = sharedCache.tableCache("table");
+        cache.set(key("key", 0), value(0));
+        ValueView view = cache.retain(key("key", 0));
+        assertNotNull(view);
+
+        cache.set(key("key", 0), value(1));
+        for (int i = 1; i < ENTRIES * 4; i++) {
+            cache.set(key("other", i), value(i));
+        }
+        assertArrayEquals(value(0), view.toBytes());
+        for (int i = 1; i < ENTRIES * 4; i++) {
+            byte[] cached = cache.get(key("other", i));
+            if (cached != null) {
+                assertArrayEquals(value(i), cached);
+            }
+        }
+
+        view.release();
+        view.release();
+        for (int i = 0; i < ENTRIES * 4; i++) {
+            cache.set(key("again", i), value(i));
+        }
+        for (int i = 0; i < ENTRIES * 4; i++) {
+            byte[] cached = cache.get(key("again", i));
+            if (cached != null) {
+                assertArrayEquals(value(i), cached);
+            }
+        }
+    }
+
+    private static DatabaseKey key(String prefix, int i) {
+        return DatabaseKey.of(String.format("%s%04d", prefix, i));
+    }
+
+    private static byte[] value(int i) {
+        byte[] value = new byte[VALUE_SIZE];
+        byte[] prefix = String.valueOf(i).getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(prefix, 0, value, 0, prefix.length);
+        return value;
+    }
+}
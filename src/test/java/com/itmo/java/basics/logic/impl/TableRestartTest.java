@@ -0,0 +1,325 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.IndexType;
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.console.impl.ExecutionEnvironmentImpl;
+import com.itmo.java.basics.initialization.impl.DatabaseInitializer;
+import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
+import com.itmo.java.basics.initialization.impl.InitializationContextImpl;
+import com.itmo.java.basics.initialization.impl.SegmentInitializer;
+import com.itmo.java.basics.initialization.impl.TableInitializer;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.DatabaseKey;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TableRestartTest {
+    private static final String DB = "db";
+    private static final String TABLE = "table";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restoresFromHintFiles() throws Exception {
+        TableConfig config = TableConfig.defaultConfig();
+        Map<String, byte[]> expected = fill(config, 300);
+        File[] hints = hintFiles();
+        assertTrue(hints.length >= 2);
+
+        assertRestored(config, expected);
+    }
+
+    @Test
+    public void fallsBackToSegmentWhenHintIsCorrupt() throws Exception {
+        TableConfig config = TableConfig.defaultConfig();
+        Map<String, byte[]> expected = fill(config, 300);
+        File[] hints = hintFiles();
+        assertTrue(hints.length >= 2);
+        Path corrupt = hints[0].toPath();
+        byte[] bytes = Files.readAllBytes(corrupt);
+        Files.write(corrupt, Arrays.copyOf(bytes, bytes.length / 2));
+        Files.delete(hints[1].toPath());
+
+        assertRestored(config, expected);
+        Path firstSegment = corrupt.resolveSibling(corrupt.getFileName().toString().replace(".hint", ""));
+        assertTrue(SegmentHintFile.read(firstSegment).isPresent());
+        assertTrue(Files.exists(hints[1].toPath()));
+    }
+
+    @Test
+    public void restoresFromCheckpointAndReplaysTail() throws Exception {
+        restoresFromOlderCheckpoint(TableConfig.defaultConfig().toBuilder()
+                .checkpointIntervalMillis(20)
+                .build());
+    }
+
+    @Test
+    public void restoresOpenAddressingIndexFromCheckpoint() throws Exception {
+        restoresFromOlderCheckpoint(TableConfig.defaultConfig().toBuilder()
+                .checkpointIntervalMillis(20)
+                .indexType(IndexType.OPEN_ADDRESSING)
+                .build());
+    }
+
+    @Test
+    public void closeWritesCheckpointAndCorruptCheckpointIsIgnored() throws Exception {
+        TableConfig config = TableConfig.defaultConfig().toBuilder()
+                .checkpointIntervalMillis(60_000)
+                .build();
+        Map<String, byte[]> expected = fill(config, 200);
+        Path checkpointPath = tablePath().resolve(IndexCheckpoint.FILE_NAME);
+        assertTrue(IndexCheckpoint.read(tablePath()).isPresent());
+        assertRestored(config, expected);
+
+        byte[] bytes = Files.readAllBytes(checkpointPath);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(checkpointPath, bytes);
+        assertFalse(IndexCheckpoint.read(tablePath()).isPresent());
+        assertRestored(config, expected);
+    }
+
+    @Test
+    public void restoredOrderedIndexSkipsDeletedKeys() throws Exception {
+        TableConfig config = TableConfig.defaultConfig().toBuilder()
+                .orderedIndex(true)
+                .build();
+        Map<String, byte[]> expected = fill(config, 200);
+        assertRestored(config, expected);
+
+        ExecutionEnvironmentImpl environment = environment(config);
+        new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer())))
+                .perform(InitializationContextImpl.builder().executionEnvironment(environment).build());
+        Database database = environment.getDatabase(DB).orElseThrow();
+        try {
+            Set<String> live = new TreeSet<>();
+            expected.forEach((key, value) -> {
+                if (value != null) {
+                    live.add(key);
+                }
+            });
+            Set<String> scanned = new TreeSet<>();
+            database.scan(TABLE, DatabaseKey.of(""), true, null, expected.size())
+                    .keySet().forEach(key -> scanned.add(key.toString()));
+            assertEquals(live, scanned);
+        } finally {
+            SegmentHintFileTest.awaitMaintenance();
+            database.close();
+        }
+    }
+
+    @Test
+    public void warmsUpHotKeysAfterRestart() throws Exception {
+        TableConfig config = TableConfig.defaultConfig().toBuilder()
+                .hotKeysLimit(10)
+                .hotKeysIntervalMillis(0)
+                .build();
+        ExecutionEnvironmentImpl environment = environment(config);
+        Database database = DatabaseImpl.create(DB, folder.getRoot().toPath(), environment.getConfig(),
+                environment.getCache());
+        database.createTableIfNotExists(TABLE);
+        Set<DatabaseKey> hot = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            database.write(TABLE, DatabaseKey.of("key" + i), value(i));
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) {
+                database.read(TABLE, DatabaseKey.of("key" + i));
+                hot.add(DatabaseKey.of("key" + i));
+            }
+        }
+        long hotBytes = environment.getCache().getBytes();
+        SegmentHintFileTest.awaitMaintenance();
+        database.close();
+        assertEquals(hot, new HashSet<>(HotKeySnapshot.read(tablePath()).orElseThrow()));
+
+        ExecutionEnvironmentImpl restarted = environment(config);
+        new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer())))
+                .perform(InitializationContextImpl.builder().executionEnvironment(restarted).build());
+        SharedDatabaseCache cache = restarted.getCache();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (cache.getBytes() < hotBytes && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Database reopened = restarted.getDatabase(DB).orElseThrow();
+        try {
+            // прогретые ключи уже в кэше и читаются из него, не меняя его размера, а холодный ключ добавляется
+            assertEquals(hotBytes, cache.getBytes());
+            for (int i = 0; i < 10; i++) {
+                assertArrayEquals(value(i), reopened.read(TABLE, DatabaseKey.of("key" + i)).orElseThrow());
+            }
+            assertEquals(hotBytes, cache.getBytes());
+            assertArrayEquals(value(20), reopened.read(TABLE, DatabaseKey.of("key20")).orElseThrow());
+            assertTrue(cache.getBytes() > hotBytes);
+        } finally {
+            SegmentHintFileTest.awaitMaintenance();
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void corruptOrMissingHotKeySnapshotIsIgnored() throws Exception {
+        TableConfig config = TableConfig.defaultConfig().toBuilder()
+                .hotKeysLimit(10)
+                .hotKeysIntervalMillis(0)
+                .build();
+        Map<String, byte[]> expected = fill(config, 50);
+        Path snapshotPath = tablePath().resolve(HotKeySnapshot.FILE_NAME);
+        HotKeySnapshot.write(tablePath(), List.of(DatabaseKey.of("key1"), DatabaseKey.of("key2")));
+        byte[] bytes = Files.readAllBytes(snapshotPath);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshotPath, bytes);
+        assertNoWarmUp(config, expected);
+
+        Files.delete(snapshotPath);
+        assertNoWarmUp(config, expected);
+    }
+
+    private void assertNoWarmUp(TableConfig config, Map<String, byte[]> expected) throws Exception {
+        ExecutionEnvironmentImpl environment = environment(config);
+        new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer())))
+                .perform(InitializationContextImpl.builder().executionEnvironment(environment).build());
+        Database database = environment.getDatabase(DB).orElseThrow();
+        try {
+            Thread.sleep(100);
+            assertEquals(0, environment.getCache().getBytes());
+            for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                Optional<byte[]> value = database.read(TABLE, DatabaseKey.of(entry.getKey()));
+                assertEquals(entry.getKey(), entry.getValue() != null, value.isPresent());
+            }
+        } finally {
+            SegmentHintFileTest.awaitMaintenance();
+            database.close();
+        }
+    }
+
+    private static byte[] value(int i) {
+        return ("value" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Подкладывает снимок, снятый посреди записи, и проверяет, что записанное после него дочитывается из сегментов
+     */
+    private void restoresFromOlderCheckpoint(TableConfig config) throws Exception {
+        Database database = createDatabase(config);
+        Map<String, byte[]> expected = new HashMap<>();
+        writeKeys(database, 0, 150, expected);
+        Path checkpointPath = tablePath().resolve(IndexCheckpoint.FILE_NAME);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!Files.exists(checkpointPath) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        byte[] olderCheckpoint = Files.readAllBytes(checkpointPath);
+        writeKeys(database, 150, 300, expected);
+        for (int i = 0; i < 150; i += 7) {
+            byte[] updated = ("late" + i).getBytes(StandardCharsets.UTF_8);
+            database.write(TABLE, DatabaseKey.of("key" + i), updated);
+            expected.put("key" + i, updated);
+        }
+        SegmentHintFileTest.awaitMaintenance();
+        database.close();
+
+        IndexCheckpoint checkpoint = IndexCheckpoint.read(tablePath()).orElseThrow();
+        assertTrue(checkpoint.getSegmentNames().size() >= 3);
+        Files.write(checkpointPath, olderCheckpoint);
+        assertTrue(IndexCheckpoint.read(tablePath()).orElseThrow().getSegmentNames().size()
+                < checkpoint.getSegmentNames().size());
+        assertRestored(config, expected);
+    }
+
+    /**
+     * Пишет ключи в новую таблицу, часть перезаписывает и удаляет, и закрывает базу
+     *
+     * @return значения, которые должны прочитаться после перезапуска. null - ключ удален
+     */
+    Map<String, byte[]> fill(TableConfig config, int keys) throws Exception {
+        Database database = createDatabase(config);
+        Map<String, byte[]> expected = new HashMap<>();
+        writeKeys(database, 0, keys, expected);
+        SegmentHintFileTest.awaitMaintenance();
+        database.close();
+        return expected;
+    }
+
+    private Database createDatabase(TableConfig config) throws Exception {
+        ExecutionEnvironmentImpl environment = environment(config);
+        Database database = DatabaseImpl.create(DB, folder.getRoot().toPath(), environment.getConfig(),
+                environment.getCache());
+        database.createTableIfNotExists(TABLE);
+        return database;
+    }
+
+    private static void writeKeys(Database database, int from, int to, Map<String, byte[]> expected)
+            throws Exception {
+        for (int i = from; i < to; i++) {
+            byte[] value = ("value" + i + "_".repeat(1000)).getBytes(StandardCharsets.UTF_8);
+            database.write(TABLE, DatabaseKey.of("key" + i), value);
+            expected.put("key" + i, value);
+            if (i % 10 == 9) {
+                byte[] updated = ("updated" + i).getBytes(StandardCharsets.UTF_8);
+                database.write(TABLE, DatabaseKey.of("key" + (i - 5)), updated);
+                expected.put("key" + (i - 5), updated);
+                database.delete(TABLE, DatabaseKey.of("key" + (i - 3)));
+                expected.put("key" + (i - 3), null);
+            }
+            // имя сегмента - время создания в миллисекундах
+            Thread.sleep(1);
+        }
+    }
+
+    void assertRestored(TableConfig config, Map<String, byte[]> expected) throws Exception {
+        ExecutionEnvironmentImpl environment = environment(config);
+        new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer())))
+                .perform(InitializationContextImpl.builder().executionEnvironment(environment).build());
+        Database database = environment.getDatabase(DB).orElseThrow();
+        try {
+            for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                Optional<byte[]> value = database.read(TABLE, DatabaseKey.of(entry.getKey()));
+                if (entry.getValue() == null) {
+                    assertFalse(entry.getKey(), value.isPresent());
+                } else {
+                    assertArrayEquals(entry.getKey(), entry.getValue(), value.orElseThrow());
+                }
+            }
+            assertEquals(Optional.empty(), database.read(TABLE, DatabaseKey.of("missing")));
+        } finally {
+            SegmentHintFileTest.awaitMaintenance();
+            database.close();
+        }
+    }
+
+    File[] hintFiles() {
+        File[] hints = tablePath().toFile()
+                .listFiles(file -> file.getName().endsWith(".hint"));
+        Arrays.sort(hints);
+        return hints;
+    }
+
+    private Path tablePath() {
+        return folder.getRoot().toPath().resolve(DB).resolve(TABLE);
+    }
+
+    private ExecutionEnvironmentImpl environment(TableConfig config) {
+        return new ExecutionEnvironmentImpl(new DatabaseConfig(folder.getRoot().toString(), config, Map.of()));
+    }
+}
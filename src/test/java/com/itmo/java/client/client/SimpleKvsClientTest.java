@@ -0,0 +1,173 @@
+package com.itmo.java.client.client;
+
+import com.itmo.java.basics.DatabaseServer;
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.TableConfig;
+import com.itmo.java.basics.console.impl.ExecutionEnvironmentImpl;
+import com.itmo.java.basics.initialization.impl.DatabaseInitializer;
+import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
+import com.itmo.java.basics.initialization.impl.SegmentInitializer;
+import com.itmo.java.basics.initialization.impl.TableInitializer;
+import com.itmo.java.client.connection.KvsConnection;
+import com.itmo.java.client.exception.ConnectionException;
+import com.itmo.java.client.exception.DatabaseExecutionException;
+import com.itmo.java.client.exception.ServerOverloadedException;
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespError;
+import com.itmo.java.protocol.model.RespObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+public class SimpleKvsClientTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void overloadedResponseIsReportedSeparately() {
+        SimpleKvsClient client = new SimpleKvsClient("db", () -> respondWith(
+                new RespError((RespError.OVERLOADED + " executor queue is full").getBytes(StandardCharsets.UTF_8))));
+
+        assertThrows(ServerOverloadedException.class, () -> client.get("table", "key"));
+    }
+
+    @Test
+    public void otherErrorsAreNotOverload() {
+        SimpleKvsClient client = new SimpleKvsClient("db", () -> respondWith(
+                new RespError("Table not found".getBytes(StandardCharsets.UTF_8))));
+
+        DatabaseExecutionException exception =
+                assertThrows(DatabaseExecutionException.class, () -> client.get("table", "key"));
+        assertFalse(exception instanceof ServerOverloadedException);
+    }
+
+    @Test
+    public void successIsReturned() throws Exception {
+        SimpleKvsClient client = new SimpleKvsClient("db", () -> respondWith(
+                new RespBulkString("value".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("value", client.get("table", "key"));
+    }
+
+    @Test
+    public void mgetSendsKeysInOrderAndKeepsMissingValuesAsNull() throws Exception {
+        List<RespArray> sent = new ArrayList<>();
+        SimpleKvsClient client = new SimpleKvsClient("db", () -> respondWith(new RespArray(
+                new RespBulkString("1".getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(null),
+                new RespBulkString("3".getBytes(StandardCharsets.UTF_8))), sent));
+
+        assertEquals(Arrays.asList("1", null, "3"), client.mget("table", List.of("c", "b", "a")));
+        assertEquals(List.of("MGET_KEYS", "db", "table", "c", "b", "a"), strings(sent.get(0)));
+    }
+
+    @Test
+    public void msetSendsPairsInEntryOrder() throws Exception {
+        List<RespArray> sent = new ArrayList<>();
+        SimpleKvsClient client = new SimpleKvsClient("db", () -> respondWith(new RespArray(
+                new RespBulkString(null),
+                new RespBulkString("old".getBytes(StandardCharsets.UTF_8))), sent));
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("b", "2");
+        entries.put("a", "1");
+
+        assertEquals(Arrays.asList(null, "old"), client.mset("table", entries));
+        assertEquals(List.of("MSET_KEYS", "db", "table", "b", "2", "a", "1"), strings(sent.get(0)));
+    }
+
+    @Test
+    public void multiKeyErrorIsThrown() {
+        SimpleKvsClient client = new SimpleKvsClient("db", () -> respondWith(
+                new RespError("Table not found".getBytes(StandardCharsets.UTF_8))));
+
+        assertThrows(DatabaseExecutionException.class, () -> client.mget("table", List.of("a")));
+        assertThrows(DatabaseExecutionException.class, () -> client.mset("table", Map.of("a", "1")));
+    }
+
+    @Test
+    public void mgetAndMsetKeepKeyOrderAcrossShards() throws Exception {
+        DatabaseConfig config = new DatabaseConfig(folder.getRoot().toString(), TableConfig.defaultConfig(), Map.of(),
+                DatabaseConfig.DEFAULT_CACHE_MAX_BYTES, false, 4);
+        DatabaseServer server = DatabaseServer.initialize(new ExecutionEnvironmentImpl(config),
+                new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer()))));
+        try {
+            SimpleKvsClient client = new SimpleKvsClient("db", () -> connectedTo(server));
+            client.createDatabase();
+            client.createTable("table");
+            Map<String, String> entries = new LinkedHashMap<>();
+            for (int i = 0; i < 32; i += 2) {
+                entries.put("key" + i, "value" + i);
+            }
+            assertEquals(Arrays.asList(new String[16]), client.mset("table", entries));
+
+            List<String> keys = new ArrayList<>();
+            List<String> expected = new ArrayList<>();
+            for (int i = 31; i >= 0; i--) {
+                keys.add("key" + i);
+                expected.add(i % 2 == 0 ? "value" + i : null);
+            }
+            assertEquals(expected, client.mget("table", keys));
+        } finally {
+            server.close();
+        }
+    }
+
+    /**
+     * Аргументы команды без ее id
+     */
+    private static List<String> strings(RespArray command) {
+        return command.getObjects().stream().skip(1).map(RespObject::asString).collect(Collectors.toList());
+    }
+
+    /**
+     * Отправляет команду прямо на сервер, как ее получил бы коннектор
+     */
+    private static KvsConnection connectedTo(DatabaseServer server) {
+        return new KvsConnection() {
+            @Override
+            public RespObject send(int commandId, RespArray command) throws ConnectionException {
+                try {
+                    return server.executeNextCommand(command).get().serialize();
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new ConnectionException("Command was not executed", e);
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static KvsConnection respondWith(RespObject response) {
+        return respondWith(response, new ArrayList<>());
+    }
+
+    private static KvsConnection respondWith(RespObject response, List<RespArray> sent) {
+        return new KvsConnection() {
+            @Override
+            public RespObject send(int commandId, RespArray command) {
+                sent.add(command);
+                return response;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.itmo.java.protocol;
+
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespError;
+import com.itmo.java.protocol.model.RespObject;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+public class RespFrameDecoderTest {
+    private static final RespArray FRAME = new RespArray(
+            new RespCommandId(42),
+            bulk("SET_KEY"),
+            new RespBulkString(new byte[0]),
+            RespBulkString.NULL_STRING,
+            new RespError("ERR message".getBytes(StandardCharsets.UTF_8)),
+            new RespArray(bulk("nested"), new RespArray()));
+
+    @Test
+    public void decodesFrameSplitAtEveryPosition() throws IOException {
+        byte[] bytes = encode(FRAME);
+        for (int split = 1; split < bytes.length; split++) {
+            RespFrameDecoder decoder = new RespFrameDecoder();
+            assertNull(decoder.decodeArray(ByteBuffer.wrap(bytes, 0, split)));
+            RespArray decoded = decoder.decodeArray(ByteBuffer.wrap(bytes, split, bytes.length - split));
+            assertArrayEquals("split at " + split, bytes, encode(decoded));
+        }
+    }
+
+    @Test
+    public void decodesFrameFedByteByByte() throws IOException {
+        byte[] bytes = encode(FRAME);
+        RespFrameDecoder decoder = new RespFrameDecoder();
+        RespArray decoded = null;
+        for (int i = 0; i < bytes.length; i++) {
+            assertNull(decoded);
+            decoded = decoder.decodeArray(ByteBuffer.wrap(bytes, i, 1));
+        }
+        assertArrayEquals(bytes, encode(decoded));
+    }
+
+    @Test
+    public void decodesLargeValuesInChunks() throws IOException {
+        byte[] value = new byte[300_000];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = (byte) i;
+        }
+        RespObject[] elements = new RespObject[5000];
+        Arrays.fill(elements, bulk("x"));
+        elements[0] = new RespBulkString(value);
+        byte[] bytes = encode(new RespArray(elements));
+
+        RespFrameDecoder decoder = new RespFrameDecoder();
+        RespArray decoded = null;
+        for (int offset = 0; offset < bytes.length; offset += 4096) {
+            assertNull(decoded);
+            decoded = decoder.decodeArray(ByteBuffer.wrap(bytes, offset, Math.min(4096, bytes.length - offset)));
+        }
+        assertEquals(5000, decoded.getObjects().size());
+        assertArrayEquals(value, decoded.getObjects().get(0).asBytes());
+        assertArrayEquals(bytes, encode(decoded));
+    }
+
+    @Test
+    public void decodesSeveralFramesFromOneBuffer() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FRAME.write(bytes);
+        new RespArray(bulk("second")).write(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        RespFrameDecoder decoder = new RespFrameDecoder();
+
+        List<RespArray> frames = new ArrayList<>();
+        RespArray frame;
+        while ((frame = decoder.decodeArray(buffer)) != null) {
+            frames.add(frame);
+        }
+
+        assertEquals(2, frames.size());
+        assertEquals("second", frames.get(1).asString());
+    }
+
+    @Test
+    public void rejectsBulkStringOverLimit() throws IOException {
+        RespFrameDecoder decoder = new RespFrameDecoder();
+        assertThrows(IOException.class, () -> decoder.decodeArray(buffer("*1\r\n$2000000000\r\n")));
+
+        RespFrameDecoder limited = new RespFrameDecoder(16, 16);
+        assertThrows(IOException.class, () -> limited.decodeArray(buffer("*1\r\n$17\r\n")));
+    }
+
+    @Test
+    public void declaredSizeIsNotAllocatedUpFront() throws IOException {
+        RespFrameDecoder decoder = new RespFrameDecoder();
+        // заголовки объявляют 500 МБ и миллион элементов, но память выделяется только под пришедшее
+        assertNull(decoder.decodeArray(buffer("*1000000\r\n$500000000\r\nabc")));
+    }
+
+    @Test
+    public void rejectsArrayOverLimit() {
+        RespFrameDecoder decoder = new RespFrameDecoder(16, 4);
+        assertThrows(IOException.class, () -> decoder.decodeArray(buffer("*5\r\n")));
+        RespFrameDecoder nested = new RespFrameDecoder(16, 4);
+        assertThrows(IOException.class, () -> nested.decodeArray(buffer("*1\r\n*2147483647\r\n")));
+    }
+
+    private static RespBulkString bulk(String value) {
+        return new RespBulkString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer buffer(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] encode(RespObject object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        object.write(bytes);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,156 @@
+package com.itmo.java.protocol;
+
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespError;
+import com.itmo.java.protocol.model.RespObject;
+import com.itmo.java.protocol.model.RespRetainedBulkString;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RespWriterTest {
+
+    @Test
+    public void smallReplyReachesStreamInOneWriteOnFlush() throws Exception {
+        RecordingOutputStream os = new RecordingOutputStream();
+        RespWriter writer = new RespWriter(os);
+        RespBulkString reply = new RespBulkString("value".getBytes(StandardCharsets.UTF_8));
+
+        writer.write(reply);
+        assertEquals(0, os.writes.size());
+
+        writer.flush();
+        assertEquals(1, os.writes.size());
+        assertArrayEquals(encode(reply), os.writes.get(0).bytes());
+        assertEquals(1, os.flushes);
+    }
+
+    @Test
+    public void largePayloadIsWrittenWithoutCopy() throws Exception {
+        RecordingOutputStream os = new RecordingOutputStream();
+        RespWriter writer = new RespWriter(os);
+        byte[] payload = new byte[64 * 1024];
+        Arrays.fill(payload, (byte) 'x');
+
+        writer.write(new RespBulkString(payload));
+        writer.flush();
+
+        assertTrue(os.writes.stream().anyMatch(write -> write.array == payload
+                && write.offset == 0 && write.length == payload.length));
+        assertArrayEquals(encode(new RespBulkString(payload)), os.toByteArray());
+    }
+
+    @Test
+    public void outputMatchesObjectEncoding() throws Exception {
+        byte[] large = new byte[20 * 1024];
+        Arrays.fill(large, (byte) 'y');
+        ByteBuffer offHeap = ByteBuffer.allocateDirect(large.length);
+        offHeap.put(large).flip();
+        AtomicInteger released = new AtomicInteger();
+        List<RespObject> objects = List.of(
+                new RespBulkString("small".getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(new byte[0]),
+                new RespBulkString(null),
+                new RespBulkString(large),
+                new RespError("error".getBytes(StandardCharsets.UTF_8)),
+                new RespCommandId(42),
+                new RespArray(new RespCommandId(1), new RespBulkString("nested".getBytes(StandardCharsets.UTF_8))),
+                new RespRetainedBulkString(offHeap.slice(), released::incrementAndGet),
+                new RespRetainedBulkString(ByteBuffer.wrap(large).asReadOnlyBuffer().position(10).slice(),
+                        released::incrementAndGet));
+
+        // так же, как объекты писали себя прямо в стрим, а удерживаемые строки - как обычные
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (RespObject object : objects.subList(0, objects.size() - 2)) {
+            object.write(expected);
+        }
+        new RespBulkString(large).write(expected);
+        new RespBulkString(Arrays.copyOfRange(large, 10, large.length)).write(expected);
+
+        RecordingOutputStream os = new RecordingOutputStream();
+        try (RespWriter writer = new RespWriter(os)) {
+            for (RespObject object : objects) {
+                writer.write(object);
+            }
+        }
+
+        assertArrayEquals(expected.toByteArray(), os.toByteArray());
+        assertEquals(2, released.get());
+        assertTrue(os.closed);
+    }
+
+    private static byte[] encode(RespObject object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        object.write(bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Запоминает каждый вызов записи, не копируя переданный массив
+     */
+    private static final class RecordingOutputStream extends OutputStream {
+        private final List<Write> writes = new ArrayList<>();
+        private int flushes;
+        private boolean closed;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            writes.add(new Write(b, off, len, Arrays.copyOfRange(b, off, off + len)));
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        byte[] toByteArray() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for (Write write : writes) {
+                bytes.writeBytes(write.copy);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static final class Write {
+        private final byte[] array;
+        private final int offset;
+        private final int length;
+        private final byte[] copy;
+
+        private Write(byte[] array, int offset, int length, byte[] copy) {
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+            this.copy = copy;
+        }
+
+        byte[] bytes() {
+            return copy;
+        }
+    }
+}